@@ -0,0 +1,10 @@
+package ru.vspochernin.api_gateway.cache;
+
+import org.springframework.http.MediaType;
+
+import java.time.Instant;
+
+// Успешный ответ каталога, сохранённый в шлюзе. Хранятся только тело и Content-Type:
+// остальные заголовки ответа относятся к конкретному запросу
+record CachedResponse(MediaType contentType, byte[] body, String etag, Instant expiresAt) {
+}
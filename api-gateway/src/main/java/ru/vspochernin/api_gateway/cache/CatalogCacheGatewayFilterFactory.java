@@ -0,0 +1,270 @@
+package ru.vspochernin.api_gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Data;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import ru.vspochernin.api_gateway.security.JwtVerificationFilter;
+import ru.vspochernin.api_gateway.security.TrustedClaims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Кэш GET-ответов каталога отелей и номеров на стороне шлюза: ограниченный по объёму,
+// с коротким TTL маршрута, ETag/If-None-Match и объединением одновременных промахов
+// в один запрос к hotel-service. Подключается в маршруте фильтром CatalogCache=<ttl>
+@Component
+public class CatalogCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<CatalogCacheGatewayFilterFactory.Config> {
+
+    static final String CACHE_HEADER = "X-Cache";
+
+    private final Cache<String, CachedResponse> responses;
+    // Запросы к hotel-service, которые сейчас выполняются, по ключу кэша
+    private final Map<String, CompletableFuture<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final long maxBodyBytes;
+
+    public CatalogCacheGatewayFilterFactory(MeterRegistry meterRegistry,
+                                            @Value("${gateway.catalog-cache.max-weight-bytes:67108864}") long maxWeightBytes,
+                                            @Value("${gateway.catalog-cache.max-body-bytes:1048576}") long maxBodyBytes) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+        this.maxBodyBytes = maxBodyBytes;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String key, CachedResponse response) -> key.length() + response.body().length)
+                .expireAfter(Expiry.creating((String key, CachedResponse response) ->
+                        Duration.between(Instant.now(), response.expiresAt())))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "gateway.catalog-responses");
+        Gauge.builder("gateway.catalog-cache.hit-ratio", responses, cache -> cache.stats().hitRate())
+                .description("Share of catalog reads served from the gateway cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("ttl");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // Ответ перехватывается до того, как его запишет NettyWriteResponseFilter
+        return new OrderedGatewayFilter((exchange, chain) -> filter(exchange, chain, config.getTtl()),
+                NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, Duration ttl) {
+        ServerHttpRequest request = exchange.getRequest();
+        // Потоковые выгрузки не буферизуем
+        if (request.getMethod() != HttpMethod.GET
+                || "true".equalsIgnoreCase(request.getQueryParams().getFirst("stream"))) {
+            return chain.filter(exchange);
+        }
+
+        String routeId = routeId(exchange);
+        String key = cacheKey(routeId, exchange);
+
+        CachedResponse cached = responses.getIfPresent(key);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            countRequest(routeId, "hit");
+            countBytesSaved(routeId, "upstream", cached.body().length);
+            return writeCached(exchange, routeId, cached);
+        }
+
+        CompletableFuture<CachedResponse> leader = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> existing = inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            // Такой же запрос уже ушёл в hotel-service - ждём его ответа. Если ответ
+            // оказался некэшируемым, идём в hotel-service сами
+            return Mono.fromFuture(existing, true)
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(response -> {
+                        if (response.isEmpty()) {
+                            countRequest(routeId, "miss");
+                            return chain.filter(exchange);
+                        }
+                        countRequest(routeId, "coalesced");
+                        countBytesSaved(routeId, "upstream", response.get().body().length);
+                        return writeCached(exchange, routeId, response.get());
+                    });
+        }
+
+        countRequest(routeId, "miss");
+        ServerHttpResponse capturing = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return DataBufferUtils.join(body)
+                        .map(joined -> {
+                            byte[] bytes = new byte[joined.readableByteCount()];
+                            joined.read(bytes);
+                            DataBufferUtils.release(joined);
+                            return bytes;
+                        })
+                        .defaultIfEmpty(new byte[0])
+                        .flatMap(bytes -> {
+                            CachedResponse stored = store(key, getStatusCode(), getHeaders(), bytes, ttl);
+                            leader.complete(stored);
+                            if (stored == null) {
+                                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                            }
+                            getHeaders().set(CACHE_HEADER, "MISS");
+                            getHeaders().setETag(stored.etag());
+                            getHeaders().setCacheControl(cacheControl(stored));
+                            if (matchesETag(exchange.getRequest(), stored.etag())) {
+                                countBytesSaved(routeId, "client", bytes.length);
+                                return notModified(getDelegate());
+                            }
+                            return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                        });
+            }
+        };
+
+        return chain.filter(exchange.mutate().response(capturing).build())
+                .doFinally(signal -> {
+                    inFlight.remove(key, leader);
+                    // Ответ не дошёл до записи (ошибка или отмена) - ожидающие идут в hotel-service сами
+                    leader.complete(null);
+                });
+    }
+
+    private CachedResponse store(String key, HttpStatusCode status, HttpHeaders headers, byte[] body, Duration ttl) {
+        // Кэшируем только успешные ответы разумного размера, которые сервис не запретил сохранять
+        boolean ok = status != null && status.value() == HttpStatus.OK.value();
+        boolean noStore = headers.getCacheControl() != null && headers.getCacheControl().contains("no-store");
+        if (!ok || noStore || body.length > maxBodyBytes) {
+            return null;
+        }
+        String etag = headers.getETag() != null ? headers.getETag() : etag(body);
+        CachedResponse response = new CachedResponse(headers.getContentType(), body, etag, Instant.now().plus(ttl));
+        responses.put(key, response);
+        return response;
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, String routeId, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.set(CACHE_HEADER, "HIT");
+        headers.setETag(cached.etag());
+        headers.setCacheControl(cacheControl(cached));
+
+        if (matchesETag(exchange.getRequest(), cached.etag())) {
+            countBytesSaved(routeId, "client", cached.body().length);
+            return notModified(response);
+        }
+        response.setStatusCode(HttpStatus.OK);
+        if (cached.contentType() != null) {
+            headers.setContentType(cached.contentType());
+        }
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private Mono<Void> notModified(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+        response.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        response.getHeaders().remove(HttpHeaders.CONTENT_TYPE);
+        return response.setComplete();
+    }
+
+    // Если токен проверен шлюзом, ответ каталога зависит только от роли и ключ общий
+    // для всех её пользователей. Иначе ключ включает токен: права проверит hotel-service,
+    // и ответ одному клиенту не должен уходить другому без такой проверки
+    private String cacheKey(String routeId, ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        TrustedClaims claims = exchange.getAttribute(JwtVerificationFilter.CLAIMS_ATTR);
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        String principal = claims != null ? "role:" + claims.role()
+                : authorization == null ? "anonymous" : sha256(authorization);
+        String query = request.getURI().getRawQuery();
+        return routeId + "|" + request.getURI().getRawPath() + (query == null ? "" : "?" + query) + "|" + principal;
+    }
+
+    private boolean matchesETag(ServerHttpRequest request, String etag) {
+        String normalized = stripWeak(etag);
+        return request.getHeaders().getIfNoneMatch().stream()
+                .anyMatch(candidate -> candidate.equals("*") || stripWeak(candidate).equals(normalized));
+    }
+
+    private String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private CacheControl cacheControl(CachedResponse cached) {
+        long remaining = Math.max(0, Duration.between(Instant.now(), cached.expiresAt()).toSeconds());
+        return CacheControl.maxAge(Duration.ofSeconds(remaining)).cachePrivate();
+    }
+
+    private String etag(byte[] body) {
+        return "\"" + HexFormat.of().formatHex(Arrays.copyOf(digest(body), 16)) + "\"";
+    }
+
+    private String sha256(String value) {
+        return HexFormat.of().formatHex(digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private byte[] digest(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route == null ? "unknown" : route.getId();
+    }
+
+    private void countRequest(String routeId, String result) {
+        meterRegistry.counter("gateway.catalog-cache.requests", "route", routeId, "result", result).increment();
+    }
+
+    // upstream - тело не запрашивалось у hotel-service, client - тело не отправлялось клиенту (304)
+    private void countBytesSaved(String routeId, String source, long bytes) {
+        meterRegistry.counter("gateway.catalog-cache.bytes-saved", "route", routeId, "source", source).increment(bytes);
+    }
+
+    @Data
+    public static class Config {
+        private Duration ttl = Duration.ofSeconds(10);
+    }
+}
@@ -0,0 +1,85 @@
+package ru.vspochernin.api_gateway.loadbalancer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Задержка одного экземпляра сервиса по peak-EWMA: рост задержки учитывается сразу, снижение - плавно
+// с постоянной времени decay. Пока экземпляр не получает ответов, оценка тоже затухает, и медленный узел
+// со временем снова получает пробный запрос. Незавершённые запросы хранятся с моментом старта,
+// чтобы потерянное завершение (отмена клиентом) не занижало вес узла навсегда
+final class InstanceLatency {
+
+    private record Ewma(double costNanos, long stampNanos) {
+    }
+
+    // Ключ по ссылке: у запросов Spring Cloud LoadBalancer equals сравнивает содержимое
+    private record PendingKey(Object request) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof PendingKey key && key.request == request;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(request);
+        }
+    }
+
+    private final AtomicReference<Ewma> ewma;
+    private final ConcurrentHashMap<PendingKey, Long> pending = new ConcurrentHashMap<>();
+
+    InstanceLatency(long nowNanos) {
+        this.ewma = new AtomicReference<>(new Ewma(0, nowNanos));
+    }
+
+    void start(Object request, long nowNanos) {
+        pending.put(new PendingKey(request), nowNanos);
+    }
+
+    // minRttNanos > 0 - штраф за ошибку: быстрый отказ не должен выглядеть как быстрый ответ
+    void complete(Object request, long nowNanos, long minRttNanos, long decayNanos) {
+        Long startedAt = pending.remove(new PendingKey(request));
+        if (startedAt != null) {
+            observe(Math.max(nowNanos - startedAt, minRttNanos), nowNanos, decayNanos);
+        }
+    }
+
+    void observe(long rttNanos, long nowNanos, long decayNanos) {
+        while (true) {
+            Ewma current = ewma.get();
+            double next;
+            if (rttNanos > current.costNanos()) {
+                next = rttNanos;
+            } else {
+                double weight = weight(current, nowNanos, decayNanos);
+                next = current.costNanos() * weight + rttNanos * (1 - weight);
+            }
+            if (ewma.compareAndSet(current, new Ewma(next, Math.max(nowNanos, current.stampNanos())))) {
+                return;
+            }
+        }
+    }
+
+    // Ожидаемая задержка нового запроса с учётом очереди на экземпляре
+    double cost(long nowNanos, long decayNanos, long penaltyNanos) {
+        Ewma current = ewma.get();
+        int inFlight = pending.size();
+        if (current.costNanos() == 0 && inFlight > 0) {
+            // Экземпляр ещё ни разу не ответил, но уже занят - не отправляем на него всю волну запросов
+            return penaltyNanos + inFlight;
+        }
+        return current.costNanos() * weight(current, nowNanos, decayNanos) * (inFlight + 1);
+    }
+
+    void expirePending(long nowNanos, long maxAgeNanos) {
+        pending.values().removeIf(startedAt -> nowNanos - startedAt > maxAgeNanos);
+    }
+
+    int inFlight() {
+        return pending.size();
+    }
+
+    private static double weight(Ewma current, long nowNanos, long decayNanos) {
+        return Math.exp(-Math.max(0, nowNanos - current.stampNanos()) / (double) decayNanos);
+    }
+}
@@ -0,0 +1,32 @@
+package ru.vspochernin.api_gateway.loadbalancer;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+// Конфигурация дочернего контекста Spring Cloud LoadBalancer, создаётся отдельно для каждого сервиса (lb://hotel-service, ...).
+// Без @Configuration, чтобы сканирование не подняло балансировщик в основном контексте
+public class LatencyAwareLoadBalancerConfiguration {
+
+    // Тип бина - сам балансировщик: через него же LoadBalancerLifecycle получает события запросов
+    @Bean
+    public PeakEwmaLoadBalancer peakEwmaLoadBalancer(Environment environment,
+                                                     LoadBalancerClientFactory loadBalancerClientFactory) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PeakEwmaLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                serviceId,
+                duration(environment, "gateway.load-balancer.decay-time", "10s"),
+                duration(environment, "gateway.load-balancer.error-penalty", "1s"),
+                duration(environment, "gateway.load-balancer.max-pending-age", "60s"));
+    }
+
+    // В дочернем контексте нет конвертеров Spring Boot, поэтому @Value не разбирает значения вида "10s"
+    private static Duration duration(Environment environment, String key, String defaultValue) {
+        return DurationStyle.detectAndParse(environment.getProperty(key, defaultValue));
+    }
+}
@@ -0,0 +1,12 @@
+package ru.vspochernin.api_gateway.loadbalancer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+// Маршруты lb://* выбирают экземпляр по задержке. gateway.load-balancer.latency-aware=false возвращает round-robin
+@Configuration
+@ConditionalOnProperty(value = "gateway.load-balancer.latency-aware", matchIfMissing = true)
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
@@ -0,0 +1,41 @@
+package ru.vspochernin.api_gateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+// Корзина токенов без блокировок: состояние неизменяемое и заменяется через CAS.
+// Пополнение считается лениво по прошедшему времени, отдельный таймер не нужен
+final class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private record State(double tokens, long refilledAtNanos) {
+    }
+
+    record Result(boolean allowed, long tokensRemaining, long retryAfterNanos) {
+    }
+
+    private final AtomicReference<State> state;
+
+    TokenBucket(int capacity, long nowNanos) {
+        this.state = new AtomicReference<>(new State(capacity, nowNanos));
+    }
+
+    Result tryConsume(int requested, double tokensPerSecond, int capacity, long nowNanos) {
+        while (true) {
+            State current = state.get();
+            // Потоки могут прийти с чуть более ранним nowNanos, чем последнее обновление
+            long elapsed = Math.max(0, nowNanos - current.refilledAtNanos());
+            double available = Math.min(capacity, current.tokens() + elapsed * tokensPerSecond / NANOS_PER_SECOND);
+
+            if (available < requested) {
+                long retryAfter = (long) Math.ceil((requested - available) / tokensPerSecond * NANOS_PER_SECOND);
+                return new Result(false, (long) available, retryAfter);
+            }
+
+            State next = new State(available - requested, Math.max(nowNanos, current.refilledAtNanos()));
+            if (state.compareAndSet(current, next)) {
+                return new Result(true, (long) next.tokens(), 0);
+            }
+        }
+    }
+}
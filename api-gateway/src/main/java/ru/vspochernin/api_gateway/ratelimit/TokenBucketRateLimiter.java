@@ -0,0 +1,92 @@
+package ru.vspochernin.api_gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Ограничение частоты запросов для фильтра RequestRateLimiter внутри процесса шлюза,
+// без Redis. Лимиты задаются на маршрут, корзина заводится на пару маршрут + ключ клиента
+@Component
+public class TokenBucketRateLimiter extends AbstractRateLimiter<TokenBucketRateLimiter.Config> {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "token-bucket";
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+
+    private final MeterRegistry meterRegistry;
+    // Неактивные клиенты вытесняются, память ограничена числом ключей
+    private final Cache<String, TokenBucket> buckets;
+
+    public TokenBucketRateLimiter(ConfigurationService configurationService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${gateway.rate-limit.max-keys:100000}") long maxKeys,
+                                  @Value("${gateway.rate-limit.idle-expiry:10m}") Duration idleExpiry) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleExpiry)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "gateway.rate-limit.buckets");
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = getConfig().get(routeId);
+        if (config == null) {
+            throw new IllegalArgumentException("No token bucket configuration found for route " + routeId);
+        }
+        if (config.getReplenishRate() <= 0 || config.getBurstCapacity() < config.getRequestedTokens()) {
+            throw new IllegalArgumentException("Invalid token bucket configuration for route " + routeId + ": " + config);
+        }
+
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(routeId + ":" + id, key -> new TokenBucket(config.getBurstCapacity(), now));
+        TokenBucket.Result result = bucket.tryConsume(
+                config.getRequestedTokens(), config.getReplenishRate(), config.getBurstCapacity(), now);
+
+        meterRegistry.counter("gateway.rate-limit.requests",
+                "route", routeId, "result", result.allowed() ? "allowed" : "rejected").increment();
+        return Mono.just(new Response(result.allowed(), headers(config, result)));
+    }
+
+    private Map<String, String> headers(Config config, TokenBucket.Result result) {
+        if (result.allowed()) {
+            return Map.of(
+                    REMAINING_HEADER, Long.toString(result.tokensRemaining()),
+                    REPLENISH_RATE_HEADER, Integer.toString(config.getReplenishRate()),
+                    BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()));
+        }
+        // Retry-After в целых секундах, округление вверх
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(result.retryAfterNanos() + 999_999_999));
+        return Map.of(
+                REMAINING_HEADER, Long.toString(result.tokensRemaining()),
+                REPLENISH_RATE_HEADER, Integer.toString(config.getReplenishRate()),
+                BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()),
+                HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    }
+
+    @Data
+    public static class Config {
+        // Токенов в секунду
+        private int replenishRate = 10;
+        // Допустимый всплеск запросов сверх средней скорости
+        private int burstCapacity = 20;
+        // Стоимость одного запроса в токенах
+        private int requestedTokens = 1;
+    }
+}
@@ -0,0 +1,29 @@
+package ru.vspochernin.api_gateway.ratelimit;
+
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import ru.vspochernin.api_gateway.security.JwtVerificationFilter;
+import ru.vspochernin.api_gateway.security.TrustedClaims;
+
+import java.net.InetSocketAddress;
+
+// Ключ лимита: пользователь из проверенного шлюзом токена, для анонимных запросов
+// (регистрация, авторизация) - IP клиента
+@Component
+public class UserKeyResolver implements KeyResolver {
+
+    @Override
+    public Mono<String> resolve(ServerWebExchange exchange) {
+        TrustedClaims claims = exchange.getAttribute(JwtVerificationFilter.CLAIMS_ATTR);
+        if (claims != null && claims.subject() != null) {
+            return Mono.just("user:" + claims.subject());
+        }
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        if (remoteAddress == null) {
+            return Mono.just("ip:unknown");
+        }
+        return Mono.just("ip:" + remoteAddress.getHostString());
+    }
+}
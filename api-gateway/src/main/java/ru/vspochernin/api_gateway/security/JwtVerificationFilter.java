@@ -0,0 +1,149 @@
+package ru.vspochernin.api_gateway.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+
+// Проверяет HS256-токен один раз на входе в систему. Вместо Authorization сервисы
+// получают подписанные заголовки с claims и не разбирают токен повторно.
+// Запросы без токена проходят как есть: публичные эндпоинты решают сами
+@Component
+@Slf4j
+public class JwtVerificationFilter implements GlobalFilter, Ordered {
+
+    public static final String CLAIMS_ATTR = JwtVerificationFilter.class.getName() + ".claims";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final boolean enabled;
+    private final JwtParser parser;
+    private final Mac signer;
+    private final Cache<String, TrustedClaims> verifiedTokens;
+
+    public JwtVerificationFilter(MeterRegistry meterRegistry,
+                                 @Value("${security.trusted-claims.enabled:true}") boolean enabled,
+                                 @Value("${security.jwt.secret}") String jwtSecret,
+                                 @Value("${security.trusted-claims.secret:}") String claimsSecret,
+                                 @Value("${security.jwt.cache.max-size:10000}") long cacheMaxSize) {
+        // Ключ подписи заголовков отдельный от ключа JWT: утечка одного не позволяет подделать другое
+        if (enabled && (claimsSecret.isBlank() || claimsSecret.equals(jwtSecret))) {
+            throw new IllegalStateException("security.trusted-claims.secret must be set and differ from security.jwt.secret");
+        }
+        this.enabled = enabled;
+        this.parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        this.signer = TrustedClaims.mac(claimsSecret);
+        // Проверенные токены по SHA-256 хэшу, каждый живёт до своего exp
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(Expiry.creating((String hash, TrustedClaims claims) ->
+                        Duration.between(Instant.now(), Instant.ofEpochSecond(claims.expiresAtEpochSecond()))))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "gateway.jwt.verified-tokens");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        // Заголовки с claims принимаются только от шлюза - клиентские отбрасываем всегда
+        ServerHttpRequest.Builder request = exchange.getRequest().mutate()
+                .headers(headers -> {
+                    for (String header : TrustedClaims.HEADERS) {
+                        headers.remove(header);
+                    }
+                });
+
+        String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (!enabled || authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return chain.filter(exchange.mutate().request(request.build()).build());
+        }
+
+        Optional<TrustedClaims> claims = verify(authorization.substring(BEARER_PREFIX.length()));
+        if (claims.isEmpty()) {
+            exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+            exchange.getResponse().getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            return exchange.getResponse().setComplete();
+        }
+
+        TrustedClaims trusted = claims.get();
+        request.headers(headers -> {
+            headers.remove(HttpHeaders.AUTHORIZATION);
+            headers.set(TrustedClaims.SUBJECT_HEADER, trusted.encodedSubject());
+            if (trusted.role() != null) {
+                headers.set(TrustedClaims.ROLE_HEADER, trusted.role());
+            }
+            if (trusted.userId() != null) {
+                headers.set(TrustedClaims.USER_ID_HEADER, trusted.userId().toString());
+            }
+            headers.set(TrustedClaims.EXPIRES_HEADER, Long.toString(trusted.expiresAtEpochSecond()));
+            headers.set(TrustedClaims.SIGNATURE_HEADER, trusted.sign(signer));
+        });
+        ServerWebExchange verified = exchange.mutate().request(request.build()).build();
+        verified.getAttributes().put(CLAIMS_ATTR, trusted);
+        return chain.filter(verified);
+    }
+
+    Optional<TrustedClaims> verify(String token) {
+        String hash = hash(token);
+        TrustedClaims cached = verifiedTokens.getIfPresent(hash);
+        if (cached != null && cached.expiresAtEpochSecond() > Instant.now().getEpochSecond()) {
+            return Optional.of(cached);
+        }
+
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Number userId = claims.get("userId", Number.class);
+            TrustedClaims trusted = new TrustedClaims(
+                    claims.getSubject(),
+                    claims.get("role", String.class),
+                    userId == null ? null : userId.longValue(),
+                    claims.getExpiration().toInstant().getEpochSecond());
+            verifiedTokens.put(hash, trusted);
+            return Optional.of(trusted);
+        } catch (Exception e) {
+            log.warn("Rejected JWT token at gateway: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Раньше фильтров маршрутов, чтобы кэш каталога уже видел проверенные claims
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 100;
+    }
+}
@@ -0,0 +1,58 @@
+package ru.vspochernin.api_gateway.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+// Claims проверенного в шлюзе токена, которые передаются сервисам заголовками.
+// Подпись HMAC-SHA256 общим секретом не даёт подделать заголовки в обход шлюза.
+// Имя пользователя передаётся в Base64url от UTF-8: значение заголовка Netty пишет в ISO-8859-1,
+// и кириллица в открытом виде дошла бы до сервисов искажённой
+public record TrustedClaims(String subject, String role, Long userId, long expiresAtEpochSecond) {
+
+    public static final String SUBJECT_HEADER = "X-Auth-Subject";
+    public static final String ROLE_HEADER = "X-Auth-Role";
+    public static final String USER_ID_HEADER = "X-Auth-User-Id";
+    public static final String EXPIRES_HEADER = "X-Auth-Expires";
+    public static final String SIGNATURE_HEADER = "X-Auth-Signature";
+
+    public static final String[] HEADERS = {
+            SUBJECT_HEADER, ROLE_HEADER, USER_ID_HEADER, EXPIRES_HEADER, SIGNATURE_HEADER
+    };
+
+    // Mac не потокобезопасен: подписываем копией заранее инициализированного экземпляра
+    public static Mac mac(String secret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    public String sign(Mac prototype) {
+        try {
+            Mac mac = (Mac) prototype.clone();
+            byte[] signature = mac.doFinal(payload().getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("HmacSHA256 does not support cloning", e);
+        }
+    }
+
+    public String encodedSubject() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(subject.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Подписывается закодированное имя - ровно то значение, которое получат сервисы
+    private String payload() {
+        return encodedSubject() + "\n" + nullToEmpty(role) + "\n" + (userId == null ? "" : userId) + "\n" + expiresAtEpochSecond;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
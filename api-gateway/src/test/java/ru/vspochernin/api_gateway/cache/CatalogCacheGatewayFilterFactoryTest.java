@@ -0,0 +1,164 @@
+package ru.vspochernin.api_gateway.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.vspochernin.api_gateway.security.JwtVerificationFilter;
+import ru.vspochernin.api_gateway.security.TrustedClaims;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogCacheGatewayFilterFactoryTest {
+
+    private static final String ROUTE_ID = "hotel-catalog-route";
+    private static final String BODY = "[{\"id\":1,\"name\":\"Hotel\"}]";
+
+    private SimpleMeterRegistry meterRegistry;
+    private GatewayFilter filter;
+    private AtomicInteger upstreamCalls;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        CatalogCacheGatewayFilterFactory factory = new CatalogCacheGatewayFilterFactory(meterRegistry, 1 << 20, 1 << 16);
+        CatalogCacheGatewayFilterFactory.Config config = new CatalogCacheGatewayFilterFactory.Config();
+        config.setTtl(Duration.ofSeconds(10));
+        filter = factory.apply(config);
+        upstreamCalls = new AtomicInteger();
+    }
+
+    @Test
+    void testRepeatedReadServedFromCache() {
+        MockServerWebExchange first = exchange("/api/hotels", "Bearer user");
+        filter.filter(first, upstream(HttpStatus.OK, Duration.ZERO)).block();
+        MockServerWebExchange second = exchange("/api/hotels", "Bearer user");
+        filter.filter(second, upstream(HttpStatus.OK, Duration.ZERO)).block();
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals("MISS", first.getResponse().getHeaders().getFirst(CatalogCacheGatewayFilterFactory.CACHE_HEADER));
+        assertEquals("HIT", second.getResponse().getHeaders().getFirst(CatalogCacheGatewayFilterFactory.CACHE_HEADER));
+        assertEquals(BODY, second.getResponse().getBodyAsString().block());
+        assertEquals(MediaType.APPLICATION_JSON, second.getResponse().getHeaders().getContentType());
+        assertNotNull(second.getResponse().getHeaders().getETag());
+        assertEquals(first.getResponse().getHeaders().getETag(), second.getResponse().getHeaders().getETag());
+        assertEquals(BODY.length(), meterRegistry.get("gateway.catalog-cache.bytes-saved")
+            .tags("route", ROUTE_ID, "source", "upstream").counter().count());
+    }
+
+    @Test
+    void testIfNoneMatchReturnsNotModified() {
+        MockServerWebExchange first = exchange("/api/hotels/1", "Bearer user");
+        filter.filter(first, upstream(HttpStatus.OK, Duration.ZERO)).block();
+        String etag = first.getResponse().getHeaders().getETag();
+
+        MockServerWebExchange revalidation = MockServerWebExchange.from(MockServerHttpRequest.get("/api/hotels/1")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer user")
+            .header(HttpHeaders.IF_NONE_MATCH, etag));
+        revalidation.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route());
+        filter.filter(revalidation, upstream(HttpStatus.OK, Duration.ZERO)).block();
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidation.getResponse().getStatusCode());
+        assertEquals(etag, revalidation.getResponse().getHeaders().getETag());
+        assertEquals("", revalidation.getResponse().getBodyAsString().defaultIfEmpty("").block());
+    }
+
+    @Test
+    void testConcurrentMissesAreCoalesced() {
+        List<MockServerWebExchange> exchanges = Flux.range(0, 10)
+            .map(i -> exchange("/api/rooms/recommend", "Bearer user"))
+            .collectList()
+            .block();
+
+        Flux.fromIterable(exchanges)
+            .flatMap(exchange -> filter.filter(exchange, upstream(HttpStatus.OK, Duration.ofMillis(200))))
+            .blockLast(Duration.ofSeconds(5));
+
+        // Все десять клиентов получили ответ одного запроса к hotel-service
+        assertEquals(1, upstreamCalls.get());
+        for (MockServerWebExchange exchange : exchanges) {
+            assertEquals(BODY, exchange.getResponse().getBodyAsString().block());
+        }
+        assertEquals(9, meterRegistry.get("gateway.catalog-cache.requests")
+            .tags("route", ROUTE_ID, "result", "coalesced").counter().count());
+    }
+
+    @Test
+    void testEntriesAreNotSharedBetweenTokensAndErrorsAreNotCached() {
+        filter.filter(exchange("/api/rooms", "Bearer first"), upstream(HttpStatus.OK, Duration.ZERO)).block();
+        filter.filter(exchange("/api/rooms", "Bearer second"), upstream(HttpStatus.OK, Duration.ZERO)).block();
+        assertEquals(2, upstreamCalls.get());
+
+        filter.filter(exchange("/api/rooms?after=5", "Bearer first"), upstream(HttpStatus.SERVICE_UNAVAILABLE, Duration.ZERO)).block();
+        MockServerWebExchange retry = exchange("/api/rooms?after=5", "Bearer first");
+        filter.filter(retry, upstream(HttpStatus.OK, Duration.ZERO)).block();
+        assertEquals(4, upstreamCalls.get());
+        assertEquals("MISS", retry.getResponse().getHeaders().getFirst(CatalogCacheGatewayFilterFactory.CACHE_HEADER));
+    }
+
+    @Test
+    void testVerifiedUsersOfSameRoleShareEntries() {
+        MockServerWebExchange alice = exchange("/api/hotels", null);
+        alice.getAttributes().put(JwtVerificationFilter.CLAIMS_ATTR, new TrustedClaims("alice", "USER", 1L, Long.MAX_VALUE));
+        filter.filter(alice, upstream(HttpStatus.OK, Duration.ZERO)).block();
+
+        MockServerWebExchange bob = exchange("/api/hotels", null);
+        bob.getAttributes().put(JwtVerificationFilter.CLAIMS_ATTR, new TrustedClaims("bob", "USER", 2L, Long.MAX_VALUE));
+        filter.filter(bob, upstream(HttpStatus.OK, Duration.ZERO)).block();
+
+        MockServerWebExchange admin = exchange("/api/hotels", null);
+        admin.getAttributes().put(JwtVerificationFilter.CLAIMS_ATTR, new TrustedClaims("admin", "ADMIN", 3L, Long.MAX_VALUE));
+        filter.filter(admin, upstream(HttpStatus.OK, Duration.ZERO)).block();
+
+        // Токены уже проверены шлюзом: пользователи одной роли получают общий ответ
+        assertEquals(2, upstreamCalls.get());
+        assertEquals("HIT", bob.getResponse().getHeaders().getFirst(CatalogCacheGatewayFilterFactory.CACHE_HEADER));
+    }
+
+    private MockServerWebExchange exchange(String uri, String authorization) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(uri);
+        if (authorization != null) {
+            request.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route());
+        return exchange;
+    }
+
+    private Route route() {
+        return Route.async()
+            .id(ROUTE_ID)
+            .uri("http://hotel-service")
+            .predicate(exchange -> true)
+            .build();
+    }
+
+    // Имитация hotel-service: отвечает телом каталога после задержки
+    private GatewayFilterChain upstream(HttpStatus status, Duration delay) {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(status);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            return Mono.delay(delay).then(response.writeWith(Mono.fromSupplier(() ->
+                response.bufferFactory().wrap(BODY.getBytes(StandardCharsets.UTF_8)))));
+        };
+    }
+}
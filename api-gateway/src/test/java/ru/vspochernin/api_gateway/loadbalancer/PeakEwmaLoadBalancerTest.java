@@ -0,0 +1,147 @@
+package ru.vspochernin.api_gateway.loadbalancer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PeakEwmaLoadBalancerTest {
+
+    private static final String SERVICE_ID = "hotel-service";
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final ServiceInstance fast1 = instance("fast-1", 8081);
+    private final ServiceInstance fast2 = instance("fast-2", 8081);
+    private final ServiceInstance slow = instance("slow", 8081);
+    private PeakEwmaLoadBalancer loadBalancer;
+
+    @BeforeEach
+    void setUp() {
+        loadBalancer = loadBalancer(List.of(fast1, fast2, slow));
+    }
+
+    @Test
+    void testSlowInstanceLosesMostTraffic() {
+        Map<String, Integer> picks = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            ServiceInstance chosen = choose();
+            picks.merge(chosen.getHost(), 1, Integer::sum);
+            // Медленный узел отвечает за 200 мс, быстрые - за 10 мс
+            call(chosen, chosen == slow ? 200 : 10, HttpStatus.OK);
+        }
+
+        // Round-robin отдал бы медленному узлу треть запросов
+        int slowPicks = picks.getOrDefault("slow", 0);
+        assertTrue(slowPicks > 0, "slow instance should still be probed");
+        assertTrue(slowPicks < 150, "slow instance got " + slowPicks + " of 3000 requests");
+    }
+
+    @Test
+    void testInFlightRequestsShiftLoadToIdleInstance() {
+        loadBalancer = loadBalancer(List.of(fast1, fast2));
+        call(fast1, 10, HttpStatus.OK);
+        call(fast2, 10, HttpStatus.OK);
+
+        // Пять запросов к fast-1 ещё не завершены - при одинаковой задержке выбирается свободный fast-2
+        for (int i = 0; i < 5; i++) {
+            start(fast1);
+        }
+        for (int i = 0; i < 20; i++) {
+            assertSame(fast2, choose());
+        }
+    }
+
+    @Test
+    void testServerErrorsPushTrafficAway() {
+        loadBalancer = loadBalancer(List.of(fast1, fast2));
+        call(fast1, 20, HttpStatus.OK);
+        // fast-2 быстро отвечает 503 - это не должно выглядеть как быстрый ответ
+        call(fast2, 1, HttpStatus.SERVICE_UNAVAILABLE);
+
+        for (int i = 0; i < 20; i++) {
+            assertSame(fast1, choose());
+        }
+    }
+
+    @Test
+    void testAbandonedRequestsExpire() {
+        loadBalancer = loadBalancer(List.of(fast1, fast2));
+        call(fast1, 10, HttpStatus.OK);
+        call(fast2, 20, HttpStatus.OK);
+
+        // Завершения этих запросов потеряны (например, клиент отменил запрос в шлюзе)
+        for (int i = 0; i < 3; i++) {
+            start(fast1);
+        }
+        assertSame(fast2, choose());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        assertSame(fast1, choose());
+    }
+
+    @Test
+    void testSingleAndNoInstances() {
+        assertSame(fast1, loadBalancer(List.of(fast1)).choose(List.of(fast1)).getServer());
+        assertFalse(loadBalancer(List.of()).choose(new DefaultRequest<>()).block().hasServer());
+    }
+
+    private ServiceInstance choose() {
+        return loadBalancer.choose(new DefaultRequest<>()).block().getServer();
+    }
+
+    private Request<RequestDataContext> start(ServiceInstance instance) {
+        Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext());
+        loadBalancer.onStartRequest(request, new DefaultResponse(instance));
+        return request;
+    }
+
+    private void call(ServiceInstance instance, long latencyMillis, HttpStatus status) {
+        Request<RequestDataContext> request = start(instance);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        Response<ServiceInstance> response = new DefaultResponse(instance);
+        loadBalancer.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response,
+                new ResponseData(status, new HttpHeaders(), null, null)));
+    }
+
+    private PeakEwmaLoadBalancer loadBalancer(List<ServiceInstance> instances) {
+        ServiceInstanceListSupplier supplier = new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return SERVICE_ID;
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(instances);
+            }
+        };
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("supplier", supplier));
+        return new PeakEwmaLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class), SERVICE_ID,
+                Duration.ofSeconds(10), Duration.ofSeconds(1), Duration.ofSeconds(60), clock::get);
+    }
+
+    private static ServiceInstance instance(String host, int port) {
+        return new DefaultServiceInstance(host + ":" + port, SERVICE_ID, host, port, false);
+    }
+}
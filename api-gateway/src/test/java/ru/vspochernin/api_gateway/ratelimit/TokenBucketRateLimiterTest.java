@@ -0,0 +1,144 @@
+package ru.vspochernin.api_gateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.RequestRateLimiterGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import ru.vspochernin.api_gateway.security.JwtVerificationFilter;
+import ru.vspochernin.api_gateway.security.TrustedClaims;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketRateLimiterTest {
+
+    private static final String ROUTE_ID = "booking-create-route";
+
+    private SimpleMeterRegistry meterRegistry;
+    private GatewayFilter filter;
+    private AtomicInteger upstreamCalls;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(null, meterRegistry, 1000, Duration.ofMinutes(10));
+        TokenBucketRateLimiter.Config config = new TokenBucketRateLimiter.Config();
+        config.setReplenishRate(1);
+        config.setBurstCapacity(3);
+        rateLimiter.getConfig().put(ROUTE_ID, config);
+
+        RequestRateLimiterGatewayFilterFactory factory =
+                new RequestRateLimiterGatewayFilterFactory(rateLimiter, new UserKeyResolver());
+        filter = factory.apply(new RequestRateLimiterGatewayFilterFactory.Config());
+        upstreamCalls = new AtomicInteger();
+    }
+
+    @Test
+    void testOverLimitRequestsRejectedBeforeUpstream() {
+        for (int i = 0; i < 3; i++) {
+            MockServerWebExchange allowed = exchange("alice", "10.0.0.1");
+            filter.filter(allowed, upstream()).block();
+            assertEquals(HttpStatus.OK, allowed.getResponse().getStatusCode());
+        }
+
+        MockServerWebExchange rejected = exchange("alice", "10.0.0.1");
+        filter.filter(rejected, upstream()).block();
+
+        // Сага не запускается: до booking-service дошли только запросы в пределах всплеска
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertEquals("1", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals("0", rejected.getResponse().getHeaders().getFirst(TokenBucketRateLimiter.REMAINING_HEADER));
+        assertEquals(1, meterRegistry.get("gateway.rate-limit.requests")
+                .tags("route", ROUTE_ID, "result", "rejected").counter().count());
+    }
+
+    @Test
+    void testLimitsAreKeptPerUserAndPerAnonymousAddress() {
+        for (int i = 0; i < 4; i++) {
+            filter.filter(exchange("alice", "10.0.0.1"), upstream()).block();
+        }
+
+        // Другой пользователь с того же адреса и анонимный клиент имеют свои корзины
+        MockServerWebExchange bob = exchange("bob", "10.0.0.1");
+        filter.filter(bob, upstream()).block();
+        MockServerWebExchange anonymous = exchange(null, "10.0.0.1");
+        filter.filter(anonymous, upstream()).block();
+
+        assertEquals(HttpStatus.OK, bob.getResponse().getStatusCode());
+        assertEquals(HttpStatus.OK, anonymous.getResponse().getStatusCode());
+        assertEquals(5, upstreamCalls.get());
+    }
+
+    @Test
+    void testBucketRefillsOverTime() {
+        TokenBucket bucket = new TokenBucket(2, 0);
+        assertTrue(bucket.tryConsume(1, 4, 2, 0).allowed());
+        assertTrue(bucket.tryConsume(1, 4, 2, 0).allowed());
+
+        TokenBucket.Result rejected = bucket.tryConsume(1, 4, 2, 0);
+        assertFalse(rejected.allowed());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(250), rejected.retryAfterNanos());
+
+        // Через 250 мс при 4 токенах в секунду появляется один токен, но не больше ёмкости
+        assertTrue(bucket.tryConsume(1, 4, 2, TimeUnit.MILLISECONDS.toNanos(250)).allowed());
+        assertFalse(bucket.tryConsume(1, 4, 2, TimeUnit.MILLISECONDS.toNanos(250)).allowed());
+        assertEquals(1, bucket.tryConsume(1, 4, 2, TimeUnit.SECONDS.toNanos(10)).tokensRemaining());
+    }
+
+    @Test
+    void testConcurrentConsumersNeverExceedCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(100, 0);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> {
+                if (bucket.tryConsume(1, 1, 100, 0).allowed()) {
+                    allowed.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, allowed.get());
+    }
+
+    private MockServerWebExchange exchange(String subject, String address) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/booking")
+                .remoteAddress(new InetSocketAddress(address, 54321)));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, Route.async()
+                .id(ROUTE_ID)
+                .uri("http://booking-service")
+                .predicate(e -> true)
+                .build());
+        if (subject != null) {
+            exchange.getAttributes().put(JwtVerificationFilter.CLAIMS_ATTR,
+                    new TrustedClaims(subject, "USER", 1L, Long.MAX_VALUE));
+        }
+        return exchange;
+    }
+
+    private GatewayFilterChain upstream() {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            return Mono.empty();
+        };
+    }
+}
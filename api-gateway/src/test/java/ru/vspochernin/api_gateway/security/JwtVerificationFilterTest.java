@@ -0,0 +1,130 @@
+package ru.vspochernin.api_gateway.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtVerificationFilterTest {
+
+    private static final String SECRET = "testSecretKey123456789012345678901234567890";
+    private static final String CLAIMS_SECRET = "testTrustedClaimsKey67890123456789012345";
+
+    private JwtVerificationFilter filter;
+    private AtomicReference<ServerHttpRequest> forwarded;
+    private GatewayFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        filter = new JwtVerificationFilter(new SimpleMeterRegistry(), true, SECRET, CLAIMS_SECRET, 100);
+        forwarded = new AtomicReference<>();
+        chain = exchange -> {
+            forwarded.set(exchange.getRequest());
+            return Mono.empty();
+        };
+    }
+
+    @Test
+    void testValidTokenIsReplacedWithSignedClaims() {
+        MockServerWebExchange exchange = exchange("Bearer " + token(SECRET, "alice"));
+        filter.filter(exchange, chain).block();
+
+        HttpHeaders headers = forwarded.get().getHeaders();
+        assertNull(headers.getFirst(HttpHeaders.AUTHORIZATION));
+        assertEquals(encode("alice"), headers.getFirst(TrustedClaims.SUBJECT_HEADER));
+        assertEquals("USER", headers.getFirst(TrustedClaims.ROLE_HEADER));
+        assertEquals("42", headers.getFirst(TrustedClaims.USER_ID_HEADER));
+
+        // Подпись совпадает с той, что посчитают сервисы по тем же заголовкам
+        TrustedClaims expected = new TrustedClaims("alice", "USER", 42L,
+            Long.parseLong(headers.getFirst(TrustedClaims.EXPIRES_HEADER)));
+        assertEquals(expected.sign(TrustedClaims.mac(CLAIMS_SECRET)), headers.getFirst(TrustedClaims.SIGNATURE_HEADER));
+    }
+
+    @Test
+    void testNonAsciiSubjectIsEncodedAndSigned() throws Exception {
+        filter.filter(exchange("Bearer " + token(SECRET, "Алиса")), chain).block();
+
+        // Значение заголовка - ASCII, сервисы декодируют его обратно в UTF-8
+        HttpHeaders headers = forwarded.get().getHeaders();
+        String subject = headers.getFirst(TrustedClaims.SUBJECT_HEADER);
+        assertTrue(subject.chars().allMatch(c -> c < 128), subject);
+        assertEquals("Алиса", new String(Base64.getUrlDecoder().decode(subject), StandardCharsets.UTF_8));
+
+        // Подписано закодированное имя, ровно в том виде, в каком его получат сервисы
+        long expires = Long.parseLong(headers.getFirst(TrustedClaims.EXPIRES_HEADER));
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(CLAIMS_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String payload = subject + "\nUSER\n42\n" + expires;
+        assertEquals(Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8))),
+            headers.getFirst(TrustedClaims.SIGNATURE_HEADER));
+    }
+
+    @Test
+    void testClaimsSecretMustDifferFromJwtSecret() {
+        assertThrows(IllegalStateException.class,
+            () -> new JwtVerificationFilter(new SimpleMeterRegistry(), true, SECRET, SECRET, 100));
+        assertThrows(IllegalStateException.class,
+            () -> new JwtVerificationFilter(new SimpleMeterRegistry(), true, SECRET, "", 100));
+    }
+
+    @Test
+    void testInvalidTokenIsRejectedAtGateway() {
+        MockServerWebExchange exchange = exchange("Bearer " + token("otherSecretKey12345678901234567890123456789", "alice"));
+        filter.filter(exchange, chain).block();
+
+        assertNull(forwarded.get());
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    void testClientSuppliedClaimHeadersAreStripped() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/user/register")
+            .header(TrustedClaims.SUBJECT_HEADER, "admin")
+            .header(TrustedClaims.ROLE_HEADER, "ADMIN")
+            .header(TrustedClaims.SIGNATURE_HEADER, "forged"));
+        filter.filter(exchange, chain).block();
+
+        HttpHeaders headers = forwarded.get().getHeaders();
+        assertNull(headers.getFirst(TrustedClaims.SUBJECT_HEADER));
+        assertNull(headers.getFirst(TrustedClaims.ROLE_HEADER));
+        assertNull(headers.getFirst(TrustedClaims.SIGNATURE_HEADER));
+    }
+
+    private MockServerWebExchange exchange(String authorization) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/hotels")
+            .header(HttpHeaders.AUTHORIZATION, authorization));
+    }
+
+    private static String encode(String subject) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(subject.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String token(String secret, String subject) {
+        return Jwts.builder()
+            .subject(subject)
+            .claim("role", "USER")
+            .claim("userId", 42L)
+            .issuedAt(new Date())
+            .expiration(new Date(System.currentTimeMillis() + 3_600_000))
+            .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+            .compact();
+    }
+}
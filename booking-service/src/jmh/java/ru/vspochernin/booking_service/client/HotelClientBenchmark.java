@@ -0,0 +1,153 @@
+package ru.vspochernin.booking_service.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Feign;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import ru.vspochernin.booking_service.config.FeignConfig;
+import ru.vspochernin.booking_service.dto.AvailabilityRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Задержка трёх внутренних вызовов hotel-service в зависимости от HTTP-клиента Feign:
+// url-connection - клиент по умолчанию (HttpURLConnection, в keep-alive кэше JDK не больше 5 соединений на хост),
+// hc5 - пул Apache HttpClient 5 с настройками из application.yml, jdk - java.net.http.HttpClient.
+// 16 потоков - параллельные шаги саг; заглушка в том же процессе, поэтому разница - только стоимость соединений.
+// В конце прогона печатается число TCP-соединений, которые открыл клиент
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@Threads(16)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HotelClientBenchmark {
+
+    private static final byte[] AVAILABLE = "true".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"url-connection", "hc5", "jdk"})
+    private String client;
+
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+    private HttpServer server;
+    private CloseableHttpClient httpClient5;
+    private HotelServiceClient hotelServiceClient;
+    private AvailabilityRequest dates;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/rooms/", this::handle);
+        server.start();
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        HttpMessageConverters converters = new HttpMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper));
+        hotelServiceClient = Feign.builder()
+                .client(createClient())
+                .contract(new SpringMvcContract())
+                .encoder(new SpringEncoder(() -> converters))
+                .decoder(new SpringDecoder(() -> converters))
+                .options(new FeignConfig().requestOptions())
+                .target(HotelServiceClient.class, "http://localhost:" + server.getAddress().getPort());
+        dates = new AvailabilityRequest(LocalDate.now().plusDays(1), LocalDate.now().plusDays(3));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (httpClient5 != null) {
+            httpClient5.close();
+        }
+        server.stop(0);
+        System.out.printf("%n%s: TCP connections opened: %d%n", client, connections.size());
+    }
+
+    @Benchmark
+    public Boolean confirmAvailability() {
+        return hotelServiceClient.confirmAvailability(roomId(), "benchmark", dates);
+    }
+
+    @Benchmark
+    public void releaseSlot() {
+        hotelServiceClient.releaseSlot(roomId(), "benchmark");
+    }
+
+    @Benchmark
+    public void incrementTimesBooked() {
+        hotelServiceClient.incrementTimesBooked(roomId(), "benchmark");
+    }
+
+    private Client createClient() {
+        return switch (client) {
+            case "url-connection" -> new Client.Default(null, null);
+            case "hc5" -> {
+                // Лимиты как в spring.cloud.openfeign.httpclient.* в application.yml
+                httpClient5 = HttpClients.custom()
+                        .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                                .setMaxConnTotal(200)
+                                .setMaxConnPerRoute(50)
+                                .build())
+                        .disableCookieManagement()
+                        .build();
+                yield new ApacheHttp5Client(httpClient5);
+            }
+            case "jdk" -> new Http2Client(HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build());
+            default -> throw new IllegalArgumentException("Unknown client: " + client);
+        };
+    }
+
+    private static long roomId() {
+        return ThreadLocalRandom.current().nextLong(1, 100);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        connections.add(exchange.getRemoteAddress());
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            body.readAllBytes();
+            if (exchange.getRequestURI().getPath().endsWith("/confirm-availability")) {
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, AVAILABLE.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(AVAILABLE);
+                }
+            } else {
+                exchange.sendResponseHeaders(200, -1);
+            }
+        }
+    }
+}
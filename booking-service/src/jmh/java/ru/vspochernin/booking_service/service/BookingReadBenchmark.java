@@ -0,0 +1,123 @@
+package ru.vspochernin.booking_service.service;
+
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.vspochernin.booking_service.BookingServiceApplication;
+import ru.vspochernin.booking_service.dto.BookingDto;
+import ru.vspochernin.booking_service.entity.Booking;
+import ru.vspochernin.booking_service.entity.User;
+import ru.vspochernin.booking_service.repository.BookingRepository;
+import ru.vspochernin.booking_service.repository.UserRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Чтение бронирований пользователя из H2 через Hibernate: entities - управляемые сущности со снимками
+// и прокси пользователя, затем копирование в BookingDto (прежний путь), projection - конструктор BookingDto
+// прямо в JPQL (BookingService). all - все бронирования пользователя, page - страница keyset-пагинации
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BookingReadBenchmark {
+
+    private static final String USER_BOOKINGS = "SELECT b FROM Booking b WHERE b.user.id = :userId";
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"10000"})
+    private int bookings;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnlyTransaction;
+    private Long userId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookingServiceApplication.class)
+                .properties("server.port=0",
+                        "eureka.client.enabled=false",
+                        "spring.datasource.url=jdbc:h2:mem:booking-read-benchmark;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN")
+                .run();
+        bookingService = context.getBean(BookingService.class);
+        entityManager = context.getBean(EntityManager.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        User user = context.getBean(UserRepository.class).save(
+                new User(null, "benchmark", "password", User.Role.USER, null));
+        userId = user.getId();
+        List<Booking> batch = new ArrayList<>();
+        for (int i = 0; i < bookings; i++) {
+            batch.add(new Booking(null, user, (long) (i % 50 + 1), LocalDate.now().plusDays(i + 1),
+                    LocalDate.now().plusDays(i + 2), Booking.Status.CONFIRMED, LocalDateTime.now(),
+                    UUID.randomUUID().toString()));
+        }
+        context.getBean(BookingRepository.class).saveAll(batch);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BookingDto> allEntities() {
+        return readOnlyTransaction.execute(status -> toDtos(
+                entityManager.createQuery(USER_BOOKINGS, Booking.class)
+                        .setParameter("userId", userId)
+                        .getResultList()));
+    }
+
+    @Benchmark
+    public List<BookingDto> allProjection() {
+        return bookingService.getUserBookings(userId);
+    }
+
+    @Benchmark
+    public List<BookingDto> pageEntities() {
+        return readOnlyTransaction.execute(status -> toDtos(
+                entityManager.createQuery(USER_BOOKINGS + " AND b.id > :afterId ORDER BY b.id ASC", Booking.class)
+                        .setParameter("userId", userId)
+                        .setParameter("afterId", 0L)
+                        .setMaxResults(PAGE_SIZE)
+                        .getResultList()));
+    }
+
+    @Benchmark
+    public List<BookingDto> pageProjection() {
+        return bookingService.getUserBookings(userId, 0, PAGE_SIZE);
+    }
+
+    private static List<BookingDto> toDtos(List<Booking> entities) {
+        List<BookingDto> dtos = new ArrayList<>(entities.size());
+        for (Booking booking : entities) {
+            dtos.add(new BookingDto(booking.getId(), booking.getUser().getId(), booking.getRoomId(), booking.getStartDate(),
+                    booking.getEndDate(), booking.getStatus(), booking.getCreatedAt()));
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,53 @@
+package ru.vspochernin.booking_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.vspochernin.booking_service.entity.User;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Выдача и проверка JWT: полная проверка подписи против попадания в кэш проверенных токенов
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(new SimpleMeterRegistry(), "benchmarkSecretKey123456789012345678901234567890", 3600L, 10_000);
+        user = new User(1L, "benchmark", "password", User.Role.USER, null);
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public JwtService.TokenClaims verifyToken() {
+        return jwtService.verify(token);
+    }
+
+    @Benchmark
+    public Optional<JwtService.TokenClaims> parseTokenCached() {
+        return jwtService.parseToken(token);
+    }
+}
@@ -0,0 +1,155 @@
+package ru.vspochernin.booking_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.vspochernin.booking_service.client.HotelServiceClient;
+import ru.vspochernin.booking_service.dto.AvailabilityRequest;
+import ru.vspochernin.booking_service.dto.RoomDto;
+import ru.vspochernin.booking_service.dto.RoomOperationRequest;
+import ru.vspochernin.booking_service.dto.RoomOperationResult;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+// Успешные бронирования в секунду при автовыборе номера под конкуренцией: 32 одновременных
+// бронирования на одни даты. Отель в памяти: кандидаты - свободные номера по возрастанию timesBooked,
+// подтверждение занимает номер, пока сага не дойдёт до инкремента, задержки - как у вызовов по сети.
+// confirmed - успешные бронирования в секунду, cancelled - отменённые, rejections - отказы подтверждения
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(32)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RoomSelectionBenchmark {
+
+    private static final int ROOMS = 50;
+    private static final long CANDIDATES_NANOS = TimeUnit.MICROSECONDS.toNanos(300);
+    private static final long CONFIRM_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long INCREMENT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Param({"first", "random", "reserved"})
+    private String strategy;
+
+    private InMemoryHotel hotel;
+    private RoomSelector roomSelector;
+    private AvailabilityRequest dates;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long confirmed;
+        public long cancelled;
+        public long rejections;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            confirmed = 0;
+            cancelled = 0;
+            rejections = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        hotel = new InMemoryHotel();
+        roomSelector = new RoomSelector(hotel, new SimpleMeterRegistry(), strategy, 10, 3);
+        dates = new AvailabilityRequest(LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+    }
+
+    // Подтверждение с переходом к следующему кандидату при отказе - как confirmRoom в BookingService
+    @Benchmark
+    public void book(Outcomes outcomes) {
+        RoomSelector.Selection selection;
+        try {
+            selection = roomSelector.select(dates);
+        } catch (IllegalArgumentException e) {
+            outcomes.cancelled++;
+            return;
+        }
+        while (true) {
+            Long roomId = selection.getRoomId();
+            String requestId = UUID.randomUUID().toString();
+            if (hotel.confirmAvailability(roomId, requestId, dates)) {
+                selection.finish();
+                hotel.incrementTimesBooked(roomId, requestId);
+                outcomes.confirmed++;
+                return;
+            }
+            outcomes.rejections++;
+            if (!selection.next()) {
+                selection.finish();
+                outcomes.cancelled++;
+                return;
+            }
+        }
+    }
+
+    // Номер занят с подтверждения до инкремента; затем освобождается, чтобы прогон не исчерпал номера
+    private static class InMemoryHotel implements HotelServiceClient {
+
+        private final Map<Long, String> holders = new ConcurrentHashMap<>();
+        private final AtomicIntegerArray timesBooked = new AtomicIntegerArray(ROOMS + 1);
+
+        @Override
+        public List<RoomDto> getBookingCandidates(String startDate, String endDate, int limit) {
+            LockSupport.parkNanos(CANDIDATES_NANOS);
+            return IntStream.rangeClosed(1, ROOMS)
+                .filter(id -> !holders.containsKey((long) id))
+                .mapToObj(id -> new RoomDto((long) id, 1L, "room-" + id, true, timesBooked.get(id)))
+                .sorted(Comparator.comparing(RoomDto::getTimesBooked).thenComparing(RoomDto::getId))
+                .limit(limit)
+                .toList();
+        }
+
+        @Override
+        public Boolean confirmAvailability(Long roomId, String requestId, AvailabilityRequest dates) {
+            LockSupport.parkNanos(CONFIRM_NANOS);
+            return holders.putIfAbsent(roomId, requestId) == null;
+        }
+
+        @Override
+        public Boolean confirmAvailability(Long roomId, String requestId, int attempt, AvailabilityRequest dates) {
+            return confirmAvailability(roomId, requestId, dates);
+        }
+
+        @Override
+        public void incrementTimesBooked(Long roomId, String requestId) {
+            LockSupport.parkNanos(INCREMENT_NANOS);
+            timesBooked.incrementAndGet(roomId.intValue());
+            holders.remove(roomId, requestId);
+        }
+
+        @Override
+        public void releaseSlot(Long roomId, String requestId) {
+            holders.remove(roomId, requestId);
+        }
+
+        @Override
+        public List<RoomOperationResult> executeBatch(List<RoomOperationRequest> operations) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package ru.vspochernin.booking_service.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordingStream;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.vspochernin.booking_service.BookingServiceApplication;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Нагрузочный прогон POST /api/booking: поднимает booking-service в этом же процессе
+// с Feign-клиентом, направленным на заглушку hotel-service, и для каждого сценария
+// собирает гистограмму задержек, исходы саги и число повторов.
+//
+// Параметры (системные свойства): loadtest.scenarios, loadtest.thread-modes (platform,virtual),
+// loadtest.users, loadtest.requests-per-user, loadtest.rooms, loadtest.output-dir. Аргументы командной строки (--booking.saga.mode=async и т.п.)
+// передаются сервису как есть и перекрывают значения по умолчанию.
+public class BookingLoadTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private final String baseUrl;
+    private final HotelServiceStub stub;
+    private final MeterRegistry meterRegistry;
+    private final String threadMode;
+    private final LongAdder pinnedEvents;
+    private final int users;
+    private final int requestsPerUser;
+    private final int rooms;
+
+    BookingLoadTest(String baseUrl, HotelServiceStub stub, MeterRegistry meterRegistry,
+                    String threadMode, LongAdder pinnedEvents) {
+        this.baseUrl = baseUrl;
+        this.stub = stub;
+        this.meterRegistry = meterRegistry;
+        this.threadMode = threadMode;
+        this.pinnedEvents = pinnedEvents;
+        this.users = Integer.getInteger("loadtest.users", 50);
+        this.requestsPerUser = Integer.getInteger("loadtest.requests-per-user", 20);
+        this.rooms = Integer.getInteger("loadtest.rooms", 100);
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Scenario> scenarios = Scenario.parse(System.getProperty("loadtest.scenarios", "baseline,slow,flaky,timeouts"));
+        List<String> threadModes = parseThreadModes(System.getProperty("loadtest.thread-modes", "platform"));
+
+        // Блокировки виртуальных потоков внутри synchronized считаются за весь прогон
+        LongAdder pinnedEvents = new LongAdder();
+        try (RecordingStream pinning = new RecordingStream();
+             HotelServiceStub stub = new HotelServiceStub()) {
+            pinning.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(1));
+            pinning.onEvent("jdk.VirtualThreadPinned", event -> pinnedEvents.increment());
+            pinning.startAsync();
+
+            List<ScenarioResult> results = new ArrayList<>();
+            for (String threadMode : threadModes) {
+                try (ConfigurableApplicationContext context = startBookingService(stub.port(), threadMode, args)) {
+                    int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                    BookingLoadTest loadTest = new BookingLoadTest("http://localhost:" + port, stub,
+                            context.getBean(MeterRegistry.class), threadMode, pinnedEvents);
+
+                    List<String> tokens = loadTest.registerUsers();
+                    for (Scenario scenario : scenarios) {
+                        results.add(loadTest.run(scenario, tokens));
+                    }
+                }
+            }
+            writeSummary(results);
+        }
+        System.exit(0);
+    }
+
+    private static List<String> parseThreadModes(String modes) {
+        List<String> result = new ArrayList<>();
+        for (String mode : modes.split(",")) {
+            String trimmed = mode.trim();
+            if (!trimmed.equals("platform") && !trimmed.equals("virtual")) {
+                throw new IllegalArgumentException("Unknown thread mode: " + trimmed + " (expected platform or virtual)");
+            }
+            result.add(trimmed);
+        }
+        return result;
+    }
+
+    private static ConfigurableApplicationContext startBookingService(int stubPort, String threadMode, String[] args) {
+        // Системные свойства перекрывают application.yml, а аргументы командной строки - их
+        Map<String, String> overrides = new HashMap<>();
+        overrides.put("server.port", "0");
+        overrides.put("eureka.client.enabled", "false");
+        // Отдельная база на каждый режим, чтобы прогоны не влияли друг на друга
+        overrides.put("spring.datasource.url", "jdbc:h2:mem:loadtest-" + threadMode + ";DB_CLOSE_DELAY=-1");
+        overrides.put("spring.threads.virtual.enabled", String.valueOf(threadMode.equals("virtual")));
+        overrides.put("spring.cloud.openfeign.client.config.hotel-service.url", "http://localhost:" + stubPort);
+        overrides.put("spring.cloud.openfeign.client.config.hotel-service.read-timeout", "1000");
+        overrides.put("logging.level.root", "WARN");
+        // Отказы и повторы считаются в отчёте, построчные предупреждения только мешают его читать
+        overrides.put("logging.level.ru.vspochernin", "ERROR");
+        overrides.forEach(System::setProperty);
+        return new SpringApplicationBuilder(BookingServiceApplication.class).run(args);
+    }
+
+    private List<String> registerUsers() throws Exception {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            String body = OBJECT_MAPPER.writeValueAsString(Map.of(
+                    "username", "load-user-" + i + "-" + System.nanoTime(),
+                    "password", "load-password"));
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/user/register"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("User registration failed: " + response.statusCode() + " " + response.body());
+            }
+            tokens.add(OBJECT_MAPPER.readTree(response.body()).get("token").asText());
+        }
+        return tokens;
+    }
+
+    ScenarioResult run(Scenario scenario, List<String> tokens) throws Exception {
+        stub.setScenario(scenario);
+        System.out.printf("%nScenario %s (%s threads): %d users x %d requests%n",
+                scenario.name(), threadMode, users, requestsPerUser);
+
+        double retriesBefore = retryFailures();
+        double exhaustedBefore = counterSum("booking.retry.exhausted");
+        long stubRequestsBefore = stub.requests();
+        long stubErrorsBefore = stub.injectedErrors();
+        long stubTimeoutsBefore = stub.injectedTimeouts();
+        long pinnedBefore = pinnedEvents.sum();
+
+        Recorder recorder = new Recorder(TimeUnit.MINUTES.toMicros(5), 3);
+        Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+        long started = System.nanoTime();
+        // Закрытая модель нагрузки: каждый пользователь отправляет следующий запрос после ответа на предыдущий
+        try (ExecutorService userThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (String token : tokens) {
+                futures.add(userThreads.submit(() -> {
+                    for (int i = 0; i < requestsPerUser; i++) {
+                        outcomes.computeIfAbsent(book(token, recorder), key -> new LongAdder()).increment();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        Histogram histogram = recorder.getIntervalHistogram();
+        Map<String, Long> outcomeCounts = new HashMap<>();
+        outcomes.forEach((outcome, count) -> outcomeCounts.put(outcome, count.sum()));
+
+        ScenarioResult result = new ScenarioResult(scenario.name(), threadMode, histogram.getTotalCount(), elapsed, histogram,
+                outcomeCounts,
+                (long) (retryFailures() - retriesBefore),
+                (long) (counterSum("booking.retry.exhausted") - exhaustedBefore),
+                stub.requests() - stubRequestsBefore,
+                stub.injectedErrors() - stubErrorsBefore,
+                stub.injectedTimeouts() - stubTimeoutsBefore,
+                pinnedEvents.sum() - pinnedBefore);
+        result.print(System.out);
+        writeHistogram(scenario.name() + "-" + threadMode, histogram);
+        return result;
+    }
+
+    private String book(String token, Recorder recorder) {
+        LocalDate start = LocalDate.now().plusDays(ThreadLocalRandom.current().nextInt(1, 365));
+        Map<String, Object> request = Map.of(
+                "roomId", ThreadLocalRandom.current().nextLong(1, rooms + 1),
+                "startDate", start.toString(),
+                "endDate", start.plusDays(ThreadLocalRandom.current().nextInt(1, 8)).toString());
+
+        long requestStarted = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/booking"))
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofMinutes(2))
+                    .POST(HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(request)))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requestStarted));
+
+            if (response.statusCode() / 100 != 2) {
+                return "HTTP_" + response.statusCode();
+            }
+            JsonNode booking = OBJECT_MAPPER.readTree(response.body());
+            return booking.path("status").asText("UNKNOWN");
+        } catch (Exception e) {
+            recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requestStarted));
+            return "CLIENT_" + e.getClass().getSimpleName();
+        }
+    }
+
+    private double retryFailures() {
+        return meterRegistry.find("booking.retry.attempts").tag("outcome", "failure").counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private double counterSum(String name) {
+        return meterRegistry.find(name).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private static Path outputDir() throws IOException {
+        return Files.createDirectories(Path.of(System.getProperty("loadtest.output-dir", "target/loadtest")));
+    }
+
+    private void writeHistogram(String name, Histogram histogram) throws IOException {
+        Path file = outputDir().resolve(name + ".hgrm");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            // Значения в микросекундах, выводим в миллисекундах
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static void writeSummary(List<ScenarioResult> results) throws IOException {
+        Path file = outputDir().resolve("summary.json");
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(file.toFile(),
+                results.stream().map(ScenarioResult::toMap).toList());
+        System.out.printf("%nSummary written to %s%n", file.toAbsolutePath());
+    }
+
+    record ScenarioResult(String scenario,
+                          String threadMode,
+                          long requests,
+                          Duration elapsed,
+                          Histogram latency,
+                          Map<String, Long> outcomes,
+                          long retries,
+                          long retriesExhausted,
+                          long hotelCalls,
+                          long injectedErrors,
+                          long injectedTimeouts,
+                          long pinnedEvents) {
+
+        double throughput() {
+            return requests / Math.max(elapsed.toNanos() / 1e9, 1e-9);
+        }
+
+        double percentileMillis(double percentile) {
+            return latency.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        void print(PrintStream out) {
+            out.printf("  throughput: %.1f req/s over %.1f s%n", throughput(), elapsed.toMillis() / 1000.0);
+            out.printf("  latency ms: p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                    percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(99.9),
+                    latency.getMaxValue() / 1000.0);
+            out.printf("  outcomes: %s%n", outcomes);
+            out.printf("  retries: %d (exhausted %d), hotel calls: %d, injected errors: %d, injected timeouts: %d%n",
+                    retries, retriesExhausted, hotelCalls, injectedErrors, injectedTimeouts);
+            out.printf("  virtual thread pinning events: %d%n", pinnedEvents);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("scenario", scenario);
+            map.put("threadMode", threadMode);
+            map.put("requests", requests);
+            map.put("elapsedMs", elapsed.toMillis());
+            map.put("throughputPerSecond", throughput());
+            map.put("latencyMs", Map.of(
+                    "p50", percentileMillis(50),
+                    "p90", percentileMillis(90),
+                    "p99", percentileMillis(99),
+                    "p999", percentileMillis(99.9),
+                    "max", latency.getMaxValue() / 1000.0));
+            map.put("outcomes", outcomes);
+            map.put("retries", retries);
+            map.put("retriesExhausted", retriesExhausted);
+            map.put("hotelCalls", hotelCalls);
+            map.put("injectedErrors", injectedErrors);
+            map.put("injectedTimeouts", injectedTimeouts);
+            map.put("pinnedEvents", pinnedEvents);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package ru.vspochernin.booking_service.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Заглушка hotel-service в том же процессе: отвечает на внутренние эндпоинты номеров
+// и по текущему сценарию добавляет задержку, ошибки 503, зависания и отказы в доступности
+class HotelServiceStub implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private volatile Scenario scenario = Scenario.BASELINE;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong injectedTimeouts = new AtomicLong();
+
+    HotelServiceStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/rooms/", this::handle);
+        server.start();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    void setScenario(Scenario scenario) {
+        this.scenario = scenario;
+    }
+
+    long requests() {
+        return requests.get();
+    }
+
+    long injectedErrors() {
+        return injectedErrors.get();
+    }
+
+    long injectedTimeouts() {
+        return injectedTimeouts.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            Scenario current = scenario;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            if (random.nextDouble() < current.timeoutRate()) {
+                // Отвечаем позже таймаута чтения Feign-клиента
+                injectedTimeouts.incrementAndGet();
+                sleep(current.hangMillis());
+            } else {
+                sleep(current.latencyMillis() + (current.jitterMillis() > 0 ? random.nextLong(current.jitterMillis() + 1) : 0));
+            }
+
+            if (random.nextDouble() < current.errorRate()) {
+                injectedErrors.incrementAndGet();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            if (path.endsWith("/batch")) {
+                respond(exchange, batchResults(exchange, current));
+            } else if (path.endsWith("/confirm-availability")) {
+                respond(exchange, String.valueOf(random.nextDouble() >= current.rejectRate()));
+            } else {
+                exchange.sendResponseHeaders(200, -1);
+            }
+        }
+    }
+
+    private String batchResults(HttpExchange exchange, Scenario current) throws IOException {
+        JsonNode operations = objectMapper.readTree(exchange.getRequestBody());
+        ArrayNode results = objectMapper.createArrayNode();
+        for (JsonNode operation : operations) {
+            boolean success = !"CONFIRM".equals(operation.path("type").asText())
+                    || ThreadLocalRandom.current().nextDouble() >= current.rejectRate();
+            ObjectNode result = results.addObject();
+            result.set("type", operation.get("type"));
+            result.set("roomId", operation.get("roomId"));
+            result.set("requestId", operation.get("requestId"));
+            result.put("success", success);
+            result.putNull("error");
+        }
+        return objectMapper.writeValueAsString(results);
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
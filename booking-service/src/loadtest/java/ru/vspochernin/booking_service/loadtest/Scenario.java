@@ -0,0 +1,41 @@
+package ru.vspochernin.booking_service.loadtest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Поведение заглушки hotel-service в рамках одного прогона нагрузки
+record Scenario(String name,
+                long latencyMillis,
+                long jitterMillis,
+                double errorRate,
+                double timeoutRate,
+                long hangMillis,
+                double rejectRate) {
+
+    static final Scenario BASELINE = new Scenario("baseline", 5, 5, 0, 0, 0, 0);
+
+    private static final Map<String, Scenario> PREDEFINED = Arrays.stream(new Scenario[]{
+            BASELINE,
+            new Scenario("slow", 200, 100, 0, 0, 0, 0),
+            new Scenario("flaky", 5, 5, 0.2, 0, 0, 0),
+            new Scenario("timeouts", 5, 5, 0, 0.05, 3000, 0),
+            new Scenario("contended", 5, 5, 0, 0, 0, 0.5)
+    }).collect(Collectors.toMap(Scenario::name, Function.identity()));
+
+    static List<Scenario> parse(String names) {
+        return Arrays.stream(names.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .map(name -> {
+                    Scenario scenario = PREDEFINED.get(name);
+                    if (scenario == null) {
+                        throw new IllegalArgumentException("Unknown scenario: " + name + ", known: " + PREDEFINED.keySet());
+                    }
+                    return scenario;
+                })
+                .toList();
+    }
+}
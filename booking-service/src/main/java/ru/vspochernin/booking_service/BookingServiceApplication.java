@@ -3,11 +3,11 @@ package ru.vspochernin.booking_service;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
-import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableFeignClients
-@EnableRetry
+@EnableScheduling
 public class BookingServiceApplication {
 
 	public static void main(String[] args) {
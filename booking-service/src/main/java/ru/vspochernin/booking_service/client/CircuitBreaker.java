@@ -0,0 +1,149 @@
+package ru.vspochernin.booking_service.client;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Предохранитель одного эндпоинта hotel-service.
+// CLOSED: вызовы проходят, исходы последних windowSize вызовов хранятся в кольцевом буфере;
+// при доле ошибок не ниже порога (и не менее minimumCalls вызовов в окне) - переход в OPEN.
+// OPEN: вызовы отклоняются сразу, через openDuration - переход в HALF_OPEN.
+// HALF_OPEN: пропускается halfOpenCalls пробных вызовов; все успешны - CLOSED, любая ошибка - снова OPEN
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    interface TransitionListener {
+        void onTransition(State from, State to);
+    }
+
+    // Разрешение не выдано - вызов нужно отклонить
+    static final long REJECTED = -1;
+
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoClock;
+    private final TransitionListener listener;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean[] failures;
+    private volatile State state = State.CLOSED;
+    // Меняется при каждом переходе: исходы вызовов, начатых в прошлом состоянии, не учитываются
+    private long generation;
+    private int recorded;
+    private int position;
+    private int failed;
+    private long openedAt;
+    private int probesIssued;
+    private int probesSucceeded;
+
+    CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openNanos, int halfOpenCalls,
+                   LongSupplier nanoClock, TransitionListener listener) {
+        if (windowSize <= 0 || halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("Circuit breaker window and half-open calls must be positive");
+        }
+        this.failures = new boolean[windowSize];
+        this.minimumCalls = Math.min(Math.max(minimumCalls, 1), windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openNanos;
+        this.halfOpenCalls = halfOpenCalls;
+        this.nanoClock = nanoClock;
+        this.listener = listener;
+    }
+
+    State state() {
+        return state;
+    }
+
+    // Возвращает поколение, в котором выдано разрешение, или REJECTED
+    long tryAcquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (nanoClock.getAsLong() - openedAt < openNanos) {
+                    return REJECTED;
+                }
+                transition(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesIssued >= halfOpenCalls) {
+                    return REJECTED;
+                }
+                probesIssued++;
+            }
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Разрешение выдано, но вызов не состоялся (отклонён bulkhead) - пробный слот возвращается
+    void release(long permit) {
+        lock.lock();
+        try {
+            if (permit == generation && state == State.HALF_OPEN) {
+                probesIssued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onResult(long permit, boolean failure) {
+        lock.lock();
+        try {
+            if (permit != generation) {
+                return;
+            }
+            if (state == State.HALF_OPEN) {
+                if (failure) {
+                    transition(State.OPEN);
+                } else if (++probesSucceeded >= halfOpenCalls) {
+                    transition(State.CLOSED);
+                }
+                return;
+            }
+            if (state == State.CLOSED) {
+                record(failure);
+                if (recorded >= minimumCalls && failed >= failureRateThreshold * recorded) {
+                    transition(State.OPEN);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean failure) {
+        if (recorded == failures.length) {
+            if (failures[position]) {
+                failed--;
+            }
+        } else {
+            recorded++;
+        }
+        failures[position] = failure;
+        if (failure) {
+            failed++;
+        }
+        position = (position + 1) % failures.length;
+    }
+
+    private void transition(State to) {
+        State from = state;
+        state = to;
+        generation++;
+        recorded = 0;
+        position = 0;
+        failed = 0;
+        probesIssued = 0;
+        probesSucceeded = 0;
+        if (to == State.OPEN) {
+            openedAt = nanoClock.getAsLong();
+        }
+        listener.onTransition(from, to);
+    }
+}
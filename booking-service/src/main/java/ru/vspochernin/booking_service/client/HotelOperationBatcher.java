@@ -0,0 +1,187 @@
+package ru.vspochernin.booking_service.client;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.vspochernin.booking_service.config.ExecutorThreads;
+import ru.vspochernin.booking_service.config.LogContext;
+import ru.vspochernin.booking_service.dto.AvailabilityRequest;
+import ru.vspochernin.booking_service.dto.RoomOperationRequest;
+import ru.vspochernin.booking_service.dto.RoomOperationResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+// Объединяет одновременные операции над номерами из разных бронирований
+// в один вызов /api/rooms/batch в пределах короткого временного окна.
+@Component
+@Slf4j
+public class HotelOperationBatcher {
+
+    private final HotelServiceClient hotelServiceClient;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final long timeoutMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private List<PendingOperation> pending = new ArrayList<>();
+    private long generation;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService dispatcher;
+
+    public HotelOperationBatcher(HotelServiceClient hotelServiceClient,
+                                 @Value("${booking.batching.enabled:false}") boolean enabled,
+                                 @Value("${booking.batching.window-ms:5}") long windowMillis,
+                                 @Value("${booking.batching.max-size:50}") int maxBatchSize,
+                                 @Value("${booking.batching.max-in-flight:4}") int maxInFlight,
+                                 @Value("${booking.batching.timeout-ms:15000}") long timeoutMillis,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.hotelServiceClient = hotelServiceClient;
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMillis = timeoutMillis;
+        this.scheduler = enabled ? Executors.newSingleThreadScheduledExecutor() : null;
+        this.dispatcher = enabled ? Executors.newFixedThreadPool(maxInFlight,
+                ExecutorThreads.factory(virtualThreads, "hotel-batch-")) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CompletableFuture<Boolean> confirmAvailability(Long roomId, String requestId, AvailabilityRequest dates) {
+        return execute(new RoomOperationRequest(RoomOperationRequest.Type.CONFIRM, roomId, requestId,
+                dates.getStartDate(), dates.getEndDate()));
+    }
+
+    public CompletableFuture<Void> incrementTimesBooked(Long roomId, String requestId) {
+        return execute(new RoomOperationRequest(RoomOperationRequest.Type.INCREMENT, roomId, requestId, null, null))
+                .thenApply(success -> null);
+    }
+
+    public CompletableFuture<Void> releaseSlot(Long roomId, String requestId) {
+        return execute(new RoomOperationRequest(RoomOperationRequest.Type.RELEASE, roomId, requestId, null, null))
+                .thenApply(success -> null);
+    }
+
+    // Вызывающий поток не ждёт окна пакета: результат приходит в future
+    private CompletableFuture<Boolean> execute(RoomOperationRequest operation) {
+        return submit(operation)
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .handle((result, error) -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+                    if (cause instanceof TimeoutException) {
+                        throw new RuntimeException("Batched " + operation.getType() + " timed out for requestId: "
+                                + operation.getRequestId(), cause);
+                    }
+                    if (cause != null) {
+                        throw cause instanceof RuntimeException runtimeException
+                                ? runtimeException
+                                : new RuntimeException(cause);
+                    }
+                    if (result.getError() != null) {
+                        throw new RuntimeException(result.getError());
+                    }
+                    return result.isSuccess();
+                });
+    }
+
+    CompletableFuture<RoomOperationResult> submit(RoomOperationRequest operation) {
+        PendingOperation pendingOperation = new PendingOperation(operation, new CompletableFuture<>());
+        List<PendingOperation> ready = null;
+
+        lock.lock();
+        try {
+            pending.add(pendingOperation);
+            if (pending.size() >= maxBatchSize) {
+                ready = takePending();
+            } else if (pending.size() == 1) {
+                // Первая операция окна запускает таймер отправки
+                long windowGeneration = generation;
+                scheduler.schedule(() -> flushWindow(windowGeneration), windowMillis, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (ready != null) {
+            dispatch(ready);
+        }
+        return pendingOperation.future();
+    }
+
+    private void flushWindow(long windowGeneration) {
+        List<PendingOperation> ready;
+        lock.lock();
+        try {
+            // Окно уже отправлено досрочно по размеру пакета
+            if (windowGeneration != generation || pending.isEmpty()) {
+                return;
+            }
+            ready = takePending();
+        } finally {
+            lock.unlock();
+        }
+        dispatch(ready);
+    }
+
+    private List<PendingOperation> takePending() {
+        List<PendingOperation> ready = pending;
+        pending = new ArrayList<>();
+        generation++;
+        return ready;
+    }
+
+    // В пакете операции разных саг: rid строк лога потока отправки - их requestId через запятую
+    private void dispatch(List<PendingOperation> batch) {
+        dispatcher.execute(() -> {
+            List<RoomOperationRequest> operations = batch.stream()
+                    .map(PendingOperation::operation)
+                    .toList();
+            String previousRequestId = LogContext.replace(operations.stream()
+                    .map(RoomOperationRequest::getRequestId)
+                    .collect(Collectors.joining(",")));
+            try {
+                List<RoomOperationResult> results = hotelServiceClient.executeBatch(operations);
+                if (results == null || results.size() != batch.size()) {
+                    throw new IllegalStateException("Batch response size mismatch: expected " + batch.size());
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).future().complete(results.get(i));
+                }
+                log.debug("Batch of {} room operations sent to hotel-service", batch.size());
+            } catch (Exception e) {
+                log.warn("Batch of {} room operations failed: {}", batch.size(), e.getMessage());
+                batch.forEach(operation -> operation.future().completeExceptionally(e));
+            } finally {
+                LogContext.restore(previousRequestId);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (enabled) {
+            scheduler.shutdown();
+            dispatcher.shutdown();
+        }
+    }
+
+    private record PendingOperation(RoomOperationRequest operation, CompletableFuture<RoomOperationResult> future) {
+    }
+}
@@ -0,0 +1,239 @@
+package ru.vspochernin.booking_service.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.stereotype.Component;
+import ru.vspochernin.booking_service.config.ExecutorThreads;
+import ru.vspochernin.booking_service.config.LogContext;
+import ru.vspochernin.booking_service.dto.AvailabilityRequest;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Хеджирование confirm-availability: если первая попытка не ответила за наблюдаемый p95,
+// вторая попытка с тем же X-Request-Id уходит на другой экземпляр hotel-service, побеждает первый успешный ответ.
+// Повтор безопасен: hotel-service возвращает исходный результат по X-Request-Id (IdempotencyService).
+// Доля хеджей ограничена бюджетом так же, как повторы в AsyncRetryExecutor
+@Component
+@Slf4j
+public class HotelRequestHedger {
+
+    private static final String SERVICE_ID = "hotel-service";
+    // Бюджет хранится в тысячных долях хеджа
+    private static final long UNIT = 1000;
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final HotelServiceClient hotelServiceClient;
+    private final DiscoveryClient discoveryClient;
+    private final boolean enabled;
+    private final long minSamples;
+    private final long minDelayNanos;
+    private final long budgetCapacity;
+    private final long budgetDeposit;
+
+    private final AtomicLong budget;
+    private final ExecutorService attempts;
+    private final Timer latency;
+    private final Counter primaryRequests;
+    private final Counter hedgeRequests;
+    private final MeterRegistry meterRegistry;
+
+    // Задержка хеджа пересчитывается из гистограммы не чаще раза в секунду; 0 - статистики ещё мало
+    private volatile long hedgeDelayNanos;
+    private volatile long delayRefreshedAt;
+
+    public HotelRequestHedger(HotelServiceClient hotelServiceClient,
+                              DiscoveryClient discoveryClient,
+                              MeterRegistry meterRegistry,
+                              @Value("${booking.hedging.enabled:false}") boolean enabled,
+                              @Value("${booking.hedging.percentile:0.95}") double percentile,
+                              @Value("${booking.hedging.min-delay:5ms}") Duration minDelay,
+                              @Value("${booking.hedging.min-samples:100}") long minSamples,
+                              @Value("${booking.hedging.max-ratio:0.05}") double maxRatio,
+                              @Value("${booking.hedging.budget-capacity:10}") int budgetCapacity,
+                              @Value("${booking.hedging.threads:32}") int threads,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.hotelServiceClient = hotelServiceClient;
+        this.discoveryClient = discoveryClient;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.minSamples = minSamples;
+        this.minDelayNanos = minDelay.toNanos();
+        this.budgetCapacity = budgetCapacity * UNIT;
+        this.budgetDeposit = Math.round(maxRatio * UNIT);
+        this.budget = new AtomicLong(this.budgetCapacity);
+        this.attempts = enabled ? ExecutorThreads.workers(virtualThreads, "hotel-hedge-", threads) : null;
+
+        // Перцентиль считается в самом сервисе по скользящему окну, а не в Prometheus
+        this.latency = Timer.builder("booking.hotel.confirm.latency")
+                .description("Latency of single confirm-availability attempts, used to pick the hedge delay")
+                .publishPercentiles(percentile)
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry);
+        this.primaryRequests = hedgeCounter("primary");
+        this.hedgeRequests = hedgeCounter("hedge");
+        Gauge.builder("booking.hotel.hedge.delay", () -> (double) hedgeDelayNanos / TimeUnit.SECONDS.toNanos(1))
+                .description("Current delay before a hedged confirm-availability attempt, seconds")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean confirmAvailability(Long roomId, String requestId, AvailabilityRequest dates) {
+        budget.updateAndGet(value -> Math.min(budgetCapacity, value + budgetDeposit));
+        primaryRequests.increment();
+        CompletableFuture<Boolean> primary = attempt(roomId, requestId, 1, dates);
+
+        long delay = hedgeDelay();
+        if (delay == 0) {
+            return await(primary);
+        }
+        try {
+            Boolean result = primary.get(delay, TimeUnit.NANOSECONDS);
+            win("primary");
+            return result;
+        } catch (ExecutionException e) {
+            // Быстрая ошибка (в том числе отказ предохранителя) не хеджируется
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while confirming availability for requestId: " + requestId, e);
+        } catch (TimeoutException e) {
+            if (!canHedge()) {
+                boolean result = await(primary);
+                win("primary");
+                return result;
+            }
+        }
+
+        hedgeRequests.increment();
+        log.debug("Confirm for requestId {} exceeded {} ms - sending hedged attempt", requestId,
+                TimeUnit.NANOSECONDS.toMillis(delay));
+        CompletableFuture<Boolean> hedge = attempt(roomId, requestId, 2, dates);
+        return await(firstSuccessful(primary, hedge));
+    }
+
+    private CompletableFuture<Boolean> attempt(Long roomId, String requestId, int attempt, AvailabilityRequest dates) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        attempts.execute(LogContext.wrap(() -> {
+            long started = System.nanoTime();
+            try {
+                Boolean confirmed = hotelServiceClient.confirmAvailability(roomId, requestId, attempt, dates);
+                latency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                result.complete(Boolean.TRUE.equals(confirmed));
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        }));
+        return result;
+    }
+
+    // Побеждает первый успешный ответ; ошибка - только если обе попытки завершились ошибкой
+    private CompletableFuture<Boolean> firstSuccessful(CompletableFuture<Boolean> primary, CompletableFuture<Boolean> hedge) {
+        CompletableFuture<Boolean> winner = new CompletableFuture<>();
+        AtomicBoolean won = new AtomicBoolean();
+        AtomicInteger failures = new AtomicInteger();
+        primary.whenComplete((value, error) -> settle(winner, won, failures, value, error, "primary"));
+        hedge.whenComplete((value, error) -> settle(winner, won, failures, value, error, "hedge"));
+        return winner;
+    }
+
+    private void settle(CompletableFuture<Boolean> winner, AtomicBoolean won, AtomicInteger failures,
+                        Boolean value, Throwable error, String attempt) {
+        if (error == null) {
+            // Победитель учитывается до завершения future, чтобы вызывающий поток уже видел метрику
+            if (won.compareAndSet(false, true)) {
+                win(attempt);
+                winner.complete(value);
+            }
+        } else if (failures.incrementAndGet() == 2) {
+            winner.completeExceptionally(error);
+        }
+    }
+
+    private boolean canHedge() {
+        // С одним экземпляром хедж ушёл бы на тот же перегруженный узел
+        if (discoveryClient.getInstances(SERVICE_ID).size() < 2) {
+            skip("single_instance");
+            return false;
+        }
+        while (true) {
+            long current = budget.get();
+            if (current < UNIT) {
+                skip("budget");
+                return false;
+            }
+            if (budget.compareAndSet(current, current - UNIT)) {
+                return true;
+            }
+        }
+    }
+
+    private long hedgeDelay() {
+        long now = System.nanoTime();
+        if (now - delayRefreshedAt < DELAY_REFRESH_NANOS) {
+            return hedgeDelayNanos;
+        }
+        delayRefreshedAt = now;
+        long delay = 0;
+        if (latency.count() >= minSamples) {
+            ValueAtPercentile[] percentiles = latency.takeSnapshot().percentileValues();
+            if (percentiles.length > 0) {
+                delay = Math.max(minDelayNanos, (long) percentiles[0].value(TimeUnit.NANOSECONDS));
+            }
+        }
+        hedgeDelayNanos = delay;
+        return delay;
+    }
+
+    private static boolean await(CompletableFuture<Boolean> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        return cause instanceof RuntimeException runtimeException ? runtimeException : new RuntimeException(cause);
+    }
+
+    private void win(String attempt) {
+        meterRegistry.counter("booking.hotel.hedge.wins", "attempt", attempt).increment();
+    }
+
+    private void skip(String reason) {
+        meterRegistry.counter("booking.hotel.hedge.skipped", "reason", reason).increment();
+    }
+
+    private Counter hedgeCounter(String type) {
+        return Counter.builder("booking.hotel.hedge.requests")
+                .description("Confirm-availability attempts by type; hedge / primary is the hedge rate")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (attempts != null) {
+            attempts.shutdown();
+        }
+    }
+}
@@ -1,15 +1,34 @@
 package ru.vspochernin.booking_service.client;
 
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import ru.vspochernin.booking_service.dto.AvailabilityRequest;
+import ru.vspochernin.booking_service.dto.RoomDto;
+import ru.vspochernin.booking_service.dto.RoomOperationRequest;
+import ru.vspochernin.booking_service.dto.RoomOperationResult;
+
+import java.util.List;
 
 @FeignClient(name = "hotel-service")
 public interface HotelServiceClient {
 
+    // Номер попытки хеджированного вызова: балансировщик отправляет попытки с одним X-Request-Id на разные экземпляры
+    String HEDGE_ATTEMPT_HEADER = "X-Hedge-Attempt";
+
     @PostMapping("/api/rooms/{id}/confirm-availability")
     Boolean confirmAvailability(@org.springframework.web.bind.annotation.PathVariable("id") Long roomId,
-                               @RequestHeader("X-Request-Id") String requestId);
+                               @RequestHeader("X-Request-Id") String requestId,
+                               @RequestBody AvailabilityRequest dates);
+
+    @PostMapping("/api/rooms/{id}/confirm-availability")
+    Boolean confirmAvailability(@org.springframework.web.bind.annotation.PathVariable("id") Long roomId,
+                               @RequestHeader("X-Request-Id") String requestId,
+                               @RequestHeader(HEDGE_ATTEMPT_HEADER) int attempt,
+                               @RequestBody AvailabilityRequest dates);
 
     @PostMapping("/api/rooms/{id}/release")
     void releaseSlot(@org.springframework.web.bind.annotation.PathVariable("id") Long roomId,
@@ -18,4 +37,13 @@ public interface HotelServiceClient {
     @PostMapping("/api/rooms/{id}/increment-bookings")
     void incrementTimesBooked(@org.springframework.web.bind.annotation.PathVariable("id") Long roomId,
                               @RequestHeader("X-Request-Id") String requestId);
+
+    // Даты передаются строками ISO-8601: форматирование LocalDate в query-параметре зависит от локали
+    @GetMapping("/api/rooms/candidates")
+    List<RoomDto> getBookingCandidates(@RequestParam("startDate") String startDate,
+                                       @RequestParam("endDate") String endDate,
+                                       @RequestParam("limit") int limit);
+
+    @PostMapping("/api/rooms/batch")
+    List<RoomOperationResult> executeBatch(@RequestBody List<RoomOperationRequest> operations);
 }
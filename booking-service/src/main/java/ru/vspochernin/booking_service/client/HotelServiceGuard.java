@@ -0,0 +1,164 @@
+package ru.vspochernin.booking_service.client;
+
+import feign.Capability;
+import feign.Client;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.vspochernin.booking_service.exception.HotelServiceUnavailableException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Предохранители (по одному на эндпоинт HotelServiceClient) и общий bulkhead вокруг вызовов hotel-service.
+// Подключается к Feign как Capability поверх клиента с балансировкой, поэтому защищает все пути вызова:
+// шаги саги, пакетную отправку и ретранслятор outbox. Отклонённый вызов не уходит в сеть и не занимает поток:
+// вместо ожидания read timeout сразу бросается HotelServiceUnavailableException
+@Component
+@Slf4j
+public class HotelServiceGuard implements Capability {
+
+    private final boolean circuitBreakerEnabled;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final Semaphore bulkhead;
+    private final long maxWaitNanos;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public HotelServiceGuard(MeterRegistry meterRegistry,
+                             @Value("${booking.hotel-client.circuit-breaker.enabled:true}") boolean circuitBreakerEnabled,
+                             @Value("${booking.hotel-client.circuit-breaker.sliding-window:20}") int windowSize,
+                             @Value("${booking.hotel-client.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                             @Value("${booking.hotel-client.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+                             @Value("${booking.hotel-client.circuit-breaker.open-duration:10s}") Duration openDuration,
+                             @Value("${booking.hotel-client.circuit-breaker.half-open-calls:3}") int halfOpenCalls,
+                             @Value("${booking.hotel-client.bulkhead.max-concurrent-calls:50}") int maxConcurrentCalls,
+                             @Value("${booking.hotel-client.bulkhead.max-wait:50ms}") Duration maxWait) {
+        this.meterRegistry = meterRegistry;
+        this.circuitBreakerEnabled = circuitBreakerEnabled;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        // max-concurrent-calls: 0 отключает bulkhead
+        this.bulkhead = maxConcurrentCalls > 0 ? new Semaphore(maxConcurrentCalls) : null;
+        this.maxWaitNanos = maxWait.toNanos();
+
+        if (bulkhead != null) {
+            Gauge.builder("booking.hotel.bulkhead.in-flight", bulkhead,
+                            semaphore -> maxConcurrentCalls - semaphore.availablePermits())
+                    .description("Calls to hotel-service currently in flight")
+                    .register(meterRegistry);
+            Gauge.builder("booking.hotel.bulkhead.limit", () -> maxConcurrentCalls)
+                    .description("Maximum concurrent calls to hotel-service")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> execute(endpoint(request), client, request, options);
+    }
+
+    private Response execute(String endpoint, Client client, Request request, Request.Options options) throws IOException {
+        CircuitBreaker breaker = circuitBreakerEnabled ? breaker(endpoint) : null;
+        long permit = breaker != null ? breaker.tryAcquire() : 0;
+        if (permit == CircuitBreaker.REJECTED) {
+            throw reject(endpoint, HotelServiceUnavailableException.CIRCUIT_OPEN);
+        }
+        if (!enterBulkhead()) {
+            if (breaker != null) {
+                breaker.release(permit);
+            }
+            throw reject(endpoint, HotelServiceUnavailableException.BULKHEAD_FULL);
+        }
+
+        boolean failure = true;
+        try {
+            Response response = client.execute(request, options);
+            // 4xx - ответ работающего сервиса, к отказу приводят только 5xx (в том числе 503 без экземпляров)
+            failure = response.status() >= 500;
+            return response;
+        } finally {
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+            if (breaker != null) {
+                breaker.onResult(permit, failure);
+            }
+        }
+    }
+
+    private boolean enterBulkhead() {
+        if (bulkhead == null) {
+            return true;
+        }
+        try {
+            return bulkhead.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private HotelServiceUnavailableException reject(String endpoint, String reason) {
+        meterRegistry.counter("booking.hotel.calls.rejected", "endpoint", endpoint, "reason", reason).increment();
+        log.debug("Call to hotel-service {} rejected: {}", endpoint, reason);
+        return new HotelServiceUnavailableException(endpoint, reason);
+    }
+
+    private CircuitBreaker breaker(String endpoint) {
+        CircuitBreaker existing = breakers.get(endpoint);
+        return existing != null ? existing : breakers.computeIfAbsent(endpoint, this::createBreaker);
+    }
+
+    private CircuitBreaker createBreaker(String endpoint) {
+        CircuitBreaker breaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold, openNanos,
+                halfOpenCalls, System::nanoTime, (from, to) -> onTransition(endpoint, from, to));
+        // 0 - CLOSED, 1 - OPEN, 2 - HALF_OPEN
+        Gauge.builder("booking.hotel.circuit.state", breaker, value -> value.state().ordinal())
+                .description("Circuit breaker state of a hotel-service endpoint: 0 closed, 1 open, 2 half-open")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        return breaker;
+    }
+
+    private void onTransition(String endpoint, CircuitBreaker.State from, CircuitBreaker.State to) {
+        Counter.builder("booking.hotel.circuit.transitions")
+                .description("Circuit breaker state transitions of hotel-service endpoints")
+                .tags("endpoint", endpoint, "from", name(from), "to", name(to))
+                .register(meterRegistry)
+                .increment();
+        if (to == CircuitBreaker.State.OPEN) {
+            log.warn("Circuit breaker for hotel-service {} opened after {} - failing fast", endpoint, name(from));
+        } else {
+            log.info("Circuit breaker for hotel-service {} moved from {} to {}", endpoint, name(from), name(to));
+        }
+    }
+
+    // Эндпоинт - имя метода HotelServiceClient (confirmAvailability, executeBatch, ...)
+    private static String endpoint(Request request) {
+        RequestTemplate template = request.requestTemplate();
+        MethodMetadata metadata = template != null ? template.methodMetadata() : null;
+        return metadata != null && metadata.method() != null ? metadata.method().getName() : "unknown";
+    }
+
+    private static String name(CircuitBreaker.State state) {
+        return state.name().toLowerCase();
+    }
+}
@@ -0,0 +1,29 @@
+package ru.vspochernin.booking_service.config;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// Потоки собственных пулов сервиса. При spring.threads.virtual.enabled=true
+// блокирующие задачи (вызовы hotel-service, ожидание пакета) выполняются в виртуальных потоках
+public final class ExecutorThreads {
+
+    private ExecutorThreads() {
+    }
+
+    public static ThreadFactory factory(boolean virtualThreads, String prefix) {
+        return virtualThreads
+                ? Thread.ofVirtual().name(prefix, 1).factory()
+                : new CustomizableThreadFactory(prefix);
+    }
+
+    // Пул для задач без собственного ограничения параллелизма: виртуальный поток на задачу
+    // вместо фиксированного числа платформенных потоков
+    public static ExecutorService workers(boolean virtualThreads, String prefix, int platformThreads) {
+        return virtualThreads
+                ? Executors.newThreadPerTaskExecutor(factory(true, prefix))
+                : Executors.newFixedThreadPool(platformThreads, factory(false, prefix));
+    }
+}
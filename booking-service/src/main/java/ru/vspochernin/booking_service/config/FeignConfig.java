@@ -1,6 +1,9 @@
 package ru.vspochernin.booking_service.config;
 
 import feign.Request;
+import feign.micrometer.DefaultFeignObservationConvention;
+import feign.micrometer.MicrometerObservationCapability;
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -17,4 +20,16 @@ public class FeignConfig {
                 true // follow redirects
         );
     }
+
+    // Задержка вызовов hotel-service по шаблону эндпоинта (тег http.url). Отдельное имя метрики:
+    // у http.client.requests из RestTemplate другой набор тегов, и Prometheus отбросил бы метрики Feign
+    @Bean
+    public MicrometerObservationCapability micrometerObservationCapability(ObservationRegistry observationRegistry) {
+        return new MicrometerObservationCapability(observationRegistry, new DefaultFeignObservationConvention() {
+            @Override
+            public String getName() {
+                return "feign.client.requests";
+            }
+        });
+    }
 }
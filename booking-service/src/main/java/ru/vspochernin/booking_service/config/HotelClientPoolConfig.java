@@ -0,0 +1,64 @@
+package ru.vspochernin.booking_service.config;
+
+import feign.hc5.ApacheHttp5Client;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.openfeign.clientconfig.HttpClient5FeignConfiguration;
+import org.springframework.cloud.openfeign.support.FeignHttpClientProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Пул соединений Feign-клиента hotel-service (режим spring.cloud.openfeign.httpclient.hc5.enabled).
+// Размеры пула, TTL и таймаут ожидания соединения задаются штатными свойствами spring.cloud.openfeign.httpclient.*,
+// здесь к пулу добавляются метрики и ограничение keep-alive
+@Configuration
+@ConditionalOnClass(ApacheHttp5Client.class)
+@ConditionalOnProperty(value = "spring.cloud.openfeign.httpclient.hc5.enabled", matchIfMissing = true)
+public class HotelClientPoolConfig {
+
+    static final String CLIENT_NAME = "hotel-service";
+
+    // Заменяет пул из автоконфигурации OpenFeign с теми же настройками
+    @Bean
+    public HttpClientConnectionManager hotelClientConnectionManager(FeignHttpClientProperties properties,
+                                                                    MeterRegistry meterRegistry) {
+        FeignHttpClientProperties.Hc5Properties hc5 = properties.getHc5();
+        MeteredConnectionManager connectionManager = new MeteredConnectionManager(
+                PoolConcurrencyPolicy.valueOf(hc5.getPoolConcurrencyPolicy().name()),
+                PoolReusePolicy.valueOf(hc5.getPoolReusePolicy().name()),
+                TimeValue.of(properties.getTimeToLive(), properties.getTimeToLiveUnit()),
+                meterRegistry,
+                CLIENT_NAME);
+        connectionManager.setMaxTotal(properties.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxConnectionsPerRoute());
+        connectionManager.setDefaultSocketConfig(SocketConfig.custom()
+                .setSoTimeout(Timeout.of(hc5.getSocketTimeout(), hc5.getSocketTimeoutUnit()))
+                .build());
+
+        // httpcomponents.httpclient.pool.*: занятые и свободные соединения, очередь ожидающих, лимиты
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, CLIENT_NAME).bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    // Tomcat закрывает простаивающее соединение сам и не присылает заголовок Keep-Alive. Держим соединение
+    // в пуле меньше серверного таймаута, чтобы не отправить POST в уже закрытый сокет
+    @Bean
+    public HttpClient5FeignConfiguration.HttpClientBuilderCustomizer hotelClientKeepAlive(
+            @Value("${booking.hotel-client.keep-alive:15s}") Duration keepAlive) {
+        TimeValue maxKeepAlive = TimeValue.ofMilliseconds(keepAlive.toMillis());
+        return builder -> builder.setKeepAliveStrategy((response, context) ->
+                DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context).min(maxKeepAlive));
+    }
+}
@@ -0,0 +1,64 @@
+package ru.vspochernin.booking_service.config;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+
+// Ключи MDC, по которым связываются строки лога одной саги: requestId совпадает
+// с заголовком X-Request-Id в вызовах hotel-service, bookingId - id бронирования
+public final class LogContext {
+
+    public static final String REQUEST_ID = "requestId";
+    public static final String BOOKING_ID = "bookingId";
+
+    private LogContext() {
+    }
+
+    public static void put(String requestId, Long bookingId) {
+        MDC.put(REQUEST_ID, requestId);
+        if (bookingId != null) {
+            MDC.put(BOOKING_ID, bookingId.toString());
+        }
+    }
+
+    public static void clear() {
+        MDC.remove(REQUEST_ID);
+        MDC.remove(BOOKING_ID);
+    }
+
+    // Подменяет requestId на время вложенной операции; прежнее значение возвращается через restore
+    public static String replace(String requestId) {
+        String previous = MDC.get(REQUEST_ID);
+        MDC.put(REQUEST_ID, requestId);
+        return previous;
+    }
+
+    public static void restore(String previous) {
+        if (previous == null) {
+            MDC.remove(REQUEST_ID);
+        } else {
+            MDC.put(REQUEST_ID, previous);
+        }
+    }
+
+    // MDC привязан к потоку: задача в пуле воркеров получает контекст потока, который её поставил
+    public static Runnable wrap(Runnable task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        if (context == null) {
+            return task;
+        }
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            MDC.setContextMap(context);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    MDC.clear();
+                } else {
+                    MDC.setContextMap(previous);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package ru.vspochernin.booking_service.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.io.DefaultHttpClientConnectionOperator;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
+import org.apache.hc.client5.http.ssl.TlsSocketStrategy;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Пул соединений Apache HttpClient 5, который замеряет ожидание свободного соединения:
+// рост feign.client.pool.wait при заполненном пуле означает, что max-connections-per-route мал для нагрузки
+class MeteredConnectionManager extends PoolingHttpClientConnectionManager {
+
+    static final String WAIT_METRIC = "feign.client.pool.wait";
+
+    private final Timer acquired;
+    private final Timer timedOut;
+    private final Timer failed;
+
+    MeteredConnectionManager(PoolConcurrencyPolicy concurrencyPolicy, PoolReusePolicy reusePolicy, TimeValue timeToLive,
+                             MeterRegistry meterRegistry, String clientName) {
+        super(new DefaultHttpClientConnectionOperator(
+                        DefaultSchemePortResolver.INSTANCE,
+                        SystemDefaultDnsResolver.INSTANCE,
+                        RegistryBuilder.<TlsSocketStrategy>create()
+                                .register(URIScheme.HTTPS.id, DefaultClientTlsStrategy.createSystemDefault())
+                                .build()),
+                concurrencyPolicy, reusePolicy, timeToLive, ManagedHttpClientConnectionFactory.INSTANCE);
+        this.acquired = waitTimer(meterRegistry, clientName, "acquired");
+        this.timedOut = waitTimer(meterRegistry, clientName, "timeout");
+        this.failed = waitTimer(meterRegistry, clientName, "error");
+    }
+
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        LeaseRequest request = super.lease(id, route, requestTimeout, state);
+        long startedAt = System.nanoTime();
+        return new LeaseRequest() {
+            @Override
+            public ConnectionEndpoint get(Timeout timeout) throws InterruptedException, ExecutionException, TimeoutException {
+                Timer timer = failed;
+                try {
+                    ConnectionEndpoint endpoint = request.get(timeout);
+                    timer = acquired;
+                    return endpoint;
+                } catch (TimeoutException e) {
+                    timer = timedOut;
+                    throw e;
+                } finally {
+                    timer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+
+    private static Timer waitTimer(MeterRegistry meterRegistry, String clientName, String outcome) {
+        return Timer.builder(WAIT_METRIC)
+                .description("Ожидание соединения из пула HTTP-клиента")
+                .tag("httpclient", clientName)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,72 @@
+package ru.vspochernin.booking_service.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Ограничивает частоту одинаковых сообщений (один шаблон в одном логгере) уровней INFO и WARN:
+// при недоступности hotel-service каждая сага пишет одни и те же предупреждения о повторах.
+// Сверх maxPerSecond сообщения отбрасываются, их число выводится с первым таким же сообщением следующей секунды.
+// ERROR проходит всегда
+public class RateLimitedLogFilter extends TurboFilter {
+
+    private static final int MAX_TRACKED_TEMPLATES = 1000;
+
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final LongSupplier nanoTime;
+    private int maxPerSecond = 20;
+
+    public RateLimitedLogFilter() {
+        this(System::nanoTime);
+    }
+
+    // Часы подменяются в тестах
+    RateLimitedLogFilter(LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // Вызывается и для проверок isDebugEnabled() без сообщения - их не трогаем
+        if (format == null || level == null || !level.isGreaterOrEqual(Level.INFO) || level.isGreaterOrEqual(Level.ERROR)
+                || maxPerSecond <= 0 || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+
+        if (windows.size() > MAX_TRACKED_TEMPLATES) {
+            windows.clear();
+        }
+        Window window = windows.computeIfAbsent(logger.getName() + '|' + format, key -> new Window());
+        long second = nanoTime.getAsLong() / 1_000_000_000L;
+        long previousSecond = window.second.get();
+        if (second != previousSecond && window.second.compareAndSet(previousSecond, second)) {
+            window.count.set(0);
+            long suppressed = window.suppressed.getAndSet(0);
+            if (suppressed > 0) {
+                logger.warn("Suppressed {} messages like: {}", suppressed, format);
+            }
+        }
+        if (window.count.incrementAndGet() <= maxPerSecond) {
+            return FilterReply.NEUTRAL;
+        }
+        window.suppressed.incrementAndGet();
+        return FilterReply.DENY;
+    }
+
+    private static final class Window {
+        private final AtomicLong second = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicLong suppressed = new AtomicLong();
+    }
+}
@@ -0,0 +1,39 @@
+package ru.vspochernin.booking_service.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+// Кладёт X-Request-Id входящего запроса в MDC и возвращает его в ответе; контекст очищается
+// после ответа, чтобы он не перешёл к следующему запросу на том же потоке
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestIdFilter extends OncePerRequestFilter {
+
+    static final String REQUEST_ID_HEADER = "X-Request-Id";
+    // Значение от клиента попадает в лог - принимаем только короткие идентификаторы без переводов строк
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[\\w.:-]{1,64}");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId != null && VALID_REQUEST_ID.matcher(requestId).matches()) {
+            LogContext.put(requestId, null);
+            response.setHeader(REQUEST_ID_HEADER, requestId);
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            LogContext.clear();
+        }
+    }
+}
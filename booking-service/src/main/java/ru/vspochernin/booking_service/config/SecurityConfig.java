@@ -1,5 +1,6 @@
 package ru.vspochernin.booking_service.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -8,32 +9,45 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
-
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
+import ru.vspochernin.booking_service.service.JwtService;
 
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
 
-    @Value("${security.jwt.secret}")
-    private String jwtSecret;
-
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
     }
 
+    @Value("${security.trusted-claims.enabled:true}")
+    private boolean trustedClaimsEnabled;
+
+    @Value("${security.jwt.secret}")
+    private String jwtSecret;
+
+    @Value("${security.trusted-claims.secret:}")
+    private String trustedClaimsSecret;
+
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtDecoder jwtDecoder) throws Exception {
+        if (trustedClaimsEnabled) {
+            // Ключ подписи заголовков отдельный от ключа JWT и совпадает с ключом шлюза
+            if (trustedClaimsSecret.isBlank() || trustedClaimsSecret.equals(jwtSecret)) {
+                throw new IllegalStateException("security.trusted-claims.secret must be set and differ from security.jwt.secret");
+            }
+            // Запросы через шлюз приходят с уже проверенными claims
+            http.addFilterBefore(new TrustedClaimsFilter(trustedClaimsSecret, jwtAuthenticationConverter()),
+                BearerTokenAuthenticationFilter.class);
+        }
         http
             .csrf(AbstractHttpConfigurer::disable)
             .authorizeHttpRequests(authz -> authz
@@ -44,7 +58,7 @@ public class SecurityConfig {
             )
             .oauth2ResourceServer(oauth2 -> oauth2
                 .jwt(jwt -> jwt
-                    .decoder(jwtDecoder())
+                    .decoder(jwtDecoder)
                     .jwtAuthenticationConverter(jwtAuthenticationConverter())
                 )
             );
@@ -52,10 +66,31 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // Токены проверяются через JwtService: ключ и парсер построены один раз,
+    // повторная проверка того же токена берётся из кэша до истечения его срока
     @Bean
-    public JwtDecoder jwtDecoder() {
-        SecretKey key = new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), "HS256");
-        return NimbusJwtDecoder.withSecretKey(key).build();
+    public JwtDecoder jwtDecoder(JwtService jwtService) {
+        return token -> jwtService.parseToken(token)
+            .map(claims -> toJwt(token, claims))
+            .orElseThrow(() -> new BadJwtException("Invalid JWT token"));
+    }
+
+    private Jwt toJwt(String token, JwtService.TokenClaims claims) {
+        Jwt.Builder builder = Jwt.withTokenValue(token)
+            .header("alg", "HS256")
+            .subject(claims.username())
+            .claim("username", claims.username())
+            .expiresAt(claims.expiresAt());
+        if (claims.userId() != null) {
+            builder.claim("userId", claims.userId());
+        }
+        if (claims.role() != null) {
+            builder.claim("role", claims.role());
+        }
+        if (claims.issuedAt() != null) {
+            builder.issuedAt(claims.issuedAt());
+        }
+        return builder.build();
     }
 
     @Bean
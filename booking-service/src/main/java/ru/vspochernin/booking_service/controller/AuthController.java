@@ -3,8 +3,11 @@ package ru.vspochernin.booking_service.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.vspochernin.booking_service.dto.AuthRequest;
 import ru.vspochernin.booking_service.dto.RegisterRequest;
 import ru.vspochernin.booking_service.dto.TokenResponse;
@@ -12,6 +15,8 @@ import ru.vspochernin.booking_service.dto.UserDto;
 import ru.vspochernin.booking_service.service.JwtService;
 import ru.vspochernin.booking_service.service.UserService;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/user")
 @RequiredArgsConstructor
@@ -37,6 +42,27 @@ public class AuthController {
         return ResponseEntity.ok(new TokenResponse(token, "Bearer"));
     }
 
+    @GetMapping
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<List<UserDto>> getUsers(@RequestParam(required = false) Long after,
+                                                  @RequestParam(required = false) Integer limit) {
+        log.info("Retrieving users");
+        if (!KeysetPage.isRequested(after, limit)) {
+            return ResponseEntity.ok(userService.getAllUsers());
+        }
+        int pageSize = KeysetPage.limit(limit);
+        return KeysetPage.response(userService.getUsers(KeysetPage.after(after), pageSize), pageSize, UserDto::getId);
+    }
+
+    @GetMapping(params = "stream=true")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        log.info("Streaming users");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(userService::streamUsers);
+    }
+
     private ru.vspochernin.booking_service.entity.User convertToEntity(UserDto userDto) {
         ru.vspochernin.booking_service.entity.User user = new ru.vspochernin.booking_service.entity.User();
         user.setId(userDto.getId());
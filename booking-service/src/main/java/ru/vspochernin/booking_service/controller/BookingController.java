@@ -3,18 +3,23 @@ package ru.vspochernin.booking_service.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.vspochernin.booking_service.dto.BookingDto;
+import ru.vspochernin.booking_service.dto.BookingSagaStepDto;
 import ru.vspochernin.booking_service.dto.CreateBookingRequest;
-import ru.vspochernin.booking_service.entity.User;
+import ru.vspochernin.booking_service.dto.UserDto;
 import ru.vspochernin.booking_service.service.BookingService;
-import ru.vspochernin.booking_service.service.UserService;
+import ru.vspochernin.booking_service.service.UserPrincipalResolver;
 
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/booking")
@@ -22,46 +27,81 @@ import java.util.List;
 @Slf4j
 public class BookingController {
 
+    private static final long MAX_WAIT_SECONDS = 30;
+
     private final BookingService bookingService;
-    private final UserService userService;
+    private final UserPrincipalResolver principalResolver;
 
     @PostMapping
     @PreAuthorize("hasRole('ROLE_USER')")
-    public ResponseEntity<BookingDto> createBooking(@Valid @RequestBody CreateBookingRequest request,
-                                                     Authentication authentication) {
-        String username = authentication.getName();
-        User user = userService.findByUsername(username);
-        log.info("Creating booking for user: {}", user.getUsername());
-        BookingDto booking = bookingService.createBooking(request, user);
-        return ResponseEntity.ok(booking);
+    public CompletableFuture<ResponseEntity<BookingDto>> createBooking(@Valid @RequestBody CreateBookingRequest request,
+                                                                        Authentication authentication) {
+        UserDto user = principalResolver.resolve(authentication);
+        log.debug("Creating booking for user: {}", user.getUsername());
+
+        if (bookingService.isAsyncMode()) {
+            // Бронирование принято в обработку: статус можно опрашивать по Location
+            BookingDto booking = bookingService.submitBooking(request, user);
+            return CompletableFuture.completedFuture(ResponseEntity.accepted()
+                    .location(URI.create("/api/booking/" + booking.getId()))
+                    .body(booking));
+        }
+        return bookingService.createBooking(request, user).thenApply(ResponseEntity::ok);
     }
 
     @GetMapping
     @PreAuthorize("hasRole('ROLE_USER')")
-    public ResponseEntity<List<BookingDto>> getUserBookings(Authentication authentication) {
-        String username = authentication.getName();
-        User user = userService.findByUsername(username);
-        log.info("Retrieving bookings for user: {}", user.getUsername());
-        List<BookingDto> bookings = bookingService.getUserBookings(user.getId());
-        return ResponseEntity.ok(bookings);
+    public ResponseEntity<List<BookingDto>> getUserBookings(@RequestParam(required = false) Long after,
+                                                            @RequestParam(required = false) Integer limit,
+                                                            Authentication authentication) {
+        UserDto user = principalResolver.resolve(authentication);
+        log.debug("Retrieving bookings for user: {}", user.getUsername());
+        if (!KeysetPage.isRequested(after, limit)) {
+            return ResponseEntity.ok(bookingService.getUserBookings(user.getId()));
+        }
+        int pageSize = KeysetPage.limit(limit);
+        List<BookingDto> page = bookingService.getUserBookings(user.getId(), KeysetPage.after(after), pageSize);
+        return KeysetPage.response(page, pageSize, BookingDto::getId);
+    }
+
+    // Потоковая выдача: JSON пишется по мере чтения строк, память не растёт с числом бронирований
+    @GetMapping(params = "stream=true")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    public ResponseEntity<StreamingResponseBody> streamUserBookings(Authentication authentication) {
+        UserDto user = principalResolver.resolve(authentication);
+        log.debug("Streaming bookings for user: {}", user.getUsername());
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> bookingService.streamUserBookings(user.getId(), out));
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ROLE_USER')")
-    public ResponseEntity<BookingDto> getBooking(@PathVariable Long id, Authentication authentication) {
-        String username = authentication.getName();
-        User user = userService.findByUsername(username);
-        log.info("Retrieving booking ID: {} for user: {}", id, user.getUsername());
-        BookingDto booking = bookingService.getBookingById(id, user.getId());
-        return ResponseEntity.ok(booking);
+    public CompletableFuture<ResponseEntity<BookingDto>> getBooking(@PathVariable Long id,
+                                                                     @RequestParam(defaultValue = "0") long waitSeconds,
+                                                                     Authentication authentication) {
+        UserDto user = principalResolver.resolve(authentication);
+        log.debug("Retrieving booking ID: {} for user: {}", id, user.getUsername());
+        if (waitSeconds <= 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(bookingService.getBookingById(id, user.getId())));
+        }
+        Duration timeout = Duration.ofSeconds(Math.min(waitSeconds, MAX_WAIT_SECONDS));
+        return bookingService.awaitBooking(id, user.getId(), timeout).thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping("/{id}/steps")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    public ResponseEntity<List<BookingSagaStepDto>> getBookingSteps(@PathVariable Long id, Authentication authentication) {
+        UserDto user = principalResolver.resolve(authentication);
+        log.debug("Retrieving saga steps of booking ID: {} for user: {}", id, user.getUsername());
+        return ResponseEntity.ok(bookingService.getSagaSteps(id, user.getId()));
     }
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ROLE_USER')")
     public ResponseEntity<Void> cancelBooking(@PathVariable Long id, Authentication authentication) {
-        String username = authentication.getName();
-        User user = userService.findByUsername(username);
-        log.info("Cancelling booking ID: {} for user: {}", id, user.getUsername());
+        UserDto user = principalResolver.resolve(authentication);
+        log.debug("Cancelling booking ID: {} for user: {}", id, user.getUsername());
         bookingService.cancelBooking(id, user.getId());
         return ResponseEntity.ok().build();
     }
@@ -0,0 +1,18 @@
+package ru.vspochernin.booking_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.vspochernin.booking_service.entity.BookingSagaStep;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingSagaStepDto {
+    private BookingSagaStep.Step step;
+    private BookingSagaStep.Outcome outcome;
+    private String message;
+    private LocalDateTime createdAt;
+}
@@ -1,5 +1,7 @@
 package ru.vspochernin.booking_service.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -12,7 +14,7 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 public class CreateBookingRequest {
-    @NotNull(message = "Room ID is required")
+    // При autoSelect номер выбирается сервисом и roomId не учитывается
     private Long roomId;
 
     @NotNull(message = "Start date is required")
@@ -24,4 +26,10 @@ public class CreateBookingRequest {
     private LocalDate endDate;
 
     private Boolean autoSelect = false;
+
+    @JsonIgnore
+    @AssertTrue(message = "Room ID is required")
+    public boolean isRoomSpecified() {
+        return roomId != null || Boolean.TRUE.equals(autoSelect);
+    }
 }
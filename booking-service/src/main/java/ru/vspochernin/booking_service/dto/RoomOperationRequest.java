@@ -0,0 +1,23 @@
+package ru.vspochernin.booking_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomOperationRequest {
+    private Type type;
+    private Long roomId;
+    // Ключ идемпотентности в hotel-service: в пакете у каждой операции свой, поэтому не заголовок X-Request-Id
+    private String requestId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    public enum Type {
+        CONFIRM, INCREMENT, RELEASE
+    }
+}
@@ -0,0 +1,16 @@
+package ru.vspochernin.booking_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomOperationResult {
+    private RoomOperationRequest.Type type;
+    private Long roomId;
+    private String requestId;
+    private boolean success;
+    private String error;
+}
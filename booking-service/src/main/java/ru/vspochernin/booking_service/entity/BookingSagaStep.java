@@ -0,0 +1,45 @@
+package ru.vspochernin.booking_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "booking_saga_steps", indexes = @Index(name = "idx_saga_steps_booking_id", columnList = "bookingId"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingSagaStep {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long bookingId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Step step;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Outcome outcome;
+
+    @Column(length = 1000)
+    private String message;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum Step {
+        CONFIRM, INCREMENT, COMPENSATE
+    }
+
+    public enum Outcome {
+        SUCCEEDED, REJECTED, FAILED
+    }
+}
@@ -0,0 +1,25 @@
+package ru.vspochernin.booking_service.exception;
+
+// Вызов hotel-service отклонён до отправки: предохранитель эндпоинта разомкнут или bulkhead заполнен
+public class HotelServiceUnavailableException extends RuntimeException {
+
+    public static final String CIRCUIT_OPEN = "circuit_open";
+    public static final String BULKHEAD_FULL = "bulkhead_full";
+
+    private final String endpoint;
+    private final String reason;
+
+    public HotelServiceUnavailableException(String endpoint, String reason) {
+        super("Call to hotel-service " + endpoint + " rejected: " + reason);
+        this.endpoint = endpoint;
+        this.reason = reason;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,12 @@
+package ru.vspochernin.booking_service.loadbalancer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+// Feign-клиенты выбирают экземпляр по задержке. booking.load-balancer.latency-aware=false возвращает round-robin
+@Configuration
+@ConditionalOnProperty(value = "booking.load-balancer.latency-aware", matchIfMissing = true)
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
@@ -0,0 +1,211 @@
+package ru.vspochernin.booking_service.loadbalancer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Mono;
+import ru.vspochernin.booking_service.client.HotelServiceClient;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Выбор экземпляра по задержке вместо round-robin: из двух случайных экземпляров берётся тот,
+// у которого меньше peak-EWMA задержки, умноженная на число незавершённых запросов + 1.
+// Медленный или застрявший в GC узел быстро теряет долю трафика, но не выпадает совсем.
+// Тот же бин получает события начала и завершения запросов (LoadBalancerLifecycle), из которых считается задержка.
+// Попытки хеджированного вызова (заголовок X-Hedge-Attempt) с одним X-Request-Id направляются на разные экземпляры
+@Slf4j
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer,
+        LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+    private final String serviceId;
+    private final long decayNanos;
+    private final long errorPenaltyNanos;
+    private final long maxPendingAgeNanos;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, InstanceLatency> latencies = new ConcurrentHashMap<>();
+    private final AtomicLong purgedAt;
+    // X-Request-Id первой попытки хеджированного вызова -> выбранный для неё экземпляр
+    private final Cache<String, String> hedgeTargets;
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                String serviceId, Duration decayTime, Duration errorPenalty, Duration maxPendingAge) {
+        this(serviceInstanceListSupplierProvider, serviceId, decayTime, errorPenalty, maxPendingAge, System::nanoTime);
+    }
+
+    PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                         String serviceId, Duration decayTime, Duration errorPenalty, Duration maxPendingAge,
+                         LongSupplier nanoClock) {
+        if (decayTime.isZero() || decayTime.isNegative()) {
+            throw new IllegalArgumentException("Load balancer decay time must be positive");
+        }
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.decayNanos = decayTime.toNanos();
+        this.errorPenaltyNanos = errorPenalty.toNanos();
+        this.maxPendingAgeNanos = maxPendingAge.toNanos();
+        this.nanoClock = nanoClock;
+        this.purgedAt = new AtomicLong(nanoClock.getAsLong());
+        this.hedgeTargets = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(maxPendingAge)
+                .build();
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        HttpHeaders headers = request.getContext() instanceof RequestDataContext context
+                && context.getClientRequest() != null ? context.getClientRequest().getHeaders() : null;
+        String hedgeAttempt = headers != null ? headers.getFirst(HotelServiceClient.HEDGE_ATTEMPT_HEADER) : null;
+        String hedgeKey = hedgeAttempt != null ? headers.getFirst("X-Request-Id") : null;
+        return supplier.get(request).next().map(instances -> {
+            Response<ServiceInstance> response = choose(instances, hedgeKey, "1".equals(hedgeAttempt));
+            if (supplier instanceof SelectedInstanceCallback callback && response.hasServer()) {
+                callback.selectedServiceInstance(response.getServer());
+            }
+            return response;
+        });
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        return choose(instances, null, false);
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances, String hedgeKey, boolean firstAttempt) {
+        if (instances.isEmpty()) {
+            log.warn("No servers available for service: {}", serviceId);
+            return new EmptyResponse();
+        }
+        long now = nanoClock.getAsLong();
+        purgeIfDue(instances, now);
+        if (hedgeKey != null) {
+            Response<ServiceInstance> response = chooseForHedge(instances, hedgeKey, firstAttempt, now);
+            if (firstAttempt) {
+                hedgeTargets.put(hedgeKey, key(response.getServer()));
+            }
+            return response;
+        }
+        return choose(instances, now);
+    }
+
+    // Повторная попытка исключает экземпляр первой; если других нет - выбор среди всех
+    private Response<ServiceInstance> chooseForHedge(List<ServiceInstance> instances, String hedgeKey,
+                                                     boolean firstAttempt, long now) {
+        String avoid = firstAttempt ? null : hedgeTargets.getIfPresent(hedgeKey);
+        if (avoid == null) {
+            return choose(instances, now);
+        }
+        List<ServiceInstance> others = instances.stream()
+                .filter(instance -> !avoid.equals(key(instance)))
+                .toList();
+        return choose(others.isEmpty() ? instances : others, now);
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances, long now) {
+        if (instances.size() == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+
+        // Два разных случайных экземпляра: сравнение всех узлов отправило бы волну запросов
+        // на один "лучший" узел до того, как его задержка успеет вырасти
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(instances.size());
+        int second = random.nextInt(instances.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        return new DefaultResponse(cost(a, now) <= cost(b, now) ? a : b);
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass)
+                && ResponseData.class.isAssignableFrom(responseClass)
+                && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (lbResponse != null && lbResponse.hasServer()) {
+            latency(lbResponse.getServer()).start(request, nanoClock.getAsLong());
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        ResponseData response = completionContext.getClientResponse();
+        boolean failed = completionContext.status() == CompletionContext.Status.FAILED
+                || response != null && response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError();
+        latency(lbResponse.getServer()).complete(completionContext.getLoadBalancerRequest(), nanoClock.getAsLong(),
+                failed ? errorPenaltyNanos : 0, decayNanos);
+    }
+
+    private double cost(ServiceInstance instance, long now) {
+        InstanceLatency latency = latencies.get(key(instance));
+        return latency == null ? 0 : latency.cost(now, decayNanos, errorPenaltyNanos);
+    }
+
+    private InstanceLatency latency(ServiceInstance instance) {
+        return latencies.computeIfAbsent(key(instance), key -> new InstanceLatency(nanoClock.getAsLong()));
+    }
+
+    // Раз в секунду забываем потерянные незавершённые запросы и статистику экземпляров, ушедших из реестра
+    private void purgeIfDue(List<ServiceInstance> instances, long now) {
+        long previous = purgedAt.get();
+        if (now - previous < PURGE_INTERVAL_NANOS || !purgedAt.compareAndSet(previous, now)) {
+            return;
+        }
+        Set<String> current = new HashSet<>();
+        for (ServiceInstance instance : instances) {
+            current.add(key(instance));
+        }
+        latencies.forEach((key, latency) -> {
+            latency.expirePending(now, maxPendingAgeNanos);
+            if (!current.contains(key) && latency.inFlight() == 0) {
+                latencies.remove(key, latency);
+            }
+        });
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getHost() + ':' + instance.getPort();
+    }
+}
@@ -1,13 +1,42 @@
 package ru.vspochernin.booking_service.repository;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.vspochernin.booking_service.dto.BookingDto;
 import ru.vspochernin.booking_service.entity.Booking;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findByUserId(Long userId);
     List<Booking> findByRequestId(String requestId);
+
+    // Чтения для API сразу в BookingDto: без управляемых сущностей, снимков для dirty checking
+    // и прокси пользователя; user.id берётся из внешнего ключа без соединения с users
+    String BOOKING_DTO = "SELECT new ru.vspochernin.booking_service.dto.BookingDto(b.id, b.user.id, b.roomId,"
+            + " b.startDate, b.endDate, b.status, b.createdAt) FROM Booking b";
+
+    @Query(BOOKING_DTO + " WHERE b.user.id = :userId")
+    List<BookingDto> findByUserId(@Param("userId") Long userId);
+
+    @Query(BOOKING_DTO + " WHERE b.id = :id")
+    Optional<BookingDto> findDtoById(@Param("id") Long id);
+
+    // Keyset-пагинация: следующая страница начинается после последнего id предыдущей
+    @Query(BOOKING_DTO + " WHERE b.user.id = :userId AND b.id > :afterId ORDER BY b.id ASC")
+    List<BookingDto> findByUserIdAndIdGreaterThanOrderByIdAsc(@Param("userId") Long userId,
+                                                              @Param("afterId") Long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(BOOKING_DTO + " WHERE b.user.id = :userId ORDER BY b.id ASC")
+    Stream<BookingDto> streamByUserIdOrderByIdAsc(@Param("userId") Long userId);
 }
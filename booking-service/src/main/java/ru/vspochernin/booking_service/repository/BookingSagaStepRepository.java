@@ -0,0 +1,17 @@
+package ru.vspochernin.booking_service.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.vspochernin.booking_service.dto.BookingSagaStepDto;
+import ru.vspochernin.booking_service.entity.BookingSagaStep;
+
+import java.util.List;
+
+@Repository
+public interface BookingSagaStepRepository extends JpaRepository<BookingSagaStep, Long> {
+    @Query("SELECT new ru.vspochernin.booking_service.dto.BookingSagaStepDto(s.step, s.outcome, s.message, s.createdAt)"
+            + " FROM BookingSagaStep s WHERE s.bookingId = :bookingId ORDER BY s.id ASC")
+    List<BookingSagaStepDto> findByBookingIdOrderByIdAsc(@Param("bookingId") Long bookingId);
+}
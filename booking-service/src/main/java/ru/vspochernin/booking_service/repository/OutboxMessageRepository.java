@@ -0,0 +1,40 @@
+package ru.vspochernin.booking_service.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.vspochernin.booking_service.entity.OutboxMessage;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+    List<OutboxMessage> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(OutboxMessage.Status status,
+                                                                            LocalDateTime now,
+                                                                            Pageable pageable);
+
+    // Условный захват: условие выборки повторяется в UPDATE, поэтому строку, которую другой экземпляр
+    // уже захватил (сдвинул nextAttemptAt на срок аренды), второй раз не захватить
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE OutboxMessage m SET m.claimedBy = :claim, m.nextAttemptAt = :leaseUntil "
+            + "WHERE m.id IN :ids AND m.status = :status AND m.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("claim") String claim,
+              @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("status") OutboxMessage.Status status,
+              @Param("now") LocalDateTime now);
+
+    List<OutboxMessage> findByClaimedByOrderByIdAsc(String claimedBy);
+
+    // Возврат захваченных, но не отправленных сообщений к немедленной доставке
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.nextAttemptAt = :now WHERE m.id IN :ids AND m.claimedBy = :claim")
+    int releaseClaim(@Param("ids") Collection<Long> ids,
+                     @Param("claim") String claim,
+                     @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,215 @@
+package ru.vspochernin.booking_service.service;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import ru.vspochernin.booking_service.config.ExecutorThreads;
+import ru.vspochernin.booking_service.config.LogContext;
+import ru.vspochernin.booking_service.exception.HotelServiceUnavailableException;
+import ru.vspochernin.booking_service.exception.RetryExhaustedException;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Выполняет шаги саги с повторами по экспоненциальной задержке с джиттером.
+// Между попытками не занимается ни поток запроса, ни соединение с БД:
+// следующая попытка планируется таймером и выполняется в пуле воркеров.
+@Component
+@Slf4j
+public class AsyncRetryExecutor {
+
+    // Бюджет хранится в тысячных долях повтора, чтобы пополнять его дробной долей
+    private static final long UNIT = 1000;
+
+    private final int maxAttempts;
+    private final long initialDelayMillis;
+    private final double multiplier;
+    private final long maxDelayMillis;
+    private final long budgetCapacity;
+    private final long budgetDeposit;
+
+    private final AtomicLong budget;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService workers;
+    private final MeterRegistry meterRegistry;
+    private final Counter budgetRejections;
+
+    public AsyncRetryExecutor(MeterRegistry meterRegistry,
+                              @Value("${booking.retry.max-attempts:3}") int maxAttempts,
+                              @Value("${booking.retry.initial-delay-ms:1000}") long initialDelayMillis,
+                              @Value("${booking.retry.multiplier:2.0}") double multiplier,
+                              @Value("${booking.retry.max-delay-ms:8000}") long maxDelayMillis,
+                              @Value("${booking.retry.worker-threads:16}") int workerThreads,
+                              @Value("${booking.retry.budget.capacity:50}") int budgetCapacity,
+                              @Value("${booking.retry.budget.ratio:0.2}") double budgetRatio,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialDelayMillis = initialDelayMillis;
+        this.multiplier = multiplier;
+        this.maxDelayMillis = maxDelayMillis;
+        this.budgetCapacity = budgetCapacity * UNIT;
+        this.budgetDeposit = Math.round(budgetRatio * UNIT);
+        this.budget = new AtomicLong(this.budgetCapacity);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("booking-retry-timer-"));
+        // С виртуальными потоками число одновременно выполняемых шагов саги не ограничено worker-threads
+        this.workers = ExecutorThreads.workers(virtualThreads, "booking-saga-", workerThreads);
+
+        Gauge.builder("booking.retry.budget.remaining", budget, value -> (double) value.get() / UNIT)
+                .description("Retries currently allowed by the retry budget")
+                .register(meterRegistry);
+        this.budgetRejections = Counter.builder("booking.retry.budget.rejected")
+                .description("Retries skipped because the retry budget was empty")
+                .register(meterRegistry);
+    }
+
+    public <T> CompletableFuture<T> execute(String operation, Supplier<T> action) {
+        return executeAsync(operation, () -> CompletableFuture.completedFuture(action.get()));
+    }
+
+    public CompletableFuture<Void> run(String operation, Runnable action) {
+        return execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // Попытка возвращает future и не держит воркер, пока ответа нет (например, операция ждёт окна пакета)
+    public <T> CompletableFuture<T> executeAsync(String operation, Supplier<CompletableFuture<T>> action) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        budget.updateAndGet(value -> Math.min(budgetCapacity, value + budgetDeposit));
+        workers.execute(LogContext.wrap(() -> attempt(operation, action, 1, result)));
+        return result;
+    }
+
+    private <T> void attempt(String operation, Supplier<CompletableFuture<T>> action, int attempt, CompletableFuture<T> result) {
+        CompletableFuture<T> call;
+        try {
+            call = action.get();
+        } catch (Exception e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        if (call.isDone()) {
+            complete(operation, action, attempt, result, call);
+            return;
+        }
+        // Результат обрабатывается в пуле воркеров: продолжения саги не должны занимать поток,
+        // который завершил future (например, поток отправки пакета)
+        CompletableFuture<T> pendingCall = call;
+        Runnable completion = LogContext.wrap(() -> complete(operation, action, attempt, result, pendingCall));
+        call.whenComplete((value, error) -> workers.execute(completion));
+    }
+
+    private <T> void complete(String operation, Supplier<CompletableFuture<T>> action, int attempt,
+                              CompletableFuture<T> result, CompletableFuture<T> call) {
+        T value;
+        try {
+            value = call.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (!(cause instanceof Exception exception)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            retryOrFail(operation, action, attempt, result, exception);
+            return;
+        }
+        countAttempt(operation, "success");
+        result.complete(value);
+    }
+
+    private <T> void retryOrFail(String operation, Supplier<CompletableFuture<T>> action, int attempt,
+                                 CompletableFuture<T> result, Exception e) {
+        countAttempt(operation, "failure");
+
+        if (e instanceof HotelServiceUnavailableException && attempt > 1) {
+            // Повторы прерваны разомкнувшимся предохранителем, но предыдущие попытки могли дойти до hotel-service
+            log.error("Giving up on {} after {} attempts: {}", operation, attempt, e.getMessage());
+            meterRegistry.counter("booking.retry.exhausted", "operation", operation).increment();
+            result.completeExceptionally(new RetryExhaustedException(
+                    "Failed to " + operation + " after " + attempt + " attempts", e));
+            return;
+        }
+        if (!isRetryable(e)) {
+            result.completeExceptionally(e);
+            return;
+        }
+        if (attempt >= maxAttempts) {
+            log.error("All {} attempts exhausted for {}: {}", attempt, operation, e.getMessage());
+            meterRegistry.counter("booking.retry.exhausted", "operation", operation).increment();
+            result.completeExceptionally(new RetryExhaustedException(
+                    "Failed to " + operation + " after " + attempt + " attempts", e));
+            return;
+        }
+        if (!tryWithdrawBudget()) {
+            log.error("Retry budget exhausted - giving up on {} after {} attempts", operation, attempt);
+            budgetRejections.increment();
+            result.completeExceptionally(new RetryExhaustedException(
+                    "Retry budget exhausted for " + operation, e));
+            return;
+        }
+
+        long delay = backoffDelay(attempt);
+        log.warn("Attempt {} of {} failed: {} - retrying in {} ms", attempt, operation, e.getMessage(), delay);
+        Runnable retry = LogContext.wrap(() -> attempt(operation, action, attempt + 1, result));
+        scheduler.schedule(() -> workers.execute(retry), delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Ошибки клиента (4xx) повторять бессмысленно. Вызов, отклонённый предохранителем или bulkhead,
+    // тоже не повторяется: повтор через секунду снова упрётся в разомкнутый предохранитель
+    private boolean isRetryable(Exception e) {
+        if (e instanceof HotelServiceUnavailableException) {
+            return false;
+        }
+        return !(e instanceof FeignException feignException
+                && feignException.status() >= 400 && feignException.status() < 500);
+    }
+
+    private boolean tryWithdrawBudget() {
+        while (true) {
+            long current = budget.get();
+            if (current < UNIT) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - UNIT)) {
+                return true;
+            }
+        }
+    }
+
+    // Экспоненциальная задержка с "equal jitter": половина фиксирована, половина случайна
+    long backoffDelay(int attempt) {
+        long half = maxBackoffDelay(attempt) / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    // Верхняя граница задержки перед повтором после попытки attempt
+    long maxBackoffDelay(int attempt) {
+        double exponential = initialDelayMillis * Math.pow(multiplier, attempt - 1);
+        return (long) Math.min(maxDelayMillis, exponential);
+    }
+
+    private void countAttempt(String operation, String outcome) {
+        meterRegistry.counter("booking.retry.attempts", "operation", operation, "outcome", outcome).increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        workers.shutdown();
+    }
+}
@@ -1,24 +1,49 @@
 package ru.vspochernin.booking_service.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
-import org.springframework.retry.annotation.Recover;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.vspochernin.booking_service.client.HotelOperationBatcher;
+import ru.vspochernin.booking_service.client.HotelRequestHedger;
 import ru.vspochernin.booking_service.client.HotelServiceClient;
+import ru.vspochernin.booking_service.config.LogContext;
+import ru.vspochernin.booking_service.dto.AvailabilityRequest;
 import ru.vspochernin.booking_service.dto.BookingDto;
+import ru.vspochernin.booking_service.dto.BookingSagaStepDto;
 import ru.vspochernin.booking_service.dto.CreateBookingRequest;
+import ru.vspochernin.booking_service.dto.RoomOperationRequest;
+import ru.vspochernin.booking_service.dto.UserDto;
 import ru.vspochernin.booking_service.entity.Booking;
-import ru.vspochernin.booking_service.entity.User;
+import ru.vspochernin.booking_service.entity.BookingSagaStep;
+import ru.vspochernin.booking_service.entity.OutboxMessage;
+import ru.vspochernin.booking_service.exception.HotelServiceUnavailableException;
 import ru.vspochernin.booking_service.exception.RetryExhaustedException;
 import ru.vspochernin.booking_service.repository.BookingRepository;
+import ru.vspochernin.booking_service.repository.BookingSagaStepRepository;
+import ru.vspochernin.booking_service.repository.OutboxMessageRepository;
+import ru.vspochernin.booking_service.repository.UserRepository;
 
+import java.io.OutputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -27,16 +52,175 @@ public class BookingService {
 
     private final BookingRepository bookingRepository;
     private final HotelServiceClient hotelServiceClient;
+    private final HotelOperationBatcher hotelOperationBatcher;
+    private final HotelRequestHedger hotelRequestHedger;
+    private final RoomSelector roomSelector;
+    private final AsyncRetryExecutor retryExecutor;
+    private final BookingSagaStepRepository sagaStepRepository;
+    private final OutboxMessageRepository outboxRepository;
+    private final UserRepository userRepository;
+    private final JsonStreamWriter jsonStreamWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
 
-    @Transactional
-    public BookingDto createBooking(CreateBookingRequest request, User user) {
+    private SagaMode sagaMode;
+
+    // Сколько long-poll может ждать ответа ретранслятора outbox, прежде чем подписка будет удалена
+    @Value("${booking.saga.subscription-ttl:5m}")
+    private Duration subscriptionTtl;
+
+    private final Map<Long, CompletableFuture<BookingDto>> runningSagas = new ConcurrentHashMap<>();
+
+    public enum SagaMode {
+        SYNC, ASYNC, OUTBOX
+    }
+
+    // Неизвестный режим не запускает сервис, а не включает асинхронную сагу молча
+    @Value("${booking.saga.mode:sync}")
+    void setSagaMode(String sagaMode) {
+        this.sagaMode = SagaMode.valueOf(sagaMode.toUpperCase(Locale.ROOT));
+    }
+
+    // Синхронный режим: ответ возвращается после завершения саги. Каждая запись в БД -
+    // отдельная короткая транзакция; поток запроса освобождается на время вызовов hotel-service
+    public CompletableFuture<BookingDto> createBooking(CreateBookingRequest request, UserDto user) {
+        RoomSelector.Selection selection = selectRoom(request);
+        return runSaga(persistPending(request, selection, user), selection);
+    }
+
+    // Асинхронные режимы: сохраняем PENDING и сразу отвечаем. В режиме async сага
+    // выполняется в фоне, в режиме outbox команда CONFIRM пишется в outbox в той же
+    // транзакции, что и бронирование, и доставляется в hotel-service ретранслятором
+    public BookingDto submitBooking(CreateBookingRequest request, UserDto user) {
+        RoomSelector.Selection selection = selectRoom(request);
+        if (isOutboxMode()) {
+            // Подтверждение доставляет ретранслятор, поэтому номер выбирается один раз, без перехода
+            // к следующему кандидату при отказе; жетон возвращается сразу после записи в outbox
+            Booking booking;
+            try {
+                booking = transactionTemplate.execute(status -> {
+                    Booking saved = persistPending(request, selection, user);
+                    enqueueRoomOperation(saved, RoomOperationRequest.Type.CONFIRM);
+                    return saved;
+                });
+            } finally {
+                if (selection != null) {
+                    selection.finish();
+                }
+            }
+            // Подписка для long-poll только после фиксации: при откате в карте ничего не остаётся.
+            // Ответ ретранслятора, пришедший раньше подписки, awaitBooking прочитает из БД
+            subscribe(booking.getId());
+            return convertToDto(booking);
+        }
+
+        Booking booking = persistPending(request, selection, user);
+        runSaga(booking, selection);
+        return convertToDto(booking);
+    }
+
+    public boolean isAsyncMode() {
+        return sagaMode != SagaMode.SYNC;
+    }
+
+    public boolean isOutboxMode() {
+        return sagaMode == SagaMode.OUTBOX;
+    }
+
+    // Подписка истекает, если бронирование так и не дошло до итогового статуса (например, ретранслятор
+    // стоит, пока hotel-service недоступен); ожидающие long-poll получают текущее состояние из БД
+    private void subscribe(Long bookingId) {
+        CompletableFuture<BookingDto> waiting = new CompletableFuture<BookingDto>()
+                .orTimeout(subscriptionTtl.toMillis(), TimeUnit.MILLISECONDS);
+        runningSagas.put(bookingId, waiting);
+        waiting.whenComplete((result, error) -> runningSagas.remove(bookingId, waiting));
+    }
+
+    public OutboxMessage enqueueRoomOperation(Booking booking, RoomOperationRequest.Type type) {
+        boolean withDates = type == RoomOperationRequest.Type.CONFIRM;
+        LocalDateTime now = LocalDateTime.now();
+        return outboxRepository.save(new OutboxMessage(null, booking.getId(), type, booking.getRoomId(),
+                booking.getRequestId(),
+                withDates ? booking.getStartDate() : null,
+                withDates ? booking.getEndDate() : null,
+                OutboxMessage.Status.PENDING, 0, now, null, now, null));
+    }
+
+    // Вызывается ретранслятором outbox, когда бронирование перешло в итоговый статус.
+    // Ожидающие long-poll получают ответ только после фиксации транзакции
+    public void completeSaga(Booking booking) {
+        BookingDto result = convertToDto(booking);
+        Runnable complete = () -> {
+            CompletableFuture<BookingDto> waiting = runningSagas.remove(result.getId());
+            if (waiting != null) {
+                waiting.complete(result);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    complete.run();
+                }
+            });
+        } else {
+            complete.run();
+        }
+    }
+
+    public void recordSagaStep(Long bookingId, BookingSagaStep.Step step, BookingSagaStep.Outcome outcome, String message) {
+        String truncated = message == null ? null : message.substring(0, Math.min(message.length(), 1000));
+        try {
+            sagaStepRepository.save(new BookingSagaStep(null, bookingId, step, outcome, truncated, LocalDateTime.now()));
+        } catch (Exception e) {
+            log.error("Failed to record saga step {} for booking {}: {}", step, bookingId, e.getMessage());
+        }
+    }
+
+    // При autoSelect номер выбирается среди кандидатов hotel-service, roomId из запроса не используется
+    private RoomSelector.Selection selectRoom(CreateBookingRequest request) {
+        if (!Boolean.TRUE.equals(request.getAutoSelect())) {
+            return null;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            RoomSelector.Selection selection = roomSelector.select(
+                    new AvailabilityRequest(request.getStartDate(), request.getEndDate()));
+            stopStep(sample, "select", BookingSagaStep.Outcome.SUCCEEDED);
+            return selection;
+        } catch (IllegalArgumentException e) {
+            stopStep(sample, "select", BookingSagaStep.Outcome.REJECTED);
+            throw e;
+        } catch (RuntimeException e) {
+            stopStep(sample, "select", BookingSagaStep.Outcome.FAILED);
+            throw e;
+        }
+    }
+
+    private Booking persistPending(CreateBookingRequest request, RoomSelector.Selection selection, UserDto user) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Booking saved = doPersistPending(request, selection != null ? selection.getRoomId() : request.getRoomId(), user);
+            stopStep(sample, "persist", BookingSagaStep.Outcome.SUCCEEDED);
+            return saved;
+        } catch (RuntimeException e) {
+            stopStep(sample, "persist", BookingSagaStep.Outcome.FAILED);
+            if (selection != null) {
+                selection.finish();
+            }
+            throw e;
+        }
+    }
+
+    private Booking doPersistPending(CreateBookingRequest request, Long roomId, UserDto user) {
         String requestId = UUID.randomUUID().toString();
-        log.info("Creating booking for user {} with requestId: {}", user.getUsername(), requestId);
+        log.debug("Creating booking for user {} with requestId: {}", user.getUsername(), requestId);
 
         // Создаём бронирование в статусе PENDING
         Booking booking = new Booking();
-        booking.setUser(user);
-        booking.setRoomId(request.getRoomId());
+        // Ссылка на пользователя по id без загрузки сущности
+        booking.setUser(userRepository.getReferenceById(user.getId()));
+        booking.setRoomId(roomId);
         booking.setStartDate(request.getStartDate());
         booking.setEndDate(request.getEndDate());
         booking.setStatus(Booking.Status.PENDING);
@@ -44,117 +228,248 @@ public class BookingService {
         booking.setRequestId(requestId);
 
         Booking savedBooking = bookingRepository.save(booking);
-        log.info("Booking created with ID: {} in PENDING status", savedBooking.getId());
+        // Дальнейшие строки саги, в том числе в потоках воркеров, помечаются этим requestId
+        LogContext.put(requestId, savedBooking.getId());
+        log.debug("Booking created with ID: {} in PENDING status", savedBooking.getId());
+        return savedBooking;
+    }
 
-        try {
-            // Подтверждаем доступность в hotel-service
-            boolean confirmed = confirmAvailabilityWithRetry(request.getRoomId(), requestId);
-
-            if (confirmed) {
-                // Переводим в CONFIRMED
-                savedBooking.setStatus(Booking.Status.CONFIRMED);
-                bookingRepository.save(savedBooking);
-
-                // Инкрементируем счётчик бронирований
-                incrementTimesBookedWithRetry(request.getRoomId(), requestId);
-
-                log.info("Booking {} confirmed successfully", savedBooking.getId());
-            } else {
-                // Переводим в CANCELLED
-                savedBooking.setStatus(Booking.Status.CANCELLED);
-                bookingRepository.save(savedBooking);
-                log.warn("Booking {} cancelled - room not available", savedBooking.getId());
-            }
-        } catch (RetryExhaustedException e) {
-            // При исчерпании повторов переводим в CANCELLED и выполняем компенсацию
-            savedBooking.setStatus(Booking.Status.CANCELLED);
-            bookingRepository.save(savedBooking);
+    // Номер и requestId читаются из бронирования на каждом шаге: при автовыборе они меняются,
+    // если выбранный номер успели занять
+    private CompletableFuture<BookingDto> runSaga(Booking savedBooking, RoomSelector.Selection selection) {
+        AvailabilityRequest dates = new AvailabilityRequest(savedBooking.getStartDate(), savedBooking.getEndDate());
+        Timer.Sample sagaSample = Timer.start(meterRegistry);
 
-            // Компенсация: освобождаем слот
-            try {
-                releaseSlotWithRetry(request.getRoomId(), requestId);
-            } catch (Exception compensationException) {
-                log.error("Compensation failed for booking {}: {}", savedBooking.getId(), compensationException.getMessage());
-            }
+        // Подтверждаем доступность в hotel-service
+        CompletableFuture<Boolean> confirm = recordStep(savedBooking, BookingSagaStep.Step.CONFIRM,
+                () -> confirmRoom(savedBooking, dates, selection));
+        CompletableFuture<BookingDto> saga = confirm
+                .thenCompose(confirmed -> {
+                    if (!confirmed) {
+                        updateStatus(savedBooking, Booking.Status.CANCELLED);
+                        recordOutcome(Booking.Status.CANCELLED, "unavailable");
+                        log.warn("Booking {} cancelled - room not available", savedBooking.getId());
+                        return CompletableFuture.completedFuture(savedBooking);
+                    }
+                    // Инкрементируем счётчик бронирований и переводим в CONFIRMED
+                    return recordStep(savedBooking, BookingSagaStep.Step.INCREMENT,
+                            () -> retryExecutor.executeAsync("increment",
+                                    () -> incrementTimesBooked(savedBooking.getRoomId(), savedBooking.getRequestId())))
+                            .thenApply(ignored -> {
+                                updateStatus(savedBooking, Booking.Status.CONFIRMED);
+                                recordOutcome(Booking.Status.CONFIRMED, "confirmed");
+                                log.info("Booking {} confirmed successfully", savedBooking.getId());
+                                return savedBooking;
+                            });
+                })
+                .exceptionallyCompose(e -> {
+                    // При ошибке переводим в CANCELLED и выполняем компенсацию
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    updateStatus(savedBooking, Booking.Status.CANCELLED);
+                    recordOutcome(Booking.Status.CANCELLED, failureReason(cause));
+                    log.error("Booking {} failed: {}", savedBooking.getId(), cause.getMessage());
 
-            log.error("Booking {} failed after retry exhaustion: {}", savedBooking.getId(), e.getMessage());
-        } catch (Exception e) {
-            // При других ошибках переводим в CANCELLED и выполняем компенсацию
-            savedBooking.setStatus(Booking.Status.CANCELLED);
-            bookingRepository.save(savedBooking);
+                    // Подтверждение отклонено предохранителем с первой попытки - в hotel-service ничего не ушло,
+                    // освобождать нечего. Бронирование отменяется за миллисекунды, без повторов и таймаутов
+                    if (cause instanceof HotelServiceUnavailableException && confirm.isCompletedExceptionally()) {
+                        return CompletableFuture.completedFuture(savedBooking);
+                    }
 
-            // Компенсация: освобождаем слот
-            try {
-                releaseSlotWithRetry(request.getRoomId(), requestId);
-            } catch (Exception compensationException) {
-                log.error("Compensation failed for booking {}: {}", savedBooking.getId(), compensationException.getMessage());
-            }
+                    // Компенсация: освобождаем слот
+                    return recordStep(savedBooking, BookingSagaStep.Step.COMPENSATE,
+                            () -> retryExecutor.executeAsync("compensate",
+                                    () -> releaseSlot(savedBooking.getRoomId(), savedBooking.getRequestId())))
+                            .handle((ignored, compensationException) -> {
+                                if (compensationException != null) {
+                                    deferRelease(savedBooking, compensationException);
+                                }
+                                return savedBooking;
+                            });
+                })
+                .thenApply(this::convertToDto);
+
+        // Ожидающие long-poll запросы подписываются на завершение саги
+        runningSagas.put(savedBooking.getId(), saga);
+        saga.whenComplete((result, error) -> {
+            runningSagas.remove(savedBooking.getId());
+            sagaSample.stop(meterRegistry.timer("booking.saga.duration",
+                    "status", result != null ? result.getStatus().name() : "FAILED"));
+        });
+        return saga;
+    }
+
+    // Подтверждение номера; при автовыборе отказ (номер заняли параллельно) ведёт к следующему кандидату.
+    // У каждого кандидата свой requestId: hotel-service запоминает отказ по requestId
+    private CompletableFuture<Boolean> confirmRoom(Booking booking, AvailabilityRequest dates, RoomSelector.Selection selection) {
+        Long roomId = booking.getRoomId();
+        String requestId = booking.getRequestId();
+        CompletableFuture<Boolean> confirm = retryExecutor.executeAsync("confirm", () -> confirmAvailability(roomId, requestId, dates));
+        if (selection == null) {
+            return confirm;
+        }
+        return confirm
+                .whenComplete((confirmed, error) -> {
+                    if (error != null || confirmed) {
+                        selection.finish();
+                    }
+                })
+                .thenCompose(confirmed -> {
+                    if (confirmed) {
+                        return CompletableFuture.completedFuture(true);
+                    }
+                    if (!selection.next()) {
+                        selection.finish();
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    recordSagaStep(booking.getId(), BookingSagaStep.Step.CONFIRM, BookingSagaStep.Outcome.REJECTED,
+                            "Room " + roomId + " is taken, trying room " + selection.getRoomId());
+                    log.debug("Room {} is taken - booking {} switches to room {}", roomId, booking.getId(), selection.getRoomId());
+                    switchRoom(booking, selection.getRoomId());
+                    return confirmRoom(booking, dates, selection);
+                });
+    }
+
+    private void switchRoom(Booking booking, Long roomId) {
+        String requestId = UUID.randomUUID().toString();
+        booking.setRoomId(roomId);
+        booking.setRequestId(requestId);
+        bookingRepository.save(booking);
+        LogContext.put(requestId, booking.getId());
+    }
 
-            log.error("Booking {} failed: {}", savedBooking.getId(), e.getMessage());
+    private static String failureReason(Throwable cause) {
+        if (cause instanceof HotelServiceUnavailableException rejected) {
+            return rejected.getReason();
         }
+        return cause instanceof RetryExhaustedException ? "retry_exhausted" : "error";
+    }
+
+    // Итог саги: status - CONFIRMED/CANCELLED, reason - почему бронирование отменено
+    public void recordOutcome(Booking.Status status, String reason) {
+        meterRegistry.counter("booking.saga.outcomes", "status", status.name(), "reason", reason).increment();
+    }
+
+    private <T> CompletableFuture<T> recordStep(Booking booking, BookingSagaStep.Step step,
+                                                Supplier<CompletableFuture<T>> stepCall) {
+        // Время шага включает повторы и ожидание в очереди пакетной отправки
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return stepCall.get().whenComplete((value, error) -> {
+            BookingSagaStep.Outcome outcome = error != null ? BookingSagaStep.Outcome.FAILED
+                    : Boolean.FALSE.equals(value) ? BookingSagaStep.Outcome.REJECTED
+                    : BookingSagaStep.Outcome.SUCCEEDED;
+            stopStep(sample, step.name(), outcome);
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            recordSagaStep(booking.getId(), step, outcome, cause == null ? null : cause.getMessage());
+        });
+    }
 
-        return convertToDto(savedBooking);
+    private void stopStep(Timer.Sample sample, String step, BookingSagaStep.Outcome outcome) {
+        sample.stop(meterRegistry.timer("booking.saga.step",
+                "step", step.toLowerCase(), "outcome", outcome.name().toLowerCase()));
     }
 
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000))
-    private boolean confirmAvailabilityWithRetry(Long roomId, String requestId) {
-        log.info("Confirming availability for room {} with requestId: {}", roomId, requestId);
-        return hotelServiceClient.confirmAvailability(roomId, requestId);
+    private void updateStatus(Booking booking, Booking.Status status) {
+        booking.setStatus(status);
+        bookingRepository.save(booking);
     }
 
-    @Recover
-    private boolean confirmAvailabilityRecover(Exception ex, Long roomId, String requestId) {
-        log.error("All retry attempts exhausted for confirmAvailability room {} with requestId: {}", roomId, requestId, ex);
-        throw new RetryExhaustedException("Failed to confirm availability after all retry attempts", ex);
+    // В пакетном режиме шаг возвращает незавершённый future, остальные клиенты отвечают синхронно
+    private CompletableFuture<Boolean> confirmAvailability(Long roomId, String requestId, AvailabilityRequest dates) {
+        log.debug("Confirming availability for room {} with requestId: {}", roomId, requestId);
+        if (hotelOperationBatcher.isEnabled()) {
+            return hotelOperationBatcher.confirmAvailability(roomId, requestId, dates);
+        }
+        if (hotelRequestHedger.isEnabled()) {
+            return CompletableFuture.completedFuture(hotelRequestHedger.confirmAvailability(roomId, requestId, dates));
+        }
+        return CompletableFuture.completedFuture(hotelServiceClient.confirmAvailability(roomId, requestId, dates));
     }
 
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000))
-    private void incrementTimesBookedWithRetry(Long roomId, String requestId) {
-        log.info("Incrementing times booked for room {} with requestId: {}", roomId, requestId);
+    private CompletableFuture<Void> incrementTimesBooked(Long roomId, String requestId) {
+        log.debug("Incrementing times booked for room {} with requestId: {}", roomId, requestId);
+        if (hotelOperationBatcher.isEnabled()) {
+            return hotelOperationBatcher.incrementTimesBooked(roomId, requestId);
+        }
         hotelServiceClient.incrementTimesBooked(roomId, requestId);
+        return CompletableFuture.completedFuture(null);
     }
 
-    @Recover
-    private void incrementTimesBookedRecover(Exception ex, Long roomId, String requestId) {
-        log.error("All retry attempts exhausted for incrementTimesBooked room {} with requestId: {}", roomId, requestId, ex);
-        throw new RetryExhaustedException("Failed to increment times booked after all retry attempts", ex);
+    // Освобождение не доставлено (предохранитель разомкнут, bulkhead заполнен, повторы исчерпаны):
+    // команда уходит в outbox, и ретранслятор повторяет её после восстановления hotel-service.
+    // Иначе удержание, которое успело зафиксировать одно из подтверждений, осталось бы занятым
+    private void deferRelease(Booking booking, Throwable releaseException) {
+        Throwable cause = releaseException instanceof CompletionException ? releaseException.getCause() : releaseException;
+        try {
+            enqueueRoomOperation(booking, RoomOperationRequest.Type.RELEASE);
+            log.warn("Release for booking {} failed, deferred to outbox: {}", booking.getId(), cause.getMessage());
+        } catch (Exception e) {
+            log.error("Release for booking {} failed - manual intervention may be required: {}",
+                    booking.getId(), cause.getMessage());
+        }
     }
 
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 1000))
-    private void releaseSlotWithRetry(Long roomId, String requestId) {
-        log.info("Releasing slot for room {} with requestId: {}", roomId, requestId);
+    private CompletableFuture<Void> releaseSlot(Long roomId, String requestId) {
+        log.debug("Releasing slot for room {} with requestId: {}", roomId, requestId);
+        if (hotelOperationBatcher.isEnabled()) {
+            return hotelOperationBatcher.releaseSlot(roomId, requestId);
+        }
         hotelServiceClient.releaseSlot(roomId, requestId);
+        return CompletableFuture.completedFuture(null);
     }
 
-    @Recover
-    private void releaseSlotRecover(Exception ex, Long roomId, String requestId) {
-        log.error("All retry attempts exhausted for releaseSlot room {} with requestId: {}", roomId, requestId, ex);
-        // Для компенсации не бросаем исключение, просто логируем
-        log.warn("Compensation failed for room {} with requestId: {} - manual intervention may be required", roomId, requestId);
+    // Чтения идут проекциями в BookingDto в транзакции только для чтения (без flush):
+    // контекст персистентности остаётся пустым
+    @Transactional(readOnly = true)
+    public List<BookingDto> getUserBookings(Long userId) {
+        log.debug("Retrieving bookings for user ID: {}", userId);
+        return bookingRepository.findByUserId(userId);
     }
 
-    public List<BookingDto> getUserBookings(Long userId) {
-        log.info("Retrieving bookings for user ID: {}", userId);
-        return bookingRepository.findByUserId(userId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<BookingDto> getUserBookings(Long userId, long afterId, int limit) {
+        log.debug("Retrieving bookings page for user ID: {} after ID: {}, limit {}", userId, afterId, limit);
+        return bookingRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, afterId, Limit.of(limit));
+    }
+
+    public void streamUserBookings(Long userId, OutputStream out) {
+        log.debug("Streaming bookings for user ID: {}", userId);
+        jsonStreamWriter.write(out, () -> bookingRepository.streamByUserIdOrderByIdAsc(userId), Function.identity());
     }
 
+    // Long-poll: ждём смены статуса PENDING не дольше timeout, затем отдаём текущее состояние
+    public CompletableFuture<BookingDto> awaitBooking(Long id, Long userId, Duration timeout) {
+        // Подписка берётся до чтения: если сага завершилась раньше, чем на неё подписались, статус уже в БД
+        CompletableFuture<BookingDto> saga = runningSagas.get(id);
+        BookingDto current = getBookingById(id, userId);
+        if (current.getStatus() != Booking.Status.PENDING || saga == null) {
+            return CompletableFuture.completedFuture(current);
+        }
+        return saga.handle((result, error) -> result != null ? result : current)
+                .completeOnTimeout(current, timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BookingSagaStepDto> getSagaSteps(Long id, Long userId) {
+        getBookingById(id, userId);
+        return sagaStepRepository.findByBookingIdOrderByIdAsc(id);
+    }
+
+    @Transactional(readOnly = true)
     public BookingDto getBookingById(Long id, Long userId) {
-        log.info("Retrieving booking ID: {} for user ID: {}", id, userId);
-        Booking booking = bookingRepository.findById(id)
+        log.debug("Retrieving booking ID: {} for user ID: {}", id, userId);
+        BookingDto booking = bookingRepository.findDtoById(id)
                 .orElseThrow(() -> new RuntimeException("Booking not found with ID: " + id));
 
-        if (!booking.getUser().getId().equals(userId)) {
+        if (!booking.getUserId().equals(userId)) {
             throw new RuntimeException("Access denied to booking: " + id);
         }
 
-        return convertToDto(booking);
+        return booking;
     }
 
     @Transactional
     public void cancelBooking(Long id, Long userId) {
-        log.info("Cancelling booking ID: {} for user ID: {}", id, userId);
+        log.debug("Cancelling booking ID: {} for user ID: {}", id, userId);
         Booking booking = bookingRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Booking not found with ID: " + id));
 
@@ -165,6 +480,20 @@ public class BookingService {
         if (booking.getStatus() == Booking.Status.CONFIRMED) {
             booking.setStatus(Booking.Status.CANCELLED);
             bookingRepository.save(booking);
+
+            // В режиме outbox освобождение доставляется ретранслятором вместе с отменой
+            if (isOutboxMode()) {
+                enqueueRoomOperation(booking, RoomOperationRequest.Type.RELEASE);
+                log.info("Booking {} cancelled", id);
+                return;
+            }
+
+            // Освобождаем даты номера в hotel-service асинхронно, не удерживая транзакцию
+            retryExecutor.executeAsync("release", () -> releaseSlot(booking.getRoomId(), booking.getRequestId()))
+                    .exceptionally(releaseException -> {
+                        deferRelease(booking, releaseException);
+                        return null;
+                    });
             log.info("Booking {} cancelled", id);
         } else {
             log.warn("Booking {} cannot be cancelled - status: {}", id, booking.getStatus());
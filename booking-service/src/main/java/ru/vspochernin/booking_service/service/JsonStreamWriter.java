@@ -0,0 +1,61 @@
+package ru.vspochernin.booking_service.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Пишет JSON-массив по мере чтения строк из БД: в памяти не больше одной порции сущностей
+@Component
+public class JsonStreamWriter {
+
+    private static final int FLUSH_EVERY = 500;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public JsonStreamWriter(ObjectMapper objectMapper, EntityManager entityManager,
+                            PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        // Сбрасываем буфер порциями, а не после каждой строки
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public <T, D> void write(OutputStream out, Supplier<Stream<T>> rows, Function<T, D> mapper) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<T> stream = rows.get();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                int written = 0;
+                for (Iterator<T> iterator = stream.iterator(); iterator.hasNext(); ) {
+                    rowWriter.writeValue(generator, mapper.apply(iterator.next()));
+                    if (++written % FLUSH_EVERY == 0) {
+                        // Отдаём порцию клиенту и отпускаем прочитанные сущности из контекста
+                        generator.flush();
+                        entityManager.clear();
+                    }
+                }
+                generator.writeEndArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -1,87 +1,135 @@
 package ru.vspochernin.booking_service.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.vspochernin.booking_service.entity.User;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 @Slf4j
 public class JwtService {
 
-    @Value("${security.jwt.secret}")
-    private String secret;
+    private final Long ttlSeconds;
 
-    @Value("${security.jwt.ttl-seconds}")
-    private Long ttlSeconds;
+    // Ключ и парсер неизменяемы и потокобезопасны - строим один раз
+    private final SecretKey signingKey;
+    private final JwtParser parser;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    // Недавно проверенные токены по SHA-256 хэшу, каждый живёт до своего exp
+    private final Cache<String, TokenClaims> verifiedTokens;
+
+    public JwtService(MeterRegistry meterRegistry,
+                      @Value("${security.jwt.secret}") String secret,
+                      @Value("${security.jwt.ttl-seconds}") Long ttlSeconds,
+                      @Value("${security.jwt.cache.max-size:10000}") long cacheMaxSize) {
+        this.ttlSeconds = ttlSeconds;
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(Expiry.creating((String hash, TokenClaims claims) ->
+                        Duration.between(Instant.now(), claims.expiresAt())))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified-tokens");
     }
 
     public String generateToken(User user) {
-        log.info("Generating JWT token for user: {}", user.getUsername());
+        log.debug("Generating JWT token for user: {}", user.getUsername());
 
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", user.getRole().name());
         claims.put("username", user.getUsername());
+        // id пользователя в токене избавляет от поиска пользователя по имени на каждый запрос
+        claims.put("userId", user.getId());
 
         String token = Jwts.builder()
                 .setClaims(claims)
                 .setSubject(user.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + ttlSeconds * 1000))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
 
         log.info("Token generated for user: {}", user.getUsername());
         return token;
     }
 
-    public String extractUsername(String token) {
+    // Проверяет подпись и срок действия один раз и возвращает все нужные claims вместе
+    public Optional<TokenClaims> parseToken(String token) {
+        String hash = hash(token);
+        TokenClaims cached = verifiedTokens.getIfPresent(hash);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return Optional.of(cached);
+        }
+
         try {
-            Claims claims = extractAllClaims(token);
-            return claims.getSubject();
+            TokenClaims tokenClaims = verify(token);
+            verifiedTokens.put(hash, tokenClaims);
+            return Optional.of(tokenClaims);
         } catch (Exception e) {
             log.warn("Invalid JWT token: {}", e.getMessage());
-            return null;
+            return Optional.empty();
         }
     }
 
+    // Полная проверка подписи и срока действия без кэша
+    TokenClaims verify(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Number userId = claims.get("userId", Number.class);
+        return new TokenClaims(
+                claims.getSubject(),
+                userId == null ? null : userId.longValue(),
+                claims.get("role", String.class),
+                claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+                claims.getExpiration().toInstant());
+    }
+
+    public String extractUsername(String token) {
+        return parseToken(token).map(TokenClaims::username).orElse(null);
+    }
+
     public String extractRole(String token) {
-        try {
-            Claims claims = extractAllClaims(token);
-            return claims.get("role", String.class);
-        } catch (Exception e) {
-            log.warn("Invalid JWT token: {}", e.getMessage());
-            return null;
-        }
+        return parseToken(token).map(TokenClaims::role).orElse(null);
     }
 
     public boolean isTokenValid(String token) {
+        return parseToken(token).isPresent();
+    }
+
+    private String hash(String token) {
         try {
-            Claims claims = extractAllClaims(token);
-            return !claims.getExpiration().before(new Date());
-        } catch (Exception e) {
-            log.warn("Invalid JWT token: {}", e.getMessage());
-            return false;
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public record TokenClaims(String username, Long userId, String role, Instant issuedAt, Instant expiresAt) {
     }
 }
@@ -0,0 +1,270 @@
+package ru.vspochernin.booking_service.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.vspochernin.booking_service.client.HotelServiceClient;
+import ru.vspochernin.booking_service.config.ExecutorThreads;
+import ru.vspochernin.booking_service.config.LogContext;
+import ru.vspochernin.booking_service.dto.RoomOperationRequest;
+import ru.vspochernin.booking_service.dto.RoomOperationResult;
+import ru.vspochernin.booking_service.entity.Booking;
+import ru.vspochernin.booking_service.entity.BookingSagaStep;
+import ru.vspochernin.booking_service.entity.OutboxMessage;
+import ru.vspochernin.booking_service.exception.HotelServiceUnavailableException;
+import ru.vspochernin.booking_service.repository.BookingRepository;
+import ru.vspochernin.booking_service.repository.OutboxMessageRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Ретранслятор outbox: пачками доставляет команды в /api/rooms/batch hotel-service.
+// Доставка "как минимум один раз": дубликаты отсекаются в hotel-service по requestId.
+// Экземпляры booking-service не отправляют одни и те же сообщения: пачка сначала захватывается на срок аренды.
+// В режимах sync и async сюда попадают только освобождения, которые не удалось выполнить сразу
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private static final String MISSING_RESULT = "missing result";
+
+    private final OutboxMessageRepository outboxRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingService bookingService;
+    private final HotelServiceClient hotelServiceClient;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final int parallelism;
+    private final int maxAttempts;
+    private final long retryDelayMillis;
+    private final Duration lease;
+    private final ExecutorService senders;
+
+    public OutboxRelay(OutboxMessageRepository outboxRepository,
+                       BookingRepository bookingRepository,
+                       BookingService bookingService,
+                       HotelServiceClient hotelServiceClient,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${booking.outbox.batch-size:100}") int batchSize,
+                       @Value("${booking.outbox.parallelism:4}") int parallelism,
+                       @Value("${booking.outbox.max-attempts:5}") int maxAttempts,
+                       @Value("${booking.outbox.retry-delay-ms:1000}") long retryDelayMillis,
+                       @Value("${booking.outbox.lease:30s}") Duration lease,
+                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.outboxRepository = outboxRepository;
+        this.bookingRepository = bookingRepository;
+        this.bookingService = bookingService;
+        this.hotelServiceClient = hotelServiceClient;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMillis = retryDelayMillis;
+        this.lease = lease;
+        this.senders = Executors.newFixedThreadPool(parallelism, ExecutorThreads.factory(virtualThreads, "outbox-relay-"));
+    }
+
+    @Scheduled(fixedDelayString = "${booking.outbox.poll-interval-ms:200}")
+    public void relay() {
+        // Полная пачка означает, что в outbox есть ещё сообщения - продолжаем без паузы
+        while (relayBatch() == batchSize) {
+            log.debug("Outbox backlog detected - relaying next batch");
+        }
+    }
+
+    int relayBatch() {
+        String claim = UUID.randomUUID().toString();
+        List<OutboxMessage> messages = claimBatch(claim);
+        if (messages.isEmpty()) {
+            return 0;
+        }
+
+        // Пачка делится на parallelism частей, каждая уходит отдельным пакетным вызовом
+        int chunkSize = (messages.size() + parallelism - 1) / parallelism;
+        List<CompletableFuture<Boolean>> chunks = new ArrayList<>();
+        for (int from = 0; from < messages.size(); from += chunkSize) {
+            List<OutboxMessage> chunk = messages.subList(from, Math.min(from + chunkSize, messages.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> sendChunk(chunk), senders));
+        }
+        CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).join();
+
+        // Пока предохранитель разомкнут, сообщения остаются в outbox до следующего опроса:
+        // захват неотправленных частей снимается, не дожидаясь конца аренды
+        List<Long> rejected = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            if (!chunks.get(i).join()) {
+                messages.subList(i * chunkSize, Math.min((i + 1) * chunkSize, messages.size()))
+                        .forEach(message -> rejected.add(message.getId()));
+            }
+        }
+        if (!rejected.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxRepository.releaseClaim(rejected, claim, LocalDateTime.now()));
+            log.debug("Outbox relay paused - hotel-service calls are rejected");
+            return 0;
+        }
+        log.debug("Relayed {} outbox messages in {} chunks", messages.size(), chunks.size());
+        return messages.size();
+    }
+
+    // Захват пачки отдельной транзакцией до отправки. Аренда должна быть дольше пакетного вызова:
+    // по её истечении сообщения, которые экземпляр не успел обработать (например, упал), забирает другой
+    private List<OutboxMessage> claimBatch(String claim) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                            OutboxMessage.Status.PENDING, now, PageRequest.of(0, batchSize)).stream()
+                    .map(OutboxMessage::getId)
+                    .toList();
+            if (ids.isEmpty() || outboxRepository.claim(ids, claim, now.plus(lease), OutboxMessage.Status.PENDING, now) == 0) {
+                return List.of();
+            }
+            return outboxRepository.findByClaimedByOrderByIdAsc(claim);
+        });
+    }
+
+    // false - пачка отклонена до отправки и не доставлялась
+    private boolean sendChunk(List<OutboxMessage> chunk) {
+        List<RoomOperationRequest> operations = chunk.stream()
+                .map(message -> new RoomOperationRequest(message.getType(), message.getRoomId(), message.getRequestId(),
+                        message.getStartDate(), message.getEndDate()))
+                .toList();
+
+        List<RoomOperationResult> results;
+        try {
+            results = hotelServiceClient.executeBatch(operations);
+        } catch (HotelServiceUnavailableException e) {
+            // Попытка доставки не расходуется: команды дождутся восстановления hotel-service
+            return false;
+        } catch (Exception e) {
+            log.warn("Outbox chunk of {} messages failed: {}", chunk.size(), e.getMessage());
+            chunk.forEach(message -> handleResult(message, null, e.getMessage()));
+            return true;
+        }
+
+        // Результаты сопоставляются с командами по позиции: при несовпадении размера им нельзя верить,
+        // и каждая команда считается недоставленной - попытка расходуется, а не повторяется бесконечно
+        if (results == null || results.size() != chunk.size()) {
+            log.warn("Outbox chunk of {} messages got {} results", chunk.size(), results == null ? null : results.size());
+            chunk.forEach(message -> handleResult(message, null, MISSING_RESULT));
+            return true;
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            RoomOperationResult result = results.get(i);
+            handleResult(chunk.get(i), result, result == null ? MISSING_RESULT : result.getError());
+        }
+        return true;
+    }
+
+    private void handleResult(OutboxMessage message, RoomOperationResult result, String error) {
+        LogContext.put(message.getRequestId(), message.getBookingId());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (error == null) {
+                    onDelivered(message, result.isSuccess());
+                } else {
+                    onFailed(message, error);
+                }
+            });
+        } catch (Exception e) {
+            // Сообщение останется в outbox и будет отправлено повторно по окончании аренды
+            log.error("Failed to process outbox result for message {}: {}", message.getId(), e.getMessage());
+        } finally {
+            LogContext.clear();
+        }
+    }
+
+    private void onDelivered(OutboxMessage message, boolean success) {
+        outboxRepository.deleteById(message.getId());
+        Booking booking = bookingRepository.findById(message.getBookingId()).orElse(null);
+        if (booking == null) {
+            return;
+        }
+
+        switch (message.getType()) {
+            case CONFIRM -> {
+                if (success) {
+                    // Подтверждение и команда инкремента фиксируются атомарно
+                    booking.setStatus(Booking.Status.CONFIRMED);
+                    bookingService.enqueueRoomOperation(booking, RoomOperationRequest.Type.INCREMENT);
+                    bookingService.recordSagaStep(booking.getId(), BookingSagaStep.Step.CONFIRM,
+                            BookingSagaStep.Outcome.SUCCEEDED, null);
+                    bookingService.recordOutcome(Booking.Status.CONFIRMED, "confirmed");
+                    log.info("Booking {} confirmed via outbox", booking.getId());
+                } else {
+                    booking.setStatus(Booking.Status.CANCELLED);
+                    bookingService.recordSagaStep(booking.getId(), BookingSagaStep.Step.CONFIRM,
+                            BookingSagaStep.Outcome.REJECTED, null);
+                    bookingService.recordOutcome(Booking.Status.CANCELLED, "unavailable");
+                    log.warn("Booking {} cancelled via outbox - room not available", booking.getId());
+                }
+                bookingRepository.save(booking);
+                bookingService.completeSaga(booking);
+            }
+            case INCREMENT -> bookingService.recordSagaStep(booking.getId(), BookingSagaStep.Step.INCREMENT,
+                    BookingSagaStep.Outcome.SUCCEEDED, null);
+            case RELEASE -> bookingService.recordSagaStep(booking.getId(), BookingSagaStep.Step.COMPENSATE,
+                    BookingSagaStep.Outcome.SUCCEEDED, null);
+        }
+    }
+
+    private void onFailed(OutboxMessage message, String error) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        message.setLastError(error == null ? null : error.substring(0, Math.min(error.length(), 1000)));
+
+        if (attempts < maxAttempts) {
+            // Экспоненциальная задержка перед следующей доставкой
+            long delay = retryDelayMillis * (1L << Math.min(attempts - 1, 10));
+            message.setNextAttemptAt(LocalDateTime.now().plusNanos(delay * 1_000_000));
+            outboxRepository.save(message);
+            log.warn("Outbox message {} ({}) failed, attempt {} of {}: {}",
+                    message.getId(), message.getType(), attempts, maxAttempts, error);
+            return;
+        }
+
+        message.setStatus(OutboxMessage.Status.FAILED);
+        outboxRepository.save(message);
+        log.error("Outbox message {} ({}) failed after {} attempts: {}", message.getId(), message.getType(), attempts, error);
+
+        Booking booking = bookingRepository.findById(message.getBookingId()).orElse(null);
+        if (booking == null) {
+            return;
+        }
+        switch (message.getType()) {
+            case CONFIRM -> {
+                // Подтверждение не доставлено: отменяем бронирование и освобождаем слот
+                booking.setStatus(Booking.Status.CANCELLED);
+                bookingRepository.save(booking);
+                bookingService.enqueueRoomOperation(booking, RoomOperationRequest.Type.RELEASE);
+                bookingService.recordSagaStep(booking.getId(), BookingSagaStep.Step.CONFIRM,
+                        BookingSagaStep.Outcome.FAILED, error);
+                bookingService.recordOutcome(Booking.Status.CANCELLED, "retry_exhausted");
+                bookingService.completeSaga(booking);
+            }
+            case INCREMENT -> bookingService.recordSagaStep(booking.getId(), BookingSagaStep.Step.INCREMENT,
+                    BookingSagaStep.Outcome.FAILED, error);
+            case RELEASE -> {
+                bookingService.recordSagaStep(booking.getId(), BookingSagaStep.Step.COMPENSATE,
+                        BookingSagaStep.Outcome.FAILED, error);
+                log.warn("Release for booking {} failed - manual intervention may be required", booking.getId());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+    }
+}
@@ -0,0 +1,163 @@
+package ru.vspochernin.booking_service.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.vspochernin.booking_service.client.HotelServiceClient;
+import ru.vspochernin.booking_service.dto.AvailabilityRequest;
+import ru.vspochernin.booking_service.dto.RoomDto;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Автовыбор номера (CreateBookingRequest.autoSelect). Кандидаты - свободные на даты номера в порядке
+// рекомендаций hotel-service, реже бронируемые первыми. Если все одновременные запросы берут первый
+// кандидат, подтверждение получает один, остальные уходят в отказ и повторный выбор. Поэтому номер
+// выбирается случайно среди top-K, а в режиме reserved - среди кандидатов с наименьшим числом
+// незавершённых подтверждений в этом экземпляре (жетонов)
+@Component
+@Slf4j
+public class RoomSelector {
+
+    public enum Strategy {
+        // Первый неопробованный кандидат - строгий порядок рекомендаций
+        FIRST,
+        // Случайный кандидат из top-K
+        RANDOM,
+        // Случайный из кандидатов с наименьшим числом жетонов
+        RESERVED
+    }
+
+    private final HotelServiceClient hotelServiceClient;
+    private final Strategy strategy;
+    private final int candidates;
+    private final int maxAttempts;
+    private final DistributionSummary attempts;
+
+    // Жетоны: незавершённые подтверждения по номерам; запись удаляется, когда счётчик доходит до нуля
+    private final Map<Long, Integer> reservations = new ConcurrentHashMap<>();
+
+    public RoomSelector(HotelServiceClient hotelServiceClient,
+                        MeterRegistry meterRegistry,
+                        @Value("${booking.auto-select.strategy:reserved}") String strategy,
+                        @Value("${booking.auto-select.candidates:10}") int candidates,
+                        @Value("${booking.auto-select.max-attempts:3}") int maxAttempts) {
+        if (candidates < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Auto-select candidates and max-attempts must be positive");
+        }
+        this.hotelServiceClient = hotelServiceClient;
+        this.strategy = Strategy.valueOf(strategy.toUpperCase(Locale.ROOT));
+        this.candidates = candidates;
+        this.maxAttempts = maxAttempts;
+        this.attempts = DistributionSummary.builder("booking.auto-select.attempts")
+                .description("Rooms tried per auto-selected booking; above 1 means the first pick was taken concurrently")
+                .register(meterRegistry);
+        Gauge.builder("booking.auto-select.reserved-rooms", reservations, Map::size)
+                .description("Rooms with in-flight auto-select confirmations in this instance")
+                .register(meterRegistry);
+    }
+
+    // Запрашивает кандидатов и выбирает первый номер; без кандидатов - IllegalArgumentException (409)
+    public Selection select(AvailabilityRequest dates) {
+        if (dates.getStartDate() == null || dates.getEndDate() == null || !dates.getEndDate().isAfter(dates.getStartDate())) {
+            throw new IllegalArgumentException("End date must be after start date");
+        }
+        List<Long> roomIds = hotelServiceClient.getBookingCandidates(dates.getStartDate().toString(),
+                        dates.getEndDate().toString(), candidates).stream()
+                .map(RoomDto::getId)
+                .toList();
+        Selection selection = new Selection(roomIds);
+        if (!selection.next()) {
+            throw new IllegalArgumentException("No rooms available for the requested dates");
+        }
+        log.debug("Auto-selected room {} of {} candidates", selection.getRoomId(), roomIds.size());
+        return selection;
+    }
+
+    private Long choose(List<Long> roomIds, Set<Long> tried) {
+        if (strategy == Strategy.FIRST) {
+            return roomIds.stream().filter(id -> !tried.contains(id)).findFirst().orElse(null);
+        }
+        // Равновероятный выбор среди неопробованных с минимальной загрузкой (reservoir sampling)
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long chosen = null;
+        int minLoad = Integer.MAX_VALUE;
+        int ties = 0;
+        for (Long roomId : roomIds) {
+            if (tried.contains(roomId)) {
+                continue;
+            }
+            int load = strategy == Strategy.RESERVED ? reservations.getOrDefault(roomId, 0) : 0;
+            if (load < minLoad) {
+                minLoad = load;
+                chosen = roomId;
+                ties = 1;
+            } else if (load == minLoad && random.nextInt(++ties) == 0) {
+                chosen = roomId;
+            }
+        }
+        return chosen;
+    }
+
+    // Выбор номера для одного бронирования. Шаги саги выполняются последовательно,
+    // поэтому состояние не требует синхронизации
+    public class Selection {
+
+        private final List<Long> roomIds;
+        private final Set<Long> tried = new HashSet<>();
+        private Long roomId;
+        private boolean reserved;
+        private boolean finished;
+
+        private Selection(List<Long> roomIds) {
+            this.roomIds = roomIds;
+        }
+
+        public Long getRoomId() {
+            return roomId;
+        }
+
+        // Переход к следующему кандидату после отказа; false - кандидаты или попытки закончились
+        public boolean next() {
+            release();
+            if (tried.size() >= maxAttempts) {
+                return false;
+            }
+            Long next = choose(roomIds, tried);
+            if (next == null) {
+                return false;
+            }
+            tried.add(next);
+            roomId = next;
+            if (strategy == Strategy.RESERVED) {
+                reservations.merge(next, 1, Integer::sum);
+                reserved = true;
+            }
+            return true;
+        }
+
+        // Подтверждение завершено: жетон возвращается, число опробованных номеров попадает в метрику
+        public void finish() {
+            release();
+            if (!finished) {
+                finished = true;
+                attempts.record(tried.size());
+            }
+        }
+
+        private void release() {
+            if (reserved) {
+                reservations.computeIfPresent(roomId, (id, count) -> count > 1 ? count - 1 : null);
+                reserved = false;
+            }
+        }
+    }
+}
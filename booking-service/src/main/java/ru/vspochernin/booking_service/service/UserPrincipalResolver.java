@@ -0,0 +1,61 @@
+package ru.vspochernin.booking_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+import ru.vspochernin.booking_service.dto.UserDto;
+import ru.vspochernin.booking_service.entity.User;
+import ru.vspochernin.booking_service.repository.UserRepository;
+
+import java.time.Duration;
+
+// Превращает аутентификацию запроса в лёгкую ссылку на пользователя без похода в БД:
+// id и роль берутся из claims токена. Для токенов без userId (выданных до его появления)
+// пользователь один раз читается из БД и кэшируется по имени
+@Component
+@Slf4j
+public class UserPrincipalResolver {
+
+    private final UserRepository userRepository;
+    private final Cache<String, UserDto> usersByName;
+
+    public UserPrincipalResolver(UserRepository userRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${security.principal-cache.max-size:10000}") long maxSize,
+                                 @Value("${security.principal-cache.ttl:10m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.usersByName = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, usersByName, "user-principals");
+    }
+
+    public UserDto resolve(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof Jwt jwt && jwt.hasClaim("userId")) {
+            Number userId = jwt.getClaim("userId");
+            String role = jwt.getClaimAsString("role");
+            return new UserDto(userId.longValue(), authentication.getName(),
+                    role == null ? null : User.Role.valueOf(role));
+        }
+        return usersByName.get(authentication.getName(), this::loadUser);
+    }
+
+    public void evict(String username) {
+        usersByName.invalidate(username);
+    }
+
+    private UserDto loadUser(String username) {
+        log.debug("Loading principal for user: {}", username);
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+        return new UserDto(user.getId(), user.getUsername(), user.getRole());
+    }
+}
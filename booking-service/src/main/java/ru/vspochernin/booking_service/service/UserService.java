@@ -2,6 +2,7 @@ package ru.vspochernin.booking_service.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -10,6 +11,7 @@ import ru.vspochernin.booking_service.dto.UserDto;
 import ru.vspochernin.booking_service.entity.User;
 import ru.vspochernin.booking_service.repository.UserRepository;
 
+import java.io.OutputStream;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -20,6 +22,8 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserPrincipalResolver principalResolver;
+    private final JsonStreamWriter jsonStreamWriter;
 
     @Transactional
     public UserDto registerUser(RegisterRequest request) {
@@ -35,13 +39,14 @@ public class UserService {
         user.setRole(User.Role.USER);
 
         User savedUser = userRepository.save(user);
+        principalResolver.evict(savedUser.getUsername());
         log.info("User registered with ID: {}", savedUser.getId());
 
         return convertToDto(savedUser);
     }
 
     public UserDto authenticateUser(String username, String password) {
-        log.info("Authenticating user: {}", username);
+        log.debug("Authenticating user: {}", username);
 
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found: " + username));
@@ -55,14 +60,26 @@ public class UserService {
     }
 
     public List<UserDto> getAllUsers() {
-        log.info("Retrieving all users");
+        log.debug("Retrieving all users");
         return userRepository.findAll().stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
+    public List<UserDto> getUsers(long afterId, int limit) {
+        log.debug("Retrieving users page after ID: {}, limit {}", afterId, limit);
+        return userRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit)).stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
+    public void streamUsers(OutputStream out) {
+        log.debug("Streaming all users");
+        jsonStreamWriter.write(out, userRepository::streamAllByOrderByIdAsc, this::convertToDto);
+    }
+
     public User findByUsername(String username) {
-        log.info("Finding user by username: {}", username);
+        log.debug("Finding user by username: {}", username);
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found: " + username));
     }
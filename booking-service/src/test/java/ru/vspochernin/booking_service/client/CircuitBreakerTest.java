@@ -0,0 +1,106 @@
+package ru.vspochernin.booking_service.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final List<String> transitions = new ArrayList<>();
+    private final CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, TimeUnit.SECONDS.toNanos(5), 2,
+            clock::get, (from, to) -> transitions.add(from + "->" + to));
+
+    @Test
+    void testOpensWhenFailureRateReachesThreshold() {
+        call(true);
+        call(true);
+        call(false);
+        // Вызовов меньше minimum-calls - предохранитель не размыкается даже при 2 ошибках из 3
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        call(false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(List.of("CLOSED->OPEN"), transitions);
+
+        // Разомкнутый предохранитель отклоняет вызовы до истечения open-duration
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(4));
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+    }
+
+    @Test
+    void testStaysClosedWhileFailuresAreRare() {
+        for (int i = 0; i < 100; i++) {
+            call(i % 5 == 0);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(transitions.isEmpty());
+    }
+
+    @Test
+    void testHalfOpenAdmitsLimitedProbesAndClosesAfterSuccess() {
+        open();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+
+        long first = breaker.tryAcquire();
+        long second = breaker.tryAcquire();
+        assertNotEquals(CircuitBreaker.REJECTED, first);
+        assertNotEquals(CircuitBreaker.REJECTED, second);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        // Пробных вызовов не больше half-open-calls, остальные отклоняются
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+
+        breaker.onResult(first, false);
+        breaker.onResult(second, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+    }
+
+    @Test
+    void testFailedProbeReopens() {
+        open();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+
+        breaker.onResult(breaker.tryAcquire(), true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+    }
+
+    @Test
+    void testLateResultsFromPreviousStateAreIgnored() {
+        // Вызов начат до размыкания и завершился успешно уже в полуоткрытом состоянии
+        long stale = breaker.tryAcquire();
+        open();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        long probe = breaker.tryAcquire();
+
+        breaker.onResult(stale, false);
+        breaker.onResult(stale, false);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+
+        // Вызов, отклонённый bulkhead, возвращает пробный слот
+        long rejectedByBulkhead = breaker.tryAcquire();
+        breaker.release(rejectedByBulkhead);
+        assertNotEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+        breaker.onResult(probe, false);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    private void call(boolean failure) {
+        long permit = breaker.tryAcquire();
+        assertNotEquals(CircuitBreaker.REJECTED, permit);
+        breaker.onResult(permit, failure);
+    }
+}
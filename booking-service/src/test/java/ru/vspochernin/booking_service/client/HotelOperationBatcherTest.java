@@ -0,0 +1,149 @@
+package ru.vspochernin.booking_service.client;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import ru.vspochernin.booking_service.config.LogContext;
+import ru.vspochernin.booking_service.dto.AvailabilityRequest;
+import ru.vspochernin.booking_service.dto.RoomDto;
+import ru.vspochernin.booking_service.dto.RoomOperationRequest;
+import ru.vspochernin.booking_service.dto.RoomOperationResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotelOperationBatcherTest {
+
+    @Test
+    void testConcurrentOperationsAreCoalesced() throws Exception {
+        RecordingHotelServiceClient client = new RecordingHotelServiceClient();
+        HotelOperationBatcher batcher = new HotelOperationBatcher(client, true, 200, 100, 2, 5000, false);
+        AvailabilityRequest dates = new AvailabilityRequest(LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+
+        try {
+            // Вызывающий поток не блокируется: все десять операций ставятся в окно из одного потока
+            List<CompletableFuture<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                long roomId = i;
+                results.add(batcher.confirmAvailability(roomId, "req-" + roomId, dates));
+            }
+
+            // Чётные номера подтверждаются заглушкой, нечётные - нет
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i % 2 == 0, results.get(i).get());
+            }
+        } finally {
+            batcher.shutdown();
+        }
+
+        // Все десять операций попали в один пакетный вызов
+        assertEquals(1, client.batches.size());
+        assertEquals(10, client.batches.get(0).size());
+    }
+
+    @Test
+    void testBatchFailureIsPropagatedToEveryCaller() {
+        HotelServiceClient failingClient = new RecordingHotelServiceClient() {
+            @Override
+            public List<RoomOperationResult> executeBatch(List<RoomOperationRequest> operations) {
+                throw new IllegalStateException("hotel-service unavailable");
+            }
+        };
+        HotelOperationBatcher batcher = new HotelOperationBatcher(failingClient, true, 1, 100, 1, 5000, false);
+        try {
+            CompletionException error = assertThrows(CompletionException.class,
+                () -> batcher.incrementTimesBooked(1L, "req-failing").join());
+            assertEquals("hotel-service unavailable", error.getCause().getMessage());
+        } finally {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    void testUnansweredOperationTimesOut() {
+        HotelServiceClient slowClient = new RecordingHotelServiceClient() {
+            @Override
+            public List<RoomOperationResult> executeBatch(List<RoomOperationRequest> operations) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.executeBatch(operations);
+            }
+        };
+        HotelOperationBatcher batcher = new HotelOperationBatcher(slowClient, true, 1, 100, 1, 50, false);
+        try {
+            CompletionException error = assertThrows(CompletionException.class,
+                () -> batcher.releaseSlot(1L, "req-slow").join());
+            assertEquals("Batched RELEASE timed out for requestId: req-slow", error.getCause().getMessage());
+        } finally {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    void testDispatchLogsUnderBatchRequestIds() {
+        RecordingHotelServiceClient client = new RecordingHotelServiceClient();
+        HotelOperationBatcher batcher = new HotelOperationBatcher(client, true, 1000, 2, 1, 5000, false);
+        try {
+            CompletableFuture<RoomOperationResult> first = batcher.submit(
+                new RoomOperationRequest(RoomOperationRequest.Type.INCREMENT, 1L, "req-a", null, null));
+            CompletableFuture<RoomOperationResult> second = batcher.submit(
+                new RoomOperationRequest(RoomOperationRequest.Type.INCREMENT, 2L, "req-b", null, null));
+            first.join();
+            second.join();
+        } finally {
+            batcher.shutdown();
+        }
+
+        // Поток отправки пишет лог с requestId всех операций пакета
+        assertEquals(List.of("req-a,req-b"), client.requestIds);
+    }
+
+    private static class RecordingHotelServiceClient implements HotelServiceClient {
+
+        private final List<List<RoomOperationRequest>> batches = new CopyOnWriteArrayList<>();
+        private final List<String> requestIds = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Boolean confirmAvailability(Long roomId, String requestId, AvailabilityRequest dates) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Boolean confirmAvailability(Long roomId, String requestId, int attempt, AvailabilityRequest dates) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void releaseSlot(Long roomId, String requestId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void incrementTimesBooked(Long roomId, String requestId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<RoomDto> getBookingCandidates(String startDate, String endDate, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<RoomOperationResult> executeBatch(List<RoomOperationRequest> operations) {
+            batches.add(operations);
+            requestIds.add(MDC.get(LogContext.REQUEST_ID));
+            return operations.stream()
+                .map(operation -> new RoomOperationResult(operation.getType(), operation.getRoomId(),
+                    operation.getRequestId(), operation.getRoomId() % 2 == 0, null))
+                .toList();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package ru.vspochernin.booking_service.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import ru.vspochernin.booking_service.dto.AvailabilityRequest;
+import ru.vspochernin.booking_service.dto.RoomDto;
+import ru.vspochernin.booking_service.dto.RoomOperationRequest;
+import ru.vspochernin.booking_service.dto.RoomOperationResult;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotelRequestHedgerTest {
+
+    private static final AvailabilityRequest DATES =
+        new AvailabilityRequest(LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HotelRequestHedger hedger;
+
+    @AfterEach
+    void tearDown() {
+        hedger.shutdown();
+    }
+
+    @Test
+    void testSlowPrimaryIsHedgedAndFirstResponseWins() {
+        // Первая попытка "застряла" на медленном экземпляре, вторая отвечает сразу
+        SlowFirstAttemptClient client = new SlowFirstAttemptClient(2000);
+        hedger = hedger(client, 2, 1.0);
+
+        long started = System.nanoTime();
+        assertTrue(hedger.confirmAvailability(1L, "req-1", DATES));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertTrue(elapsedMillis < 1000, "hedged confirm took " + elapsedMillis + " ms");
+        // Обе попытки несут один X-Request-Id - hotel-service ответит на повтор исходным результатом
+        assertEquals(List.of("req-1#1", "req-1#2"), client.calls);
+        assertEquals(1.0, meterRegistry.counter("booking.hotel.hedge.requests", "type", "hedge").count());
+        assertEquals(1.0, meterRegistry.counter("booking.hotel.hedge.wins", "attempt", "hedge").count());
+    }
+
+    @Test
+    void testHedgeRateIsCappedByBudget() {
+        // Бюджет на один хедж без пополнения
+        SlowFirstAttemptClient client = new SlowFirstAttemptClient(200);
+        hedger = hedger(client, 2, 0.0);
+
+        assertTrue(hedger.confirmAvailability(1L, "req-1", DATES));
+        assertTrue(hedger.confirmAvailability(2L, "req-2", DATES));
+
+        assertEquals(List.of("req-1#1", "req-1#2", "req-2#1"), client.calls);
+        assertEquals(1.0, meterRegistry.counter("booking.hotel.hedge.skipped", "reason", "budget").count());
+        assertEquals(1.0, meterRegistry.counter("booking.hotel.hedge.wins", "attempt", "primary").count());
+    }
+
+    @Test
+    void testNoHedgeWithSingleInstanceOrFastFailure() {
+        SlowFirstAttemptClient client = new SlowFirstAttemptClient(200);
+        hedger = hedger(client, 1, 1.0);
+        assertTrue(hedger.confirmAvailability(1L, "req-1", DATES));
+        assertEquals(List.of("req-1#1"), client.calls);
+        assertEquals(1.0, meterRegistry.counter("booking.hotel.hedge.skipped", "reason", "single_instance").count());
+
+        // Быстрая ошибка первой попытки возвращается сразу, без второй попытки
+        hedger.shutdown();
+        client.failFast = true;
+        hedger = hedger(client, 2, 1.0);
+        assertThrows(IllegalStateException.class, () -> hedger.confirmAvailability(2L, "req-2", DATES));
+        assertEquals(List.of("req-1#1", "req-2#1"), client.calls);
+    }
+
+    private HotelRequestHedger hedger(HotelServiceClient client, int instances, double maxRatio) {
+        // min-samples 0: задержка хеджа сразу равна min-delay
+        return new HotelRequestHedger(client, discovery(instances), meterRegistry, true, 0.95,
+            Duration.ofMillis(50), 0, maxRatio, 1, 4, false);
+    }
+
+    private static DiscoveryClient discovery(int instances) {
+        return new DiscoveryClient() {
+            @Override
+            public String description() {
+                return "test";
+            }
+
+            @Override
+            public List<ServiceInstance> getInstances(String serviceId) {
+                return IntStream.range(0, instances)
+                    .mapToObj(i -> (ServiceInstance) new DefaultServiceInstance("hotel-" + i, serviceId, "hotel-" + i, 8081, false))
+                    .toList();
+            }
+
+            @Override
+            public List<String> getServices() {
+                return List.of("hotel-service");
+            }
+        };
+    }
+
+    private static class SlowFirstAttemptClient implements HotelServiceClient {
+
+        private final List<String> calls = new CopyOnWriteArrayList<>();
+        private final long firstAttemptMillis;
+        private volatile boolean failFast;
+
+        SlowFirstAttemptClient(long firstAttemptMillis) {
+            this.firstAttemptMillis = firstAttemptMillis;
+        }
+
+        @Override
+        public Boolean confirmAvailability(Long roomId, String requestId, int attempt, AvailabilityRequest dates) {
+            calls.add(requestId + "#" + attempt);
+            if (failFast) {
+                throw new IllegalStateException("hotel-service unavailable");
+            }
+            if (attempt == 1) {
+                try {
+                    Thread.sleep(firstAttemptMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Boolean confirmAvailability(Long roomId, String requestId, AvailabilityRequest dates) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void releaseSlot(Long roomId, String requestId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void incrementTimesBooked(Long roomId, String requestId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<RoomDto> getBookingCandidates(String startDate, String endDate, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<RoomOperationResult> executeBatch(List<RoomOperationRequest> operations) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ru.vspochernin.booking_service.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitedLogFilterTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        LoggerContext context = new LoggerContext();
+        RateLimitedLogFilter filter = new RateLimitedLogFilter(nanoTime::get);
+        filter.setMaxPerSecond(2);
+        filter.start();
+        context.addTurboFilter(filter);
+        appender.setContext(context);
+        appender.start();
+        logger = context.getLogger("rate-limited");
+        logger.addAppender(appender);
+    }
+
+    @Test
+    void testMessagesOverLimitAreSuppressedAndCountedInNextWindow() {
+        for (int i = 0; i < 5; i++) {
+            logger.warn("Room {} is already held", i);
+        }
+        assertEquals(List.of("Room 0 is already held", "Room 1 is already held"), messages());
+
+        nanoTime.set(TimeUnit.SECONDS.toNanos(1));
+        logger.warn("Room {} is already held", 5);
+
+        assertEquals(List.of("Room 0 is already held", "Room 1 is already held",
+            "Suppressed 3 messages like: Room {} is already held", "Room 5 is already held"), messages());
+    }
+
+    @Test
+    void testTemplatesAreLimitedSeparately() {
+        for (int i = 0; i < 3; i++) {
+            logger.warn("first {}", i);
+            logger.info("second {}", i);
+        }
+
+        assertEquals(List.of("first 0", "second 0", "first 1", "second 1"), messages());
+    }
+
+    @Test
+    void testErrorsAndDebugAreNotLimited() {
+        for (int i = 0; i < 5; i++) {
+            logger.error("failure {}", i);
+            logger.debug("detail {}", i);
+        }
+
+        assertEquals(10, messages().size());
+    }
+
+    private List<String> messages() {
+        return appender.list.stream()
+            .map(ILoggingEvent::getFormattedMessage)
+            .toList();
+    }
+}
@@ -0,0 +1,69 @@
+package ru.vspochernin.booking_service.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrustedClaimsFilterTest {
+
+    private static final String SECRET = "testTrustedClaimsKey67890123456789012345";
+
+    private final TrustedClaimsFilter filter = new TrustedClaimsFilter(SECRET, new JwtAuthenticationConverter());
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testNonAsciiSubjectIsDecoded() throws Exception {
+        Authentication authentication = authenticate(request("Алиса", SECRET));
+
+        assertNotNull(authentication);
+        assertEquals("Алиса", authentication.getName());
+    }
+
+    @Test
+    void testSignatureWithOtherSecretIsIgnored() throws Exception {
+        assertNull(authenticate(request("Алиса", "forgedSecretKey12345678901234567890123456")));
+    }
+
+    private Authentication authenticate(MockHttpServletRequest request) throws Exception {
+        AtomicReference<Authentication> seen = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(),
+            (req, res) -> seen.set(SecurityContextHolder.getContext().getAuthentication()));
+        return seen.get();
+    }
+
+    // Заголовки в том виде, в каком их отправляет шлюз: имя в Base64url, подписано закодированное значение
+    private static MockHttpServletRequest request(String subject, String secret) throws Exception {
+        String encodedSubject = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(subject.getBytes(StandardCharsets.UTF_8));
+        String expires = Long.toString(Instant.now().plusSeconds(3600).getEpochSecond());
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String payload = encodedSubject + "\nUSER\n42\n" + expires;
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/booking");
+        request.addHeader("X-Auth-Subject", encodedSubject);
+        request.addHeader("X-Auth-Role", "USER");
+        request.addHeader("X-Auth-User-Id", "42");
+        request.addHeader("X-Auth-Expires", expires);
+        request.addHeader("X-Auth-Signature", Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8))));
+        return request;
+    }
+}
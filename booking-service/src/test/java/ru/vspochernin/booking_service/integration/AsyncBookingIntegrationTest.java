@@ -0,0 +1,83 @@
+package ru.vspochernin.booking_service.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+import ru.vspochernin.booking_service.dto.AuthRequest;
+import ru.vspochernin.booking_service.dto.CreateBookingRequest;
+import ru.vspochernin.booking_service.dto.TokenResponse;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "booking.saga.mode=async")
+@ActiveProfiles("test")
+class AsyncBookingIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String baseUrl;
+    private String userToken;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port;
+
+        AuthRequest authRequest = new AuthRequest("testuser", "testpass");
+        ResponseEntity<TokenResponse> response = restTemplate.postForEntity(
+            baseUrl + "/api/user/auth", authRequest, TokenResponse.class);
+        userToken = response.getBody().getToken();
+    }
+
+    @Test
+    void testAsyncBookingIsAcceptedAndCompletesInBackground() throws Exception {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setRoomId(1L);
+        request.setStartDate(LocalDate.now().plusDays(1));
+        request.setEndDate(LocalDate.now().plusDays(5));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(userToken);
+
+        // Сразу получаем 202 и бронирование в статусе PENDING
+        ResponseEntity<String> accepted = restTemplate.postForEntity(
+            baseUrl + "/api/booking", new HttpEntity<>(request, headers), String.class);
+        assertEquals(HttpStatus.ACCEPTED, accepted.getStatusCode());
+        JsonNode pending = objectMapper.readTree(accepted.getBody());
+        assertEquals("PENDING", pending.get("status").asText());
+        assertNotNull(accepted.getHeaders().getLocation());
+
+        // Long-poll дожидается завершения саги (CANCELLED из-за недоступности hotel-service)
+        ResponseEntity<String> completed = restTemplate.exchange(
+            baseUrl + accepted.getHeaders().getLocation() + "?waitSeconds=20",
+            HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, completed.getStatusCode());
+        assertEquals("CANCELLED", objectMapper.readTree(completed.getBody()).get("status").asText());
+
+        // Шаги саги записаны: неудачное подтверждение и компенсация
+        ResponseEntity<String> steps = restTemplate.exchange(
+            baseUrl + accepted.getHeaders().getLocation() + "/steps",
+            HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        JsonNode stepList = objectMapper.readTree(steps.getBody());
+        assertEquals("CONFIRM", stepList.get(0).get("step").asText());
+        assertEquals("FAILED", stepList.get(0).get("outcome").asText());
+        assertEquals("COMPENSATE", stepList.get(1).get("step").asText());
+    }
+}
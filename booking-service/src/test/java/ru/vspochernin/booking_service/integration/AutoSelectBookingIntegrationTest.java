@@ -0,0 +1,207 @@
+package ru.vspochernin.booking_service.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.vspochernin.booking_service.dto.AuthRequest;
+import ru.vspochernin.booking_service.dto.CreateBookingRequest;
+import ru.vspochernin.booking_service.dto.TokenResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// hotel-service заменён заглушкой в том же процессе: номер на даты подтверждается только один раз
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class AutoSelectBookingIntegrationTest {
+
+    private static final int ROOMS = 8;
+    private static final HotelStub HOTEL = new HotelStub();
+
+    @DynamicPropertySource
+    static void hotelService(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.discovery.client.simple.instances.hotel-service[0].uri",
+            () -> "http://localhost:" + HOTEL.port());
+    }
+
+    @AfterAll
+    static void stopHotel() {
+        HOTEL.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String baseUrl;
+    private HttpHeaders headers;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port;
+
+        AuthRequest authRequest = new AuthRequest("testuser", "testpass");
+        ResponseEntity<TokenResponse> response = restTemplate.postForEntity(
+            baseUrl + "/api/user/auth", authRequest, TokenResponse.class);
+        headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(response.getBody().getToken());
+    }
+
+    @Test
+    void testConcurrentAutoSelectedBookingsGetDistinctRooms() throws Exception {
+        LocalDate start = LocalDate.now().plusDays(10);
+        int bookings = 5;
+
+        ExecutorService callers = Executors.newFixedThreadPool(bookings);
+        try {
+            List<Future<ResponseEntity<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < bookings; i++) {
+                responses.add(callers.submit(() -> restTemplate.postForEntity(baseUrl + "/api/booking",
+                    new HttpEntity<>(autoSelectRequest(start), headers), String.class)));
+            }
+
+            Set<Long> rooms = new HashSet<>();
+            for (Future<ResponseEntity<String>> response : responses) {
+                assertEquals(HttpStatus.OK, response.get().getStatusCode());
+                JsonNode booking = objectMapper.readTree(response.get().getBody());
+                assertEquals("CONFIRMED", booking.get("status").asText());
+                rooms.add(booking.get("roomId").asLong());
+            }
+            // roomId из запроса не используется, каждому бронированию достался свой номер
+            assertEquals(bookings, rooms.size());
+            assertFalse(rooms.contains(999L));
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    @Test
+    void testAutoSelectWithoutFreeRoomsIsConflict() {
+        LocalDate start = LocalDate.now().plusDays(40);
+        LongStream.rangeClosed(1, ROOMS).forEach(roomId -> HOTEL.hold(roomId, start, "occupied-" + roomId));
+
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/booking",
+            new HttpEntity<>(autoSelectRequest(start), headers), String.class);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    private static CreateBookingRequest autoSelectRequest(LocalDate start) {
+        return new CreateBookingRequest(999L, start, start.plusDays(2), true);
+    }
+
+    // Кандидаты - номера 1..ROOMS, ещё не занятые на дату заезда; подтверждение отвечает с задержкой,
+    // чтобы одновременные бронирования пересекались
+    private static class HotelStub implements AutoCloseable {
+
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final Map<String, String> holds = new ConcurrentHashMap<>();
+        private final HttpServer server;
+
+        HotelStub() {
+            try {
+                server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.createContext("/api/rooms/", this::handle);
+            server.start();
+        }
+
+        int port() {
+            return server.getAddress().getPort();
+        }
+
+        boolean hold(long roomId, LocalDate startDate, String requestId) {
+            String holder = holds.putIfAbsent(roomId + "@" + startDate, requestId);
+            return holder == null || holder.equals(requestId);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                String path = exchange.getRequestURI().getPath();
+                if (path.endsWith("/candidates")) {
+                    LocalDate startDate = LocalDate.parse(query(exchange).get("startDate"));
+                    List<Map<String, Object>> rooms = LongStream.rangeClosed(1, ROOMS)
+                        .filter(roomId -> !holds.containsKey(roomId + "@" + startDate))
+                        .mapToObj(roomId -> Map.<String, Object>of("id", roomId, "hotelId", 1, "number", "10" + roomId,
+                            "available", true, "timesBooked", 0))
+                        .toList();
+                    respond(exchange, objectMapper.writeValueAsString(rooms));
+                } else if (path.endsWith("/confirm-availability")) {
+                    long roomId = Long.parseLong(path.split("/")[3]);
+                    JsonNode dates = objectMapper.readTree(exchange.getRequestBody());
+                    Thread.sleep(20);
+                    boolean held = hold(roomId, LocalDate.parse(dates.get("startDate").asText()),
+                        exchange.getRequestHeaders().getFirst("X-Request-Id"));
+                    respond(exchange, String.valueOf(held));
+                } else {
+                    exchange.sendResponseHeaders(200, -1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private static Map<String, String> query(HttpExchange exchange) {
+            Map<String, String> params = new HashMap<>();
+            for (String pair : exchange.getRequestURI().getRawQuery().split("&")) {
+                String[] parts = pair.split("=", 2);
+                params.put(parts[0], URLDecoder.decode(parts[1], StandardCharsets.UTF_8));
+            }
+            return params;
+        }
+
+        private static void respond(HttpExchange exchange, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+        }
+    }
+}
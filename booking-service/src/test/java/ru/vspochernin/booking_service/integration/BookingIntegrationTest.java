@@ -1,26 +1,45 @@
 package ru.vspochernin.booking_service.integration;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.*;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.vspochernin.booking_service.dto.AuthRequest;
 import ru.vspochernin.booking_service.dto.CreateBookingRequest;
 import ru.vspochernin.booking_service.dto.TokenResponse;
+import ru.vspochernin.booking_service.entity.Booking;
 import ru.vspochernin.booking_service.entity.User;
+import ru.vspochernin.booking_service.repository.BookingRepository;
 import ru.vspochernin.booking_service.repository.UserRepository;
+import ru.vspochernin.booking_service.service.BookingService;
+import ru.vspochernin.booking_service.service.JwtService;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
 @ActiveProfiles("test")
 @AutoConfigureWebMvc
 class BookingIntegrationTest {
@@ -37,6 +56,24 @@ class BookingIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${security.trusted-claims.secret}")
+    private String trustedClaimsSecret;
+
     private String baseUrl;
     private String userToken;
     private String adminToken;
@@ -102,6 +139,120 @@ class BookingIntegrationTest {
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
     }
 
+    @Test
+    void testTamperedTokenRejected() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(userToken);
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+
+        // Повторный запрос с тем же токеном обслуживается из кэша проверенных токенов
+        assertEquals(HttpStatus.OK, restTemplate.exchange(
+            baseUrl + "/api/booking", HttpMethod.GET, entity, String.class).getStatusCode());
+        assertEquals(HttpStatus.OK, restTemplate.exchange(
+            baseUrl + "/api/booking", HttpMethod.GET, entity, String.class).getStatusCode());
+
+        // Токен с изменённой подписью не должен попасть в кэш и проходит полную проверку
+        String tampered = userToken.substring(0, userToken.length() - 2)
+            + (userToken.endsWith("AA") ? "BB" : "AA");
+        HttpHeaders tamperedHeaders = new HttpHeaders();
+        tamperedHeaders.setBearerAuth(tampered);
+        ResponseEntity<String> response = restTemplate.exchange(
+            baseUrl + "/api/booking", HttpMethod.GET, new HttpEntity<>(tamperedHeaders), String.class);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    @Test
+    void testTokenCarriesUserId() {
+        // id пользователя в токене: BookingController не ищет пользователя в БД
+        User user = userRepository.findByUsername("testuser").orElseThrow();
+        JwtService.TokenClaims claims = jwtService.parseToken(userToken).orElseThrow();
+
+        assertEquals(user.getId(), claims.userId());
+        assertEquals("USER", claims.role());
+    }
+
+    @Test
+    void testKeysetPaginationAndStreaming() throws Exception {
+        User user = userRepository.findByUsername("testuser").orElseThrow();
+        for (int i = 0; i < 5; i++) {
+            bookingRepository.save(new Booking(null, user, 1L, LocalDate.now().plusDays(i + 1),
+                LocalDate.now().plusDays(i + 2), Booking.Status.CANCELLED, LocalDateTime.now(),
+                UUID.randomUUID().toString()));
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(userToken);
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+
+        JsonNode all = objectMapper.readTree(restTemplate.exchange(
+            baseUrl + "/api/booking", HttpMethod.GET, entity, String.class).getBody());
+
+        // Обходим все страницы по курсору из заголовка X-Next-After
+        List<Long> pagedIds = new ArrayList<>();
+        String after = "0";
+        while (after != null) {
+            ResponseEntity<String> page = restTemplate.exchange(
+                baseUrl + "/api/booking?limit=2&after=" + after, HttpMethod.GET, entity, String.class);
+            assertEquals(HttpStatus.OK, page.getStatusCode());
+            JsonNode items = objectMapper.readTree(page.getBody());
+            assertTrue(items.size() <= 2);
+            items.forEach(item -> pagedIds.add(item.get("id").asLong()));
+            after = page.getHeaders().getFirst("X-Next-After");
+        }
+        assertEquals(all.size(), pagedIds.size());
+        assertEquals(pagedIds.stream().sorted().toList(), pagedIds);
+
+        // Потоковая выдача возвращает тот же набор бронирований
+        ResponseEntity<String> streamed = restTemplate.exchange(
+            baseUrl + "/api/booking?stream=true", HttpMethod.GET, entity, String.class);
+        assertEquals(HttpStatus.OK, streamed.getStatusCode());
+        List<Long> streamedIds = new ArrayList<>();
+        objectMapper.readTree(streamed.getBody()).forEach(item -> streamedIds.add(item.get("id").asLong()));
+        assertEquals(pagedIds, streamedIds);
+    }
+
+    @Test
+    void testBookingReadsKeepPersistenceContextEmpty() {
+        User user = userRepository.findByUsername("testuser").orElseThrow();
+        Booking saved = bookingRepository.save(new Booking(null, user, 1L, LocalDate.now().plusDays(1),
+            LocalDate.now().plusDays(2), Booking.Status.CANCELLED, LocalDateTime.now(), UUID.randomUUID().toString()));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertFalse(bookingService.getUserBookings(user.getId()).isEmpty());
+            assertFalse(bookingService.getUserBookings(user.getId(), 0, 100).isEmpty());
+            assertEquals(user.getId(), bookingService.getBookingById(saved.getId(), user.getId()).getUserId());
+            bookingService.getSagaSteps(saved.getId(), user.getId());
+
+            // Чтения идут проекциями: в контексте персистентности нет ни бронирований, ни пользователей
+            assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+        });
+    }
+
+    @Test
+    void testAdminListsUsersWithPagination() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(adminToken);
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+
+        ResponseEntity<String> page = restTemplate.exchange(
+            baseUrl + "/api/user?limit=1", HttpMethod.GET, entity, String.class);
+        assertEquals(HttpStatus.OK, page.getStatusCode());
+        assertEquals(1, objectMapper.readTree(page.getBody()).size());
+        assertNotNull(page.getHeaders().getFirst("X-Next-After"));
+
+        ResponseEntity<String> streamed = restTemplate.exchange(
+            baseUrl + "/api/user?stream=true", HttpMethod.GET, entity, String.class);
+        assertEquals(HttpStatus.OK, streamed.getStatusCode());
+        assertTrue(objectMapper.readTree(streamed.getBody()).size() >= 2);
+
+        // Обычному пользователю список пользователей недоступен
+        HttpHeaders userHeaders = new HttpHeaders();
+        userHeaders.setBearerAuth(userToken);
+        assertEquals(HttpStatus.FORBIDDEN, restTemplate.exchange(
+            baseUrl + "/api/user?limit=1", HttpMethod.GET, new HttpEntity<>(userHeaders), String.class).getStatusCode());
+    }
+
     @Test
     void testGetUserBookings() {
         HttpHeaders headers = new HttpHeaders();
@@ -180,4 +331,96 @@ class BookingIntegrationTest {
 
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
     }
+
+    @Test
+    void testGatewayClaimHeadersAuthenticateWithoutToken() throws Exception {
+        JwtService.TokenClaims claims = jwtService.parseToken(userToken).orElseThrow();
+        HttpHeaders headers = trustedClaims(claims.username(), claims.role(), claims.userId(),
+            claims.expiresAt().getEpochSecond(), trustedClaimsSecret);
+
+        // Без Authorization: пользователь определяется по подписанным шлюзом заголовкам
+        ResponseEntity<String> list = restTemplate.exchange(
+            baseUrl + "/api/booking", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, list.getStatusCode());
+
+        // Асинхронный ответ саги тоже выполняется от имени этого пользователя
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setRoomId(1L);
+        request.setStartDate(LocalDate.now().plusDays(1));
+        request.setEndDate(LocalDate.now().plusDays(2));
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<String> created = restTemplate.postForEntity(
+            baseUrl + "/api/booking", new HttpEntity<>(request, headers), String.class);
+        assertEquals(HttpStatus.OK, created.getStatusCode());
+        Long bookingId = objectMapper.readTree(created.getBody()).get("id").asLong();
+        assertEquals(claims.userId(), bookingRepository.findById(bookingId).orElseThrow().getUser().getId());
+
+        // Подпись другим секретом и подмена роли не принимаются
+        HttpHeaders forged = trustedClaims(claims.username(), claims.role(), claims.userId(),
+            claims.expiresAt().getEpochSecond(), "forgedSecretKey12345678901234567890123456");
+        assertEquals(HttpStatus.UNAUTHORIZED, restTemplate.exchange(
+            baseUrl + "/api/booking", HttpMethod.GET, new HttpEntity<>(forged), String.class).getStatusCode());
+        HttpHeaders escalated = trustedClaims(claims.username(), claims.role(), claims.userId(),
+            claims.expiresAt().getEpochSecond(), trustedClaimsSecret);
+        escalated.set("X-Auth-Role", "ADMIN");
+        assertEquals(HttpStatus.UNAUTHORIZED, restTemplate.exchange(
+            baseUrl + "/api/user", HttpMethod.GET, new HttpEntity<>(escalated), String.class).getStatusCode());
+    }
+
+    @Test
+    void testSagaMetricsExposedForPrometheus() {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setRoomId(1L);
+        request.setStartDate(LocalDate.now().plusDays(1));
+        request.setEndDate(LocalDate.now().plusDays(2));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(userToken);
+        restTemplate.postForEntity(baseUrl + "/api/booking", new HttpEntity<>(request, headers), String.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity(baseUrl + "/actuator/prometheus", String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String metrics = response.getBody();
+
+        // Шаги саги с гистограммами, итог саги и задержка Feign по шаблону эндпоинта
+        assertTrue(metrics.contains("booking_saga_step_seconds_bucket{"));
+        assertTrue(metrics.contains("step=\"persist\""));
+        assertTrue(metrics.contains("step=\"confirm\""));
+        assertTrue(metrics.contains("step=\"compensate\""));
+        assertTrue(metrics.contains("booking_saga_outcomes_total{"));
+        assertTrue(metrics.contains("reason=\"retry_exhausted\""));
+        assertTrue(metrics.contains("booking_saga_duration_seconds_bucket{"));
+        assertTrue(metrics.contains("feign_client_requests_seconds_bucket{"));
+        assertTrue(metrics.contains("http_url=\"/api/rooms/{id}/confirm-availability\""));
+    }
+
+    @Test
+    void testHotelClientPoolMetricsExposedForPrometheus() {
+        ResponseEntity<String> response = restTemplate.getForEntity(baseUrl + "/actuator/prometheus", String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String metrics = response.getBody();
+
+        // Заполненность пула соединений к hotel-service и ожидание свободного соединения
+        assertTrue(metrics.contains("httpcomponents_httpclient_pool_total_max{"));
+        assertTrue(metrics.contains("httpcomponents_httpclient_pool_total_connections{"));
+        assertTrue(metrics.contains("httpcomponents_httpclient_pool_total_pending{"));
+        assertTrue(metrics.contains("httpclient=\"hotel-service\""));
+        assertTrue(metrics.contains("feign_client_pool_wait_seconds_bucket{"));
+    }
+
+    private HttpHeaders trustedClaims(String subject, String role, Long userId, long expires, String secret) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String encodedSubject = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(subject.getBytes(StandardCharsets.UTF_8));
+        String payload = encodedSubject + "\n" + role + "\n" + userId + "\n" + expires;
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Auth-Subject", encodedSubject);
+        headers.set("X-Auth-Role", role);
+        headers.set("X-Auth-User-Id", userId.toString());
+        headers.set("X-Auth-Expires", Long.toString(expires));
+        headers.set("X-Auth-Signature", Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8))));
+        return headers;
+    }
 }
@@ -0,0 +1,134 @@
+package ru.vspochernin.booking_service.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.*;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import ru.vspochernin.booking_service.dto.AuthRequest;
+import ru.vspochernin.booking_service.dto.CreateBookingRequest;
+import ru.vspochernin.booking_service.dto.RoomOperationRequest;
+import ru.vspochernin.booking_service.dto.TokenResponse;
+import ru.vspochernin.booking_service.entity.OutboxMessage;
+import ru.vspochernin.booking_service.repository.OutboxMessageRepository;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// hotel-service в тестах недоступен: балансировщик отвечает 503, предохранитель confirmAvailability
+// размыкается после двух неудачных вызовов. Состояние предохранителей у каждого теста своё
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "booking.hotel-client.circuit-breaker.sliding-window=4",
+        "booking.hotel-client.circuit-breaker.minimum-calls=2",
+        "booking.hotel-client.circuit-breaker.open-duration=1m",
+        // Своя база: ретрансляторы других тестовых контекстов не забирают отсюда команды outbox
+        "spring.datasource.url=jdbc:h2:mem:circuit-breaker;DB_CLOSE_DELAY=-1"
+    })
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class HotelCircuitBreakerIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OutboxMessageRepository outboxRepository;
+
+    private String baseUrl;
+    private HttpHeaders headers;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port;
+
+        AuthRequest authRequest = new AuthRequest("testuser", "testpass");
+        ResponseEntity<TokenResponse> response = restTemplate.postForEntity(
+            baseUrl + "/api/user/auth", authRequest, TokenResponse.class);
+        headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(response.getBody().getToken());
+    }
+
+    @Test
+    void testOpenCircuitCancelsBookingWithoutRetries() throws Exception {
+        // Первое бронирование размыкает предохранитель на второй попытке подтверждения
+        JsonNode first = createBooking();
+        assertEquals("CANCELLED", first.get("status").asText());
+
+        // Следующее отклоняется сразу: без повторов, таймаутов и компенсации
+        long started = System.nanoTime();
+        JsonNode second = createBooking();
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        assertEquals("CANCELLED", second.get("status").asText());
+        assertTrue(elapsedMillis < 1000, "rejected booking took " + elapsedMillis + " ms");
+
+        JsonNode steps = objectMapper.readTree(restTemplate.exchange(
+            baseUrl + "/api/booking/" + second.get("id").asLong() + "/steps",
+            HttpMethod.GET, new HttpEntity<>(headers), String.class).getBody());
+        assertEquals(1, steps.size());
+        assertEquals("CONFIRM", steps.get(0).get("step").asText());
+        assertEquals("FAILED", steps.get(0).get("outcome").asText());
+        assertTrue(steps.get(0).get("message").asText().contains("circuit_open"));
+
+        // Переходы и отклонения видны в Prometheus
+        String metrics = restTemplate.getForEntity(baseUrl + "/actuator/prometheus", String.class).getBody();
+        assertTrue(metrics.contains("booking_hotel_circuit_state{"));
+        assertTrue(metrics.contains("booking_hotel_circuit_transitions_total{"));
+        assertTrue(metrics.contains("endpoint=\"confirmAvailability\",from=\"closed\","));
+        assertTrue(metrics.contains("booking_hotel_calls_rejected_total{"));
+        assertTrue(metrics.contains("reason=\"circuit_open\""));
+        assertTrue(metrics.contains("booking_hotel_bulkhead_in_flight{"));
+    }
+
+    @Test
+    void testReleaseRejectedByOpenCircuitIsDeferredToOutbox() throws Exception {
+        // Подтверждение размыкает предохранитель после двух попыток, которые могли успеть удержать слот.
+        // Компенсация тоже размыкает свой предохранитель, и третья попытка освобождения отклоняется
+        JsonNode booking = createBooking();
+        assertEquals("CANCELLED", booking.get("status").asText());
+        long bookingId = booking.get("id").asLong();
+
+        String metrics = restTemplate.getForEntity(baseUrl + "/actuator/prometheus", String.class).getBody();
+        assertTrue(metrics.contains("endpoint=\"releaseSlot\",reason=\"circuit_open\""));
+
+        JsonNode steps = objectMapper.readTree(restTemplate.exchange(
+            baseUrl + "/api/booking/" + bookingId + "/steps",
+            HttpMethod.GET, new HttpEntity<>(headers), String.class).getBody());
+        assertEquals("COMPENSATE", steps.get(steps.size() - 1).get("step").asText());
+        assertEquals("FAILED", steps.get(steps.size() - 1).get("outcome").asText());
+
+        // Освобождение не потеряно: ретранслятор доставит его после восстановления hotel-service
+        assertTrue(outboxRepository.findAll().stream()
+            .anyMatch(message -> message.getBookingId() == bookingId
+                && message.getType() == RoomOperationRequest.Type.RELEASE
+                && message.getStatus() == OutboxMessage.Status.PENDING));
+    }
+
+    private JsonNode createBooking() throws Exception {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setRoomId(1L);
+        request.setStartDate(LocalDate.now().plusDays(1));
+        request.setEndDate(LocalDate.now().plusDays(3));
+
+        ResponseEntity<String> response = restTemplate.postForEntity(
+            baseUrl + "/api/booking", new HttpEntity<>(request, headers), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return objectMapper.readTree(response.getBody());
+    }
+}
@@ -0,0 +1,139 @@
+package ru.vspochernin.booking_service.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.vspochernin.booking_service.dto.AuthRequest;
+import ru.vspochernin.booking_service.dto.CreateBookingRequest;
+import ru.vspochernin.booking_service.dto.RoomOperationRequest;
+import ru.vspochernin.booking_service.dto.TokenResponse;
+import ru.vspochernin.booking_service.entity.OutboxMessage;
+import ru.vspochernin.booking_service.repository.OutboxMessageRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "booking.saga.mode=outbox",
+        "booking.outbox.poll-interval-ms=50",
+        "booking.outbox.retry-delay-ms=50",
+        "booking.outbox.max-attempts=2"
+    })
+@ActiveProfiles("test")
+class OutboxBookingIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OutboxMessageRepository outboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String baseUrl;
+    private String userToken;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port;
+
+        AuthRequest authRequest = new AuthRequest("testuser", "testpass");
+        ResponseEntity<TokenResponse> response = restTemplate.postForEntity(
+            baseUrl + "/api/user/auth", authRequest, TokenResponse.class);
+        userToken = response.getBody().getToken();
+    }
+
+    @Test
+    void testOutboxBookingIsRelayedAndCancelledAfterMaxAttempts() throws Exception {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setRoomId(1L);
+        request.setStartDate(LocalDate.now().plusDays(1));
+        request.setEndDate(LocalDate.now().plusDays(5));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(userToken);
+
+        // Сразу получаем 202 и бронирование в статусе PENDING
+        ResponseEntity<String> accepted = restTemplate.postForEntity(
+            baseUrl + "/api/booking", new HttpEntity<>(request, headers), String.class);
+        assertEquals(HttpStatus.ACCEPTED, accepted.getStatusCode());
+        JsonNode pending = objectMapper.readTree(accepted.getBody());
+        assertEquals("PENDING", pending.get("status").asText());
+        assertNotNull(accepted.getHeaders().getLocation());
+        long bookingId = pending.get("id").asLong();
+
+        // Ретранслятор исчерпывает попытки доставки CONFIRM и отменяет бронирование
+        ResponseEntity<String> completed = restTemplate.exchange(
+            baseUrl + accepted.getHeaders().getLocation() + "?waitSeconds=20",
+            HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, completed.getStatusCode());
+        assertEquals("CANCELLED", objectMapper.readTree(completed.getBody()).get("status").asText());
+
+        // Неудачная команда CONFIRM сохранена в outbox с последней ошибкой
+        assertTrue(outboxRepository.findAll().stream()
+            .anyMatch(message -> message.getBookingId() == bookingId
+                && message.getType() == RoomOperationRequest.Type.CONFIRM
+                && message.getStatus() == OutboxMessage.Status.FAILED
+                && message.getLastError() != null));
+
+        // Шаги саги записаны: первым идёт неудачное подтверждение
+        ResponseEntity<String> steps = restTemplate.exchange(
+            baseUrl + accepted.getHeaders().getLocation() + "/steps",
+            HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        JsonNode stepList = objectMapper.readTree(steps.getBody());
+        assertEquals("CONFIRM", stepList.get(0).get("step").asText());
+        assertEquals("FAILED", stepList.get(0).get("outcome").asText());
+    }
+
+    @Test
+    void testClaimedMessagesAreNotClaimedAgain() {
+        // Срок доставки в будущем: ретранслятор этого контекста сообщения не видит, время захвата задаёт тест
+        LocalDateTime due = LocalDateTime.now().plusHours(1);
+        List<Long> ids = outboxRepository.saveAll(List.of(message(due), message(due))).stream()
+            .map(OutboxMessage::getId)
+            .toList();
+        LocalDateTime now = due.plusMinutes(1);
+
+        // Первый экземпляр захватывает пачку на срок аренды, второй с тем же временем не получает ничего
+        assertEquals(2, claim(ids, "instance-a", now, now.plusSeconds(30)));
+        assertEquals(0, claim(ids, "instance-b", now, now.plusSeconds(30)));
+        assertEquals(ids, outboxRepository.findByClaimedByOrderByIdAsc("instance-a").stream()
+            .map(OutboxMessage::getId)
+            .toList());
+
+        // По окончании аренды необработанные сообщения забирает другой экземпляр
+        assertEquals(2, claim(ids, "instance-b", now.plusSeconds(31), now.plusSeconds(61)));
+        outboxRepository.deleteAllById(ids);
+    }
+
+    private int claim(List<Long> ids, String claim, LocalDateTime now, LocalDateTime leaseUntil) {
+        return transactionTemplate.execute(status ->
+            outboxRepository.claim(ids, claim, leaseUntil, OutboxMessage.Status.PENDING, now));
+    }
+
+    private static OutboxMessage message(LocalDateTime nextAttemptAt) {
+        return new OutboxMessage(null, 0L, RoomOperationRequest.Type.RELEASE, 1L, UUID.randomUUID().toString(),
+            null, null, OutboxMessage.Status.PENDING, 0, nextAttemptAt, null, LocalDateTime.now(), null);
+    }
+}
@@ -0,0 +1,114 @@
+package ru.vspochernin.booking_service.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.*;
+import org.springframework.test.context.ActiveProfiles;
+import ru.vspochernin.booking_service.dto.AuthRequest;
+import ru.vspochernin.booking_service.dto.CreateBookingRequest;
+import ru.vspochernin.booking_service.dto.TokenResponse;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {"spring.threads.virtual.enabled=true", "booking.retry.max-attempts=1"})
+@ActiveProfiles("test")
+class VirtualThreadBookingIntegrationTest {
+
+    private static final int CONCURRENT_BOOKINGS = 40;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String baseUrl;
+    private String userToken;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port;
+
+        AuthRequest authRequest = new AuthRequest("testuser", "testpass");
+        ResponseEntity<TokenResponse> response = restTemplate.postForEntity(
+            baseUrl + "/api/user/auth", authRequest, TokenResponse.class);
+        userToken = response.getBody().getToken();
+    }
+
+    @Test
+    void testConcurrentBookingsDoNotPinVirtualThreads() throws Exception {
+        List<String> pinnedStacks = new CopyOnWriteArrayList<>();
+
+        try (RecordingStream recording = new RecordingStream()) {
+            // Любая блокировка виртуального потока внутри synchronized на пути бронирования
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinnedStacks.add(describe(event)));
+            recording.startAsync();
+
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<String>> statuses = new ArrayList<>();
+                for (int i = 0; i < CONCURRENT_BOOKINGS; i++) {
+                    long roomId = i + 1;
+                    statuses.add(clients.submit(() -> book(roomId)));
+                }
+                for (Future<String> status : statuses) {
+                    // hotel-service в тестах недоступен - каждая сага завершается компенсацией
+                    assertEquals("CANCELLED", status.get());
+                }
+            }
+
+            recording.stop();
+        }
+
+        assertTrue(pinnedStacks.isEmpty(), "Virtual threads pinned on the booking path:\n"
+            + String.join("\n---\n", pinnedStacks));
+    }
+
+    private String book(long roomId) throws Exception {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setRoomId(roomId);
+        request.setStartDate(LocalDate.now().plusDays(1));
+        request.setEndDate(LocalDate.now().plusDays(3));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(userToken);
+
+        ResponseEntity<String> response = restTemplate.postForEntity(
+            baseUrl + "/api/booking", new HttpEntity<>(request, headers), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return objectMapper.readTree(response.getBody()).get("status").asText();
+    }
+
+    private String describe(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return event.getThread() + " pinned for " + event.getDuration();
+        }
+        StringBuilder stack = new StringBuilder(event.getDuration().toString());
+        event.getStackTrace().getFrames().stream()
+            .limit(20)
+            .forEach(frame -> stack.append("\n  at ").append(frame.getMethod().getType().getName())
+                .append('.').append(frame.getMethod().getName()));
+        return stack.toString();
+    }
+}
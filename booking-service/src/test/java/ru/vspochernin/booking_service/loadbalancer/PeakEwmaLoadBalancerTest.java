@@ -0,0 +1,78 @@
+package ru.vspochernin.booking_service.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import reactor.core.publisher.Flux;
+import ru.vspochernin.booking_service.client.HotelServiceClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PeakEwmaLoadBalancerTest {
+
+    private static final String SERVICE_ID = "hotel-service";
+
+    @Test
+    void testHedgedAttemptGoesToAnotherInstance() {
+        List<ServiceInstance> instances = List.of(instance("hotel-1"), instance("hotel-2"), instance("hotel-3"));
+        PeakEwmaLoadBalancer loadBalancer = loadBalancer(instances);
+
+        for (int i = 0; i < 50; i++) {
+            String requestId = "req-" + i;
+            ServiceInstance primary = choose(loadBalancer, requestId, 1);
+            ServiceInstance hedge = choose(loadBalancer, requestId, 2);
+            assertNotEquals(primary.getHost(), hedge.getHost(), "hedge of " + requestId + " hit the same instance");
+        }
+    }
+
+    @Test
+    void testHedgedAttemptWithSingleInstanceFallsBackToIt() {
+        ServiceInstance only = instance("hotel-1");
+        PeakEwmaLoadBalancer loadBalancer = loadBalancer(List.of(only));
+
+        assertEquals(only.getHost(), choose(loadBalancer, "req-1", 1).getHost());
+        assertEquals(only.getHost(), choose(loadBalancer, "req-1", 2).getHost());
+    }
+
+    private static ServiceInstance choose(PeakEwmaLoadBalancer loadBalancer, String requestId, int attempt) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Request-Id", requestId);
+        headers.set(HotelServiceClient.HEDGE_ATTEMPT_HEADER, Integer.toString(attempt));
+        RequestData requestData = new RequestData(HttpMethod.POST, URI.create("http://" + SERVICE_ID + "/api/rooms/1/confirm-availability"),
+            headers, new HttpHeaders(), Map.of());
+        return loadBalancer.choose(new DefaultRequest<>(new RequestDataContext(requestData))).block().getServer();
+    }
+
+    private static PeakEwmaLoadBalancer loadBalancer(List<ServiceInstance> instances) {
+        ServiceInstanceListSupplier supplier = new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return SERVICE_ID;
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(instances);
+            }
+        };
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("supplier", supplier));
+        return new PeakEwmaLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class), SERVICE_ID,
+            Duration.ofSeconds(10), Duration.ofSeconds(1), Duration.ofSeconds(60));
+    }
+
+    private static ServiceInstance instance(String host) {
+        return new DefaultServiceInstance(host + ":8081", SERVICE_ID, host, 8081, false);
+    }
+}
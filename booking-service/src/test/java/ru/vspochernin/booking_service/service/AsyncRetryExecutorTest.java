@@ -0,0 +1,199 @@
+package ru.vspochernin.booking_service.service;
+
+import feign.FeignException;
+import feign.Request;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.vspochernin.booking_service.exception.HotelServiceUnavailableException;
+import ru.vspochernin.booking_service.exception.RetryExhaustedException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Нулевая начальная задержка: повторы планируются сразу, тесты не зависят от времени
+class AsyncRetryExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AsyncRetryExecutor executor;
+
+    @AfterEach
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testBackoffGrowsExponentiallyUpToMaxDelay() {
+        executor = new AsyncRetryExecutor(meterRegistry, 6, 100, 2.0, 500, 1, 50, 0.2, false);
+
+        assertEquals(100, executor.maxBackoffDelay(1));
+        assertEquals(200, executor.maxBackoffDelay(2));
+        assertEquals(400, executor.maxBackoffDelay(3));
+        assertEquals(500, executor.maxBackoffDelay(4));
+        assertEquals(500, executor.maxBackoffDelay(5));
+
+        // Equal jitter: задержка между половиной границы и самой границей
+        for (int attempt = 1; attempt <= 5; attempt++) {
+            long max = executor.maxBackoffDelay(attempt);
+            for (int i = 0; i < 100; i++) {
+                long delay = executor.backoffDelay(attempt);
+                assertTrue(delay >= max / 2 && delay <= max, "attempt " + attempt + ": " + delay);
+            }
+        }
+    }
+
+    @Test
+    void testTransientFailuresAreRetriedUntilSuccess() {
+        executor = new AsyncRetryExecutor(meterRegistry, 3, 0, 2.0, 0, 1, 50, 0.2, false);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute("confirm", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IllegalStateException("read timed out");
+            }
+            return "confirmed";
+        }).join();
+
+        assertEquals("confirmed", result);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void testAsyncFailuresAreRetriedUntilSuccess() {
+        executor = new AsyncRetryExecutor(meterRegistry, 3, 0, 2.0, 0, 1, 50, 0.2, false);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.executeAsync("confirm", () -> calls.incrementAndGet() < 3
+                ? CompletableFuture.<String>supplyAsync(() -> {
+                    throw new IllegalStateException("read timed out");
+                })
+                : CompletableFuture.supplyAsync(() -> "confirmed")).join();
+
+        assertEquals("confirmed", result);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void testPendingAttemptDoesNotHoldWorker() {
+        executor = new AsyncRetryExecutor(meterRegistry, 3, 0, 2.0, 0, 1, 50, 0.2, false);
+        CompletableFuture<String> batchResponse = new CompletableFuture<>();
+
+        // Единственный воркер не ждёт ответа первой операции и выполняет вторую
+        CompletableFuture<String> pending = executor.executeAsync("confirm", () -> batchResponse);
+        assertEquals("released", executor.execute("release", () -> "released").join());
+        assertFalse(pending.isDone());
+
+        batchResponse.complete("confirmed");
+        assertEquals("confirmed", pending.join());
+    }
+
+    @Test
+    void testRetryExhaustedAfterMaxAttempts() {
+        executor = new AsyncRetryExecutor(meterRegistry, 3, 0, 2.0, 0, 1, 50, 0.2, false);
+        AtomicInteger calls = new AtomicInteger();
+
+        Throwable error = failure(executor.run("confirm", () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("read timed out");
+        }));
+
+        assertInstanceOf(RetryExhaustedException.class, error);
+        assertEquals(3, calls.get());
+        assertEquals(1.0, meterRegistry.counter("booking.retry.exhausted", "operation", "confirm").count());
+    }
+
+    @Test
+    void testClientErrorsAreNotRetried() {
+        executor = new AsyncRetryExecutor(meterRegistry, 3, 0, 2.0, 0, 1, 50, 0.2, false);
+        AtomicInteger calls = new AtomicInteger();
+        FeignException conflict = new FeignException.Conflict("conflict", request(), null, Map.of());
+
+        Throwable error = failure(executor.run("confirm", () -> {
+            calls.incrementAndGet();
+            throw conflict;
+        }));
+
+        assertSame(conflict, error);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testRejectedCallsAreNotRetried() {
+        executor = new AsyncRetryExecutor(meterRegistry, 3, 0, 2.0, 0, 1, 50, 0.2, false);
+        AtomicInteger calls = new AtomicInteger();
+        HotelServiceUnavailableException rejected = new HotelServiceUnavailableException(
+                "confirmAvailability", HotelServiceUnavailableException.CIRCUIT_OPEN);
+
+        Throwable error = failure(executor.run("confirm", () -> {
+            calls.incrementAndGet();
+            throw rejected;
+        }));
+
+        assertSame(rejected, error);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testEmptyBudgetStopsRetries() {
+        // Бюджет на один повтор, операции его не пополняют
+        executor = new AsyncRetryExecutor(meterRegistry, 3, 0, 2.0, 0, 1, 1, 0.0, false);
+        AtomicInteger calls = new AtomicInteger();
+
+        Throwable error = failure(executor.run("confirm", () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("read timed out");
+        }));
+
+        assertInstanceOf(RetryExhaustedException.class, error);
+        assertTrue(error.getMessage().startsWith("Retry budget exhausted"));
+        assertEquals(2, calls.get());
+        assertEquals(1.0, meterRegistry.counter("booking.retry.budget.rejected").count());
+    }
+
+    @Test
+    void testBudgetIsRefilledByNewOperations() {
+        // Каждая операция добавляет половину повтора, в бюджете не больше одного
+        executor = new AsyncRetryExecutor(meterRegistry, 2, 0, 2.0, 0, 1, 1, 0.5, false);
+        AtomicInteger calls = new AtomicInteger();
+        Runnable failing = () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("read timed out");
+        };
+
+        // Первая операция тратит весь бюджет на свой повтор
+        failure(executor.run("confirm", failing));
+        assertEquals(2, calls.get());
+        assertEquals(0.0, budgetRemaining());
+
+        // Вторая пополняет бюджет на половину повтора - повторить нельзя
+        failure(executor.run("confirm", failing));
+        assertEquals(3, calls.get());
+        assertEquals(0.5, budgetRemaining());
+
+        // Третья доводит бюджет до целого повтора
+        failure(executor.run("confirm", failing));
+        assertEquals(5, calls.get());
+        assertEquals(0.0, budgetRemaining());
+    }
+
+    private double budgetRemaining() {
+        return meterRegistry.get("booking.retry.budget.remaining").gauge().value();
+    }
+
+    private static Throwable failure(CompletableFuture<?> future) {
+        CompletionException error = assertThrows(CompletionException.class, future::join);
+        return error.getCause();
+    }
+
+    private static Request request() {
+        return Request.create(Request.HttpMethod.POST, "http://hotel-service/api/rooms/1/confirm-availability",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+    }
+}
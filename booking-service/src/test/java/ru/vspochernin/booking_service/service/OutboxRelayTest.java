@@ -0,0 +1,124 @@
+package ru.vspochernin.booking_service.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.vspochernin.booking_service.client.HotelServiceClient;
+import ru.vspochernin.booking_service.dto.RoomOperationRequest;
+import ru.vspochernin.booking_service.dto.RoomOperationResult;
+import ru.vspochernin.booking_service.entity.OutboxMessage;
+import ru.vspochernin.booking_service.repository.OutboxMessageRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboxRelayTest {
+
+    private final Map<Long, OutboxMessage> saved = new ConcurrentHashMap<>();
+    private OutboxRelay relay;
+
+    @AfterEach
+    void shutdown() {
+        if (relay != null) {
+            relay.shutdown();
+        }
+    }
+
+    @Test
+    void testShortBatchResponseCountsAnAttempt() {
+        List<OutboxMessage> messages = List.of(message(1L), message(2L));
+        relay = relay(messages, () -> List.of(new RoomOperationResult(RoomOperationRequest.Type.RELEASE, 1L, "request-1", true, null)));
+
+        assertEquals(2, relay.relayBatch());
+
+        // Позиционное сопоставление невозможно: обе команды получают неудачную попытку и отложены
+        assertEquals(2, saved.size());
+        saved.values().forEach(message -> {
+            assertEquals(1, message.getAttempts());
+            assertEquals("missing result", message.getLastError());
+            assertTrue(message.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        });
+    }
+
+    @Test
+    void testMissingResultsCountAnAttempt() {
+        relay = relay(List.of(message(1L)), () -> null);
+        assertEquals(1, relay.relayBatch());
+        assertEquals("missing result", saved.get(1L).getLastError());
+
+        saved.clear();
+        relay.shutdown();
+        relay = relay(List.of(message(2L)), () -> Arrays.asList((RoomOperationResult) null));
+        assertEquals(1, relay.relayBatch());
+        assertEquals(1, saved.get(2L).getAttempts());
+    }
+
+    private OutboxRelay relay(List<OutboxMessage> messages, Supplier<List<RoomOperationResult>> results) {
+        return new OutboxRelay(outboxRepository(messages), null, null, hotelServiceClient(results),
+                new TransactionTemplate(new NoOpTransactionManager()), 100, 1, 5, 1000, Duration.ofSeconds(30), false);
+    }
+
+    private OutboxMessageRepository outboxRepository(List<OutboxMessage> messages) {
+        return (OutboxMessageRepository) Proxy.newProxyInstance(OutboxMessageRepository.class.getClassLoader(),
+            new Class<?>[]{OutboxMessageRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                case "findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc", "findByClaimedByOrderByIdAsc" ->
+                    new ArrayList<>(messages);
+                case "claim" -> messages.size();
+                case "save" -> {
+                    OutboxMessage message = (OutboxMessage) args[0];
+                    saved.put(message.getId(), message);
+                    yield message;
+                }
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    private static HotelServiceClient hotelServiceClient(Supplier<List<RoomOperationResult>> results) {
+        return (HotelServiceClient) Proxy.newProxyInstance(HotelServiceClient.class.getClassLoader(),
+            new Class<?>[]{HotelServiceClient.class}, (proxy, method, args) -> {
+                if (method.getName().equals("executeBatch")) {
+                    return results.get();
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    private static OutboxMessage message(Long id) {
+        LocalDateTime now = LocalDateTime.now();
+        return new OutboxMessage(id, id, RoomOperationRequest.Type.RELEASE, 1L, "request-" + id,
+            null, null, OutboxMessage.Status.PENDING, 0, now, null, now, "claim");
+    }
+
+    // Транзакции ретранслятора в тесте не нужны: репозиторий - заглушка в памяти
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
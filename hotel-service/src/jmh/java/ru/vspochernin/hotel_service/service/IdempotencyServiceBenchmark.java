@@ -0,0 +1,57 @@
+package ru.vspochernin.hotel_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Проверки идемпотентности под конкуренцией: читатели и писатель работают с одним кэшем
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class IdempotencyServiceBenchmark {
+
+    private static final int PROCESSED_KEYS = 10_000;
+
+    private IdempotencyService idempotencyService;
+    private final AtomicLong nextKey = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        idempotencyService = new IdempotencyService(null, new SimpleMeterRegistry(), Duration.ofHours(24), 100_000, false);
+        for (int i = 0; i < PROCESSED_KEYS; i++) {
+            idempotencyService.markAsProcessed("processed-" + i);
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public boolean isProcessed() {
+        return idempotencyService.isProcessed("processed-" + ThreadLocalRandom.current().nextInt(PROCESSED_KEYS));
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void markAsProcessed() {
+        idempotencyService.markAsProcessed("new-" + nextKey.incrementAndGet());
+    }
+}
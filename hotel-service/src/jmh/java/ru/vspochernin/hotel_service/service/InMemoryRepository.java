@@ -0,0 +1,28 @@
+package ru.vspochernin.hotel_service.service;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+// Репозиторий в памяти для бенчмарков: реализованы только переданные методы,
+// остальные вызовы сигнализируют, что бенчмарк вышел за пределы подготовленных данных
+final class InMemoryRepository {
+
+    private InMemoryRepository() {
+    }
+
+    static <R> R create(Class<R> type, Map<String, Function<Object[], Object>> methods) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> handler = methods.get(method.getName());
+            if (handler != null) {
+                return handler.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> type.getSimpleName() + " (in-memory)";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            };
+        }));
+    }
+}
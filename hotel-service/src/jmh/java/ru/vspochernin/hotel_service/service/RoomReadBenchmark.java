@@ -0,0 +1,112 @@
+package ru.vspochernin.hotel_service.service;
+
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.vspochernin.hotel_service.HotelServiceApplication;
+import ru.vspochernin.hotel_service.dto.RoomDto;
+import ru.vspochernin.hotel_service.entity.Hotel;
+import ru.vspochernin.hotel_service.entity.Room;
+import ru.vspochernin.hotel_service.repository.HotelRepository;
+import ru.vspochernin.hotel_service.repository.RoomRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Чтение списка номеров из H2 через Hibernate: entities - управляемые сущности со снимками и прокси отеля,
+// затем копирование в RoomDto (прежний путь), projection - конструктор RoomDto прямо в JPQL (RoomService).
+// all - весь список доступных номеров, page - страница keyset-пагинации
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RoomReadBenchmark {
+
+    private static final String AVAILABLE_ROOMS = "SELECT r FROM Room r WHERE r.available = true";
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"10000"})
+    private int rooms;
+
+    private ConfigurableApplicationContext context;
+    private RoomService roomService;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnlyTransaction;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(HotelServiceApplication.class)
+                .properties("server.port=0",
+                        "eureka.client.enabled=false",
+                        "spring.datasource.url=jdbc:h2:mem:room-read-benchmark;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN")
+                .run();
+        roomService = context.getBean(RoomService.class);
+        entityManager = context.getBean(EntityManager.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        Hotel hotel = context.getBean(HotelRepository.class).save(new Hotel(null, "Benchmark Hotel", "Benchmark Address", null));
+        List<Room> batch = new ArrayList<>();
+        for (int i = 0; i < rooms; i++) {
+            batch.add(new Room(null, hotel, String.valueOf(1000 + i), true, i % 7));
+        }
+        context.getBean(RoomRepository.class).saveAll(batch);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<RoomDto> allEntities() {
+        return readOnlyTransaction.execute(status -> toDtos(
+                entityManager.createQuery(AVAILABLE_ROOMS, Room.class).getResultList()));
+    }
+
+    @Benchmark
+    public List<RoomDto> allProjection() {
+        return roomService.getAllAvailableRooms();
+    }
+
+    @Benchmark
+    public List<RoomDto> pageEntities() {
+        return readOnlyTransaction.execute(status -> toDtos(
+                entityManager.createQuery(AVAILABLE_ROOMS + " AND r.id > :afterId ORDER BY r.id ASC", Room.class)
+                        .setParameter("afterId", 0L)
+                        .setMaxResults(PAGE_SIZE)
+                        .getResultList()));
+    }
+
+    @Benchmark
+    public List<RoomDto> pageProjection() {
+        return roomService.getAvailableRooms(0, PAGE_SIZE);
+    }
+
+    private static List<RoomDto> toDtos(List<Room> entities) {
+        List<RoomDto> dtos = new ArrayList<>(entities.size());
+        for (Room room : entities) {
+            dtos.add(new RoomDto(room.getId(), room.getHotel().getId(), room.getNumber(),
+                    room.getAvailable(), room.getTimesBooked()));
+        }
+        return dtos;
+    }
+}
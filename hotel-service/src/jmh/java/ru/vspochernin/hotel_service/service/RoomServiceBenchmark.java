@@ -0,0 +1,111 @@
+package ru.vspochernin.hotel_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.vspochernin.hotel_service.dto.AvailabilityRequest;
+import ru.vspochernin.hotel_service.entity.Hotel;
+import ru.vspochernin.hotel_service.entity.Room;
+import ru.vspochernin.hotel_service.entity.RoomHold;
+import ru.vspochernin.hotel_service.repository.RoomHoldRepository;
+import ru.vspochernin.hotel_service.repository.RoomRepository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Подтверждение доступности номера поверх репозиториев в памяти: измеряется только логика сервиса.
+// Чтение списков номеров из БД - RoomReadBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RoomServiceBenchmark {
+
+    private static final int ROOMS = 64;
+
+    private RoomService roomService;
+    private final AtomicLong nextRequest = new AtomicLong();
+    private final AvailabilityRequest dates = new AvailabilityRequest(LocalDate.now().plusDays(1), LocalDate.now().plusDays(3));
+
+    @Setup
+    public void setUp() {
+        Hotel hotel = new Hotel(1L, "Benchmark Hotel", "Benchmark Address", new ArrayList<>());
+        Map<Long, Room> rooms = new ConcurrentHashMap<>();
+        for (long id = 1; id <= ROOMS; id++) {
+            rooms.put(id, new Room(id, hotel, String.valueOf(100 + id), true, 0));
+        }
+
+        Map<String, RoomHold> holds = new ConcurrentHashMap<>();
+        RoomRepository roomRepository = InMemoryRepository.create(RoomRepository.class, Map.of(
+                "findById", args -> Optional.ofNullable(rooms.get((Long) args[0]))));
+        RoomHoldRepository roomHoldRepository = InMemoryRepository.create(RoomHoldRepository.class, Map.of(
+                "findByRequestId", args -> Optional.ofNullable(holds.get((String) args[0])),
+                "save", args -> {
+                    RoomHold hold = (RoomHold) args[0];
+                    holds.put(hold.getRequestId(), hold);
+                    return hold;
+                },
+                "deleteByRoomIdAndRequestId", args -> {
+                    RoomHold hold = holds.get((String) args[1]);
+                    return hold != null && hold.getRoomId().equals(args[0]) && holds.remove((String) args[1], hold) ? 1 : 0;
+                }));
+
+        IdempotencyService idempotencyService = new IdempotencyService(null, new SimpleMeterRegistry(),
+                Duration.ofHours(24), 100_000, false);
+        roomService = new RoomService(roomRepository, null, roomHoldRepository, idempotencyService,
+                new RoomAvailabilityIndex(roomHoldRepository), new RoomRankingIndex(roomRepository), null,
+                new SimpleMeterRegistry(), TransactionOperations.withoutTransaction());
+
+        roomService.confirmAvailability(1L, "replayed-request", dates);
+    }
+
+    // Удержание и освобождение дат: индекс номера остаётся в устойчивом состоянии.
+    // У каждого потока свой номер, чтобы измерять путь сервиса, а не отказы из-за пересечений
+    @Benchmark
+    @Threads(4)
+    public boolean confirmAndRelease(ThreadRoom threadRoom) {
+        String requestId = "request-" + nextRequest.incrementAndGet();
+        boolean confirmed = roomService.confirmAvailability(threadRoom.roomId, requestId, dates);
+        roomService.releaseSlot(threadRoom.roomId, requestId);
+        return confirmed;
+    }
+
+    // Повтор уже обработанного запроса обслуживается кэшем идемпотентности
+    @Benchmark
+    @Threads(4)
+    public boolean confirmReplay() {
+        return roomService.confirmAvailability(1L, "replayed-request", dates);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadRoom {
+
+        private static final AtomicInteger NEXT_ROOM = new AtomicInteger(2);
+
+        private long roomId;
+
+        @Setup
+        public void setUp() {
+            roomId = NEXT_ROOM.getAndIncrement();
+        }
+    }
+}
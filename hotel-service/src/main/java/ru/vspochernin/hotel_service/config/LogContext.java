@@ -0,0 +1,37 @@
+package ru.vspochernin.hotel_service.config;
+
+import org.slf4j.MDC;
+
+// Ключ MDC для связи строк лога с сагой бронирования: booking-service передаёт
+// свой requestId в заголовке X-Request-Id, в пакетных операциях - в теле запроса
+public final class LogContext {
+
+    public static final String REQUEST_ID = "requestId";
+
+    private LogContext() {
+    }
+
+    public static void put(String requestId) {
+        MDC.put(REQUEST_ID, requestId);
+    }
+
+    public static void clear() {
+        MDC.remove(REQUEST_ID);
+    }
+
+    // Подменяет requestId на время вложенной операции; прежнее значение возвращается через restore,
+    // чтобы не стереть контекст запроса, выставленный RequestIdFilter
+    public static String replace(String requestId) {
+        String previous = MDC.get(REQUEST_ID);
+        MDC.put(REQUEST_ID, requestId);
+        return previous;
+    }
+
+    public static void restore(String previous) {
+        if (previous == null) {
+            MDC.remove(REQUEST_ID);
+        } else {
+            MDC.put(REQUEST_ID, previous);
+        }
+    }
+}
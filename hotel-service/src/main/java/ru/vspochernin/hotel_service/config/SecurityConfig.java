@@ -11,6 +11,7 @@ import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
 
 import javax.crypto.SecretKey;
@@ -25,8 +26,23 @@ public class SecurityConfig {
     @Value("${security.jwt.secret}")
     private String jwtSecret;
 
+    @Value("${security.trusted-claims.enabled:true}")
+    private boolean trustedClaimsEnabled;
+
+    @Value("${security.trusted-claims.secret:}")
+    private String trustedClaimsSecret;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+        if (trustedClaimsEnabled) {
+            // Ключ подписи заголовков отдельный от ключа JWT и совпадает с ключом шлюза
+            if (trustedClaimsSecret.isBlank() || trustedClaimsSecret.equals(jwtSecret)) {
+                throw new IllegalStateException("security.trusted-claims.secret must be set and differ from security.jwt.secret");
+            }
+            // Запросы через шлюз приходят с уже проверенными claims
+            http.addFilterBefore(new TrustedClaimsFilter(trustedClaimsSecret, jwtAuthenticationConverter()),
+                BearerTokenAuthenticationFilter.class);
+        }
         http
             .csrf(AbstractHttpConfigurer::disable)
             .authorizeHttpRequests(authz -> authz
@@ -35,6 +51,8 @@ public class SecurityConfig {
                 .requestMatchers("/api/rooms/*/confirm-availability").permitAll()
                 .requestMatchers("/api/rooms/*/release").permitAll()
                 .requestMatchers("/api/rooms/*/increment-bookings").permitAll()
+                .requestMatchers("/api/rooms/batch").permitAll()
+                .requestMatchers("/api/rooms/candidates").permitAll()
                 .anyRequest().authenticated()
             )
             .oauth2ResourceServer(oauth2 -> oauth2
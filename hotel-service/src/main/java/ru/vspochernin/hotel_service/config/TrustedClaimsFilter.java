@@ -0,0 +1,127 @@
+package ru.vspochernin.hotel_service.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+
+// Принимает claims, которые шлюз проверил и передал подписанными заголовками X-Auth-*,
+// вместо повторного разбора JWT. Без заголовков или с неверной подписью запрос
+// проходит дальше к обычной проверке Bearer-токена. Имя пользователя приходит в Base64url от UTF-8
+public class TrustedClaimsFilter extends OncePerRequestFilter {
+
+    static final String SUBJECT_HEADER = "X-Auth-Subject";
+    static final String ROLE_HEADER = "X-Auth-Role";
+    static final String USER_ID_HEADER = "X-Auth-User-Id";
+    static final String EXPIRES_HEADER = "X-Auth-Expires";
+    static final String SIGNATURE_HEADER = "X-Auth-Signature";
+
+    private final Mac prototype;
+    private final JwtAuthenticationConverter authenticationConverter;
+    // Контекст сохраняется в атрибуте запроса и для асинхронной отправки ответа
+    private final SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
+
+    public TrustedClaimsFilter(String secret, JwtAuthenticationConverter authenticationConverter) {
+        this.authenticationConverter = authenticationConverter;
+        try {
+            this.prototype = Mac.getInstance("HmacSHA256");
+            this.prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String signature = request.getHeader(SIGNATURE_HEADER);
+        if (signature != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            Jwt jwt = verify(request, signature);
+            if (jwt != null) {
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authenticationConverter.convert(jwt));
+                SecurityContextHolder.setContext(context);
+                securityContextRepository.saveContext(context, request, response);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private Jwt verify(HttpServletRequest request, String signature) {
+        String encodedSubject = request.getHeader(SUBJECT_HEADER);
+        String role = request.getHeader(ROLE_HEADER);
+        String userId = request.getHeader(USER_ID_HEADER);
+        String expires = request.getHeader(EXPIRES_HEADER);
+        if (encodedSubject == null || expires == null) {
+            return null;
+        }
+
+        String payload = encodedSubject + "\n" + nullToEmpty(role) + "\n" + nullToEmpty(userId) + "\n" + expires;
+        byte[] expected;
+        try {
+            expected = ((Mac) prototype.clone()).doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("HmacSHA256 does not support cloning", e);
+        }
+        byte[] actual;
+        try {
+            actual = Base64.getUrlDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            logger.warn("Rejected trusted claims with invalid signature for subject " + encodedSubject);
+            return null;
+        }
+
+        String subject;
+        try {
+            subject = new String(Base64.getUrlDecoder().decode(encodedSubject), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        Instant expiresAt;
+        try {
+            expiresAt = Instant.ofEpochSecond(Long.parseLong(expires));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (!expiresAt.isAfter(Instant.now())) {
+            return null;
+        }
+
+        Jwt.Builder jwt = Jwt.withTokenValue(signature)
+                .header("alg", "HS256")
+                .subject(subject)
+                .claim("username", subject)
+                .expiresAt(expiresAt);
+        if (role != null) {
+            jwt.claim("role", role);
+        }
+        if (userId != null) {
+            jwt.claim("userId", Long.valueOf(userId));
+        }
+        return jwt.build();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
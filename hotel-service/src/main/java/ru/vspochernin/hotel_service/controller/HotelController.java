@@ -4,9 +4,11 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.vspochernin.hotel_service.dto.CreateHotelRequest;
 import ru.vspochernin.hotel_service.dto.HotelDto;
 import ru.vspochernin.hotel_service.service.HotelService;
@@ -30,15 +32,28 @@ public class HotelController {
     }
 
     @GetMapping
-    public ResponseEntity<List<HotelDto>> getAllHotels() {
-        log.info("Retrieving all hotels");
-        List<HotelDto> hotels = hotelService.getAllHotels();
-        return ResponseEntity.ok(hotels);
+    public ResponseEntity<List<HotelDto>> getAllHotels(@RequestParam(required = false) Long after,
+                                                       @RequestParam(required = false) Integer limit) {
+        log.debug("Retrieving all hotels");
+        if (!KeysetPage.isRequested(after, limit)) {
+            return ResponseEntity.ok(hotelService.getAllHotels());
+        }
+        int pageSize = KeysetPage.limit(limit);
+        return KeysetPage.response(hotelService.getHotels(KeysetPage.after(after), pageSize), pageSize, HotelDto::getId);
+    }
+
+    // Потоковая выдача: JSON пишется по мере чтения строк, память не растёт с числом отелей
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamHotels() {
+        log.debug("Streaming all hotels");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(hotelService::streamHotels);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<HotelDto> getHotelById(@PathVariable Long id) {
-        log.info("Retrieving hotel by ID: {}", id);
+        log.debug("Retrieving hotel by ID: {}", id);
         HotelDto hotel = hotelService.getHotelById(id);
         return ResponseEntity.ok(hotel);
     }
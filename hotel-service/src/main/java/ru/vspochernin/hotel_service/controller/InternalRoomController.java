@@ -1,11 +1,20 @@
 package ru.vspochernin.hotel_service.controller;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.vspochernin.hotel_service.dto.AvailabilityRequest;
+import ru.vspochernin.hotel_service.dto.RoomDto;
+import ru.vspochernin.hotel_service.dto.RoomOperationRequest;
+import ru.vspochernin.hotel_service.dto.RoomOperationResult;
 import ru.vspochernin.hotel_service.service.RoomService;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/rooms")
 @RequiredArgsConstructor
@@ -17,17 +26,18 @@ public class InternalRoomController {
     @PostMapping("/{id}/confirm-availability")
     public ResponseEntity<Boolean> confirmAvailability(
             @PathVariable Long id,
-            @RequestHeader("X-Request-Id") String requestId) {
+            @RequestHeader("X-Request-Id") String requestId,
+            @RequestBody(required = false) AvailabilityRequest dates) {
 
-        log.info("Internal endpoint: confirming availability for room ID: {} with requestId: {}", id, requestId);
+        log.debug("Internal endpoint: confirming availability for room ID: {} with requestId: {}", id, requestId);
 
-        boolean confirmed = roomService.confirmAvailability(id, requestId);
+        boolean confirmed = roomService.confirmAvailability(id, requestId, dates);
 
         if (confirmed) {
-            log.info("Room {} availability confirmed for requestId: {}", id, requestId);
+            log.debug("Room {} availability confirmed for requestId: {}", id, requestId);
             return ResponseEntity.ok(true);
         } else {
-            log.warn("Room {} availability denied for requestId: {}", id, requestId);
+            log.debug("Room {} availability denied for requestId: {}", id, requestId);
             return ResponseEntity.ok(false);
         }
     }
@@ -37,11 +47,11 @@ public class InternalRoomController {
             @PathVariable Long id,
             @RequestHeader("X-Request-Id") String requestId) {
 
-        log.info("Internal endpoint: releasing slot for room ID: {} with requestId: {}", id, requestId);
+        log.debug("Internal endpoint: releasing slot for room ID: {} with requestId: {}", id, requestId);
 
         roomService.releaseSlot(id, requestId);
 
-        log.info("Slot released for room {} with requestId: {}", id, requestId);
+        log.debug("Slot released for room {} with requestId: {}", id, requestId);
         return ResponseEntity.ok().build();
     }
 
@@ -50,11 +60,33 @@ public class InternalRoomController {
             @PathVariable Long id,
             @RequestHeader("X-Request-Id") String requestId) {
 
-        log.info("Internal endpoint: incrementing times booked for room ID: {} with requestId: {}", id, requestId);
+        log.debug("Internal endpoint: incrementing times booked for room ID: {} with requestId: {}", id, requestId);
 
         roomService.incrementTimesBooked(id, requestId);
 
-        log.info("Times booked incremented for room {} with requestId: {}", id, requestId);
+        log.debug("Times booked incremented for room {} with requestId: {}", id, requestId);
         return ResponseEntity.ok().build();
     }
+
+    // Автовыбор номера в booking-service: свободные на даты номера в порядке рекомендаций
+    @GetMapping("/candidates")
+    public ResponseEntity<List<RoomDto>> getBookingCandidates(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        log.debug("Internal endpoint: retrieving up to {} booking candidates for {} - {}", limit, startDate, endDate);
+
+        return ResponseEntity.ok(roomService.getBookingCandidates(new AvailabilityRequest(startDate, endDate), limit));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<RoomOperationResult>> executeBatch(
+            @Valid @RequestBody List<@Valid RoomOperationRequest> operations) {
+
+        log.debug("Internal endpoint: executing batch of {} room operations", operations.size());
+
+        List<RoomOperationResult> results = roomService.executeBatch(operations);
+        return ResponseEntity.ok(results);
+    }
 }
@@ -0,0 +1,44 @@
+package ru.vspochernin.hotel_service.controller;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Keyset-пагинация списков: ?after=<id>&limit=. Курсор следующей страницы
+// отдаётся в заголовке X-Next-After, пока страница заполнена целиком
+final class KeysetPage {
+
+    static final String NEXT_AFTER_HEADER = "X-Next-After";
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    private KeysetPage() {
+    }
+
+    static boolean isRequested(Long after, Integer limit) {
+        return after != null || limit != null;
+    }
+
+    static long after(Long after) {
+        return after == null ? 0 : after;
+    }
+
+    static int limit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    static <T> ResponseEntity<List<T>> response(List<T> page, int limit, Function<T, Long> idExtractor) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.size() == limit) {
+            builder.header(NEXT_AFTER_HEADER, String.valueOf(idExtractor.apply(page.get(page.size() - 1))));
+        }
+        return builder.body(page);
+    }
+}
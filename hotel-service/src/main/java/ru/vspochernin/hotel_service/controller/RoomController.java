@@ -4,9 +4,11 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.vspochernin.hotel_service.dto.CreateRoomRequest;
 import ru.vspochernin.hotel_service.dto.RoomDto;
 import ru.vspochernin.hotel_service.service.RoomService;
@@ -30,16 +32,31 @@ public class RoomController {
     }
 
     @GetMapping
-    public ResponseEntity<List<RoomDto>> getAllAvailableRooms() {
-        log.info("Retrieving all available rooms");
-        List<RoomDto> rooms = roomService.getAllAvailableRooms();
-        return ResponseEntity.ok(rooms);
+    public ResponseEntity<List<RoomDto>> getAllAvailableRooms(@RequestParam(required = false) Long after,
+                                                              @RequestParam(required = false) Integer limit) {
+        log.debug("Retrieving all available rooms");
+        if (!KeysetPage.isRequested(after, limit)) {
+            return ResponseEntity.ok(roomService.getAllAvailableRooms());
+        }
+        int pageSize = KeysetPage.limit(limit);
+        return KeysetPage.response(roomService.getAvailableRooms(KeysetPage.after(after), pageSize), pageSize, RoomDto::getId);
+    }
+
+    // Потоковая выдача: JSON пишется по мере чтения строк, память не растёт с числом номеров
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAvailableRooms() {
+        log.debug("Streaming all available rooms");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(roomService::streamAvailableRooms);
     }
 
     @GetMapping("/recommend")
-    public ResponseEntity<List<RoomDto>> getRecommendedRooms() {
-        log.info("Retrieving recommended rooms");
-        List<RoomDto> rooms = roomService.getRecommendedRooms();
+    public ResponseEntity<List<RoomDto>> getRecommendedRooms(
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "" + Integer.MAX_VALUE) int limit) {
+        log.debug("Retrieving recommended rooms");
+        List<RoomDto> rooms = roomService.getRecommendedRooms(offset, limit);
         return ResponseEntity.ok(rooms);
     }
 }
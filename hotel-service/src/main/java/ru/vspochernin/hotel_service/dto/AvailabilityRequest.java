@@ -0,0 +1,15 @@
+package ru.vspochernin.hotel_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityRequest {
+    private LocalDate startDate;
+    private LocalDate endDate;
+}
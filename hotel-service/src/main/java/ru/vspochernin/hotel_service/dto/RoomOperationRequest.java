@@ -0,0 +1,32 @@
+package ru.vspochernin.hotel_service.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomOperationRequest {
+    @NotNull(message = "Operation type is required")
+    private Type type;
+
+    @NotNull(message = "Room ID is required")
+    private Long roomId;
+
+    // Ключ идемпотентности операции. Одиночные эндпоинты получают его в заголовке X-Request-Id,
+    // а в пакете у каждой операции свой ключ, поэтому он передаётся в теле, а не одним заголовком
+    @NotBlank(message = "Request ID is required")
+    private String requestId;
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    public enum Type {
+        CONFIRM, INCREMENT, RELEASE
+    }
+}
@@ -0,0 +1,54 @@
+package ru.vspochernin.hotel_service.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_records", indexes = @Index(name = "idx_idempotency_created_at", columnList = "createdAt"))
+@Data
+@NoArgsConstructor
+public class IdempotencyRecord implements Persistable<String> {
+
+    @Id
+    private String requestId;
+
+    @Column(nullable = false)
+    private Boolean result;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Id назначается приложением: без флага saveAll вызывает merge и делает SELECT на каждую запись
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean newRecord = true;
+
+    public IdempotencyRecord(String requestId, Boolean result, LocalDateTime createdAt) {
+        this.requestId = requestId;
+        this.result = result;
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String getId() {
+        return requestId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newRecord;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newRecord = false;
+    }
+}
@@ -0,0 +1,36 @@
+package ru.vspochernin.hotel_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "room_holds", indexes = @Index(name = "idx_room_holds_room_id", columnList = "roomId"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long roomId;
+
+    @Column(nullable = false, unique = true)
+    private String requestId;
+
+    @Column(nullable = false)
+    private LocalDate startDate;
+
+    @Column(nullable = false)
+    private LocalDate endDate;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
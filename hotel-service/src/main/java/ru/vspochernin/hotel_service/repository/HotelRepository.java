@@ -1,9 +1,23 @@
 package ru.vspochernin.hotel_service.repository;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import ru.vspochernin.hotel_service.entity.Hotel;
 
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
 @Repository
 public interface HotelRepository extends JpaRepository<Hotel, Long> {
+
+    // Keyset-пагинация: следующая страница начинается после последнего id предыдущей
+    List<Hotel> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<Hotel> streamAllByOrderByIdAsc();
 }
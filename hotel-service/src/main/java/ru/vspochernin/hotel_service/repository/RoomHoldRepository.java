@@ -0,0 +1,21 @@
+package ru.vspochernin.hotel_service.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.vspochernin.hotel_service.entity.RoomHold;
+
+import java.util.Optional;
+
+@Repository
+public interface RoomHoldRepository extends JpaRepository<RoomHold, Long> {
+
+    Optional<RoomHold> findByRequestId(String requestId);
+
+    // Удаление по тому же ключу (roomId, requestId), что и в индексе доступности
+    @Modifying
+    @Query("DELETE FROM RoomHold h WHERE h.roomId = :roomId AND h.requestId = :requestId")
+    int deleteByRoomIdAndRequestId(@Param("roomId") Long roomId, @Param("requestId") String requestId);
+}
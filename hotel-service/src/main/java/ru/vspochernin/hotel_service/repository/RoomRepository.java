@@ -1,20 +1,47 @@
 package ru.vspochernin.hotel_service.repository;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.vspochernin.hotel_service.dto.RoomDto;
 import ru.vspochernin.hotel_service.entity.Room;
 
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface RoomRepository extends JpaRepository<Room, Long> {
 
-    List<Room> findByAvailableTrue();
+    // Чтения для API сразу в RoomDto: без управляемых сущностей, снимков для dirty checking
+    // и прокси отеля; hotel.id берётся из внешнего ключа без соединения с hotels
+    String ROOM_DTO = "SELECT new ru.vspochernin.hotel_service.dto.RoomDto(r.id, r.hotel.id, r.number, r.available, r.timesBooked)"
+            + " FROM Room r WHERE r.available = true";
+
+    @Query(ROOM_DTO)
+    List<RoomDto> findByAvailableTrue();
+
+    // Keyset-пагинация: следующая страница начинается после последнего id предыдущей
+    @Query(ROOM_DTO + " AND r.id > :afterId ORDER BY r.id ASC")
+    List<RoomDto> findByAvailableTrueAndIdGreaterThanOrderByIdAsc(@Param("afterId") Long afterId, Limit limit);
 
-    @Query("SELECT r FROM Room r WHERE r.available = true ORDER BY r.timesBooked ASC, r.id ASC")
-    List<Room> findAvailableRoomsOrderedByTimesBooked();
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(ROOM_DTO + " ORDER BY r.id ASC")
+    Stream<RoomDto> streamByAvailableTrueOrderByIdAsc();
+
+    @Query(ROOM_DTO + " ORDER BY r.timesBooked ASC, r.id ASC")
+    List<RoomDto> findAvailableRoomsOrderedByTimesBooked();
 
     List<Room> findByHotelId(Long hotelId);
+
+    // Атомарный инкремент на стороне БД: без чтения сущности и без потерянных обновлений
+    @Modifying
+    @Query("UPDATE Room r SET r.timesBooked = r.timesBooked + 1 WHERE r.id = :roomId")
+    int incrementTimesBooked(@Param("roomId") Long roomId);
 }
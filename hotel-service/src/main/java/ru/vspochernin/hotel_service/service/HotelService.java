@@ -2,6 +2,7 @@ package ru.vspochernin.hotel_service.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.vspochernin.hotel_service.dto.CreateHotelRequest;
@@ -9,6 +10,7 @@ import ru.vspochernin.hotel_service.dto.HotelDto;
 import ru.vspochernin.hotel_service.entity.Hotel;
 import ru.vspochernin.hotel_service.repository.HotelRepository;
 
+import java.io.OutputStream;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -18,6 +20,7 @@ import java.util.stream.Collectors;
 public class HotelService {
 
     private final HotelRepository hotelRepository;
+    private final JsonStreamWriter jsonStreamWriter;
 
     @Transactional
     public HotelDto createHotel(CreateHotelRequest request) {
@@ -34,14 +37,26 @@ public class HotelService {
     }
 
     public List<HotelDto> getAllHotels() {
-        log.info("Retrieving all hotels");
+        log.debug("Retrieving all hotels");
         return hotelRepository.findAll().stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
+    public List<HotelDto> getHotels(long afterId, int limit) {
+        log.debug("Retrieving hotels page after ID: {}, limit {}", afterId, limit);
+        return hotelRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit)).stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
+    public void streamHotels(OutputStream out) {
+        log.debug("Streaming all hotels");
+        jsonStreamWriter.write(out, hotelRepository::streamAllByOrderByIdAsc, this::convertToDto);
+    }
+
     public HotelDto getHotelById(Long id) {
-        log.info("Retrieving hotel by ID: {}", id);
+        log.debug("Retrieving hotel by ID: {}", id);
         Hotel hotel = hotelRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Hotel not found with ID: " + id));
         return convertToDto(hotel);
@@ -1,31 +1,127 @@
 package ru.vspochernin.hotel_service.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import ru.vspochernin.hotel_service.entity.IdempotencyRecord;
+import ru.vspochernin.hotel_service.repository.IdempotencyRecordRepository;
 
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 @Service
 @Slf4j
 public class IdempotencyService {
 
-    // В реальной системе это было бы в Redis или БД
-    private final Set<String> processedRequests = ConcurrentHashMap.newKeySet();
+    private final Cache<String, Boolean> processedRequests;
+    private final IdempotencyRecordRepository recordRepository;
+    private final Duration ttl;
+    private final boolean persistenceEnabled;
+
+    // Записи, ожидающие отложенной записи в БД (write-behind)
+    private final Queue<IdempotencyRecord> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${idempotency.ttl:24h}") Duration ttl,
+                              @Value("${idempotency.max-size:100000}") long maxSize,
+                              @Value("${idempotency.persistence.enabled:false}") boolean persistenceEnabled) {
+        this.recordRepository = recordRepository;
+        this.ttl = ttl;
+        this.persistenceEnabled = persistenceEnabled;
+        this.processedRequests = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, processedRequests, "idempotency");
+    }
+
+    public Optional<Boolean> findResult(String requestId) {
+        Boolean result = processedRequests.getIfPresent(requestId);
+        if (result == null && persistenceEnabled) {
+            result = recordRepository.findById(requestId)
+                    .filter(record -> record.getCreatedAt().isAfter(LocalDateTime.now().minus(ttl)))
+                    .map(IdempotencyRecord::getResult)
+                    .orElse(null);
+            if (result != null) {
+                processedRequests.put(requestId, result);
+            }
+        }
+        log.debug("Checking if request {} is processed: {}", requestId, result);
+        return Optional.ofNullable(result);
+    }
 
     public boolean isProcessed(String requestId) {
-        boolean processed = processedRequests.contains(requestId);
-        log.debug("Checking if request {} is processed: {}", requestId, processed);
-        return processed;
+        return findResult(requestId).isPresent();
     }
 
     public void markAsProcessed(String requestId) {
-        processedRequests.add(requestId);
-        log.info("Request {} marked as processed", requestId);
+        markAsProcessed(requestId, true);
+    }
+
+    public void markAsProcessed(String requestId, boolean result) {
+        processedRequests.put(requestId, result);
+        if (persistenceEnabled) {
+            pendingWrites.add(new IdempotencyRecord(requestId, result, LocalDateTime.now()));
+        }
+        log.debug("Request {} marked as processed with result {}", requestId, result);
     }
 
     public void removeProcessed(String requestId) {
-        processedRequests.remove(requestId);
-        log.info("Request {} removed from processed", requestId);
+        processedRequests.invalidate(requestId);
+        if (persistenceEnabled) {
+            recordRepository.deleteById(requestId);
+        }
+        log.debug("Request {} removed from processed", requestId);
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.persistence.flush-interval-ms:1000}")
+    public void flushPendingWrites() {
+        if (!persistenceEnabled || pendingWrites.isEmpty()) {
+            return;
+        }
+        // Повторная отметка того же requestId в пределах пакета дала бы два INSERT с одним ключом
+        Map<String, IdempotencyRecord> batch = new LinkedHashMap<>();
+        IdempotencyRecord record;
+        while ((record = pendingWrites.poll()) != null) {
+            batch.put(record.getRequestId(), record);
+        }
+        try {
+            recordRepository.saveAll(batch.values());
+        } catch (RuntimeException e) {
+            // saveAll выполняется в одной транзакции: при ошибке не записано ничего, пакет уйдёт в следующий сброс
+            pendingWrites.addAll(batch.values());
+            log.error("Failed to flush {} idempotency records, will retry", batch.size(), e);
+            return;
+        }
+        log.debug("Flushed {} idempotency records", batch.size());
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.persistence.purge-interval-ms:60000}")
+    public void purgeExpiredRecords() {
+        if (!persistenceEnabled) {
+            return;
+        }
+        int deleted = recordRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency records", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushPendingWrites();
     }
 }
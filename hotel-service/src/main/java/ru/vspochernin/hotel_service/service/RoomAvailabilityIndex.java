@@ -0,0 +1,136 @@
+package ru.vspochernin.hotel_service.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.vspochernin.hotel_service.entity.RoomHold;
+import ru.vspochernin.hotel_service.repository.RoomHoldRepository;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Индекс занятости номеров в памяти: для каждого номера хранит непересекающиеся
+// полуинтервалы [startDate, endDate), упорядоченные по дате заезда.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoomAvailabilityIndex {
+
+    private final RoomHoldRepository roomHoldRepository;
+
+    private final Map<Long, RoomSchedule> schedules = new ConcurrentHashMap<>();
+
+    public enum HoldResult {
+        // Даты заняты этим вызовом
+        CREATED,
+        // Тот же requestId уже держит те же даты
+        EXISTING,
+        // Даты заняты другим запросом или requestId уже держит другие даты
+        REJECTED
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        List<RoomHold> holds = roomHoldRepository.findAll();
+        schedules.clear();
+        for (RoomHold hold : holds) {
+            if (tryHold(hold.getRoomId(), hold.getRequestId(), hold.getStartDate(), hold.getEndDate()) == HoldResult.REJECTED) {
+                log.warn("Persisted hold {} for room {} overlaps another hold - skipped", hold.getRequestId(), hold.getRoomId());
+            }
+        }
+        log.info("Room availability index rebuilt from {} persisted holds", holds.size());
+    }
+
+    // Снять удержание при откате может только вызов, получивший CREATED: запись EXISTING принадлежит другому
+    public HoldResult tryHold(Long roomId, String requestId, LocalDate startDate, LocalDate endDate) {
+        validateRange(startDate, endDate);
+        RoomSchedule schedule = schedules.computeIfAbsent(roomId, id -> new RoomSchedule());
+        schedule.lock.lock();
+        try {
+            Hold existing = schedule.holdsByRequest.get(requestId);
+            if (existing != null) {
+                // Повтор того же запроса: успешен только для тех же дат
+                return existing.startDate().equals(startDate) && existing.endDate().equals(endDate)
+                        ? HoldResult.EXISTING
+                        : HoldResult.REJECTED;
+            }
+            if (schedule.overlaps(startDate, endDate)) {
+                return HoldResult.REJECTED;
+            }
+            Hold hold = new Hold(requestId, startDate, endDate);
+            schedule.holdsByStart.put(startDate, hold);
+            schedule.holdsByRequest.put(requestId, hold);
+            return HoldResult.CREATED;
+        } finally {
+            schedule.lock.unlock();
+        }
+    }
+
+    public boolean isFree(Long roomId, LocalDate startDate, LocalDate endDate) {
+        validateRange(startDate, endDate);
+        RoomSchedule schedule = schedules.get(roomId);
+        if (schedule == null) {
+            return true;
+        }
+        schedule.lock.lock();
+        try {
+            return !schedule.overlaps(startDate, endDate);
+        } finally {
+            schedule.lock.unlock();
+        }
+    }
+
+    public boolean release(Long roomId, String requestId) {
+        RoomSchedule schedule = schedules.get(roomId);
+        if (schedule == null) {
+            return false;
+        }
+        schedule.lock.lock();
+        try {
+            Hold hold = schedule.holdsByRequest.remove(requestId);
+            if (hold == null) {
+                return false;
+            }
+            schedule.holdsByStart.remove(hold.startDate());
+            return true;
+        } finally {
+            schedule.lock.unlock();
+        }
+    }
+
+    private void validateRange(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("Both startDate and endDate are required");
+        }
+        if (!endDate.isAfter(startDate)) {
+            throw new IllegalArgumentException("End date must be after start date");
+        }
+    }
+
+    private record Hold(String requestId, LocalDate startDate, LocalDate endDate) {
+    }
+
+    private static final class RoomSchedule {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final NavigableMap<LocalDate, Hold> holdsByStart = new TreeMap<>();
+        private final Map<String, Hold> holdsByRequest = new HashMap<>();
+
+        // Интервалы номера не пересекаются, поэтому достаточно проверить двух соседей
+        private boolean overlaps(LocalDate startDate, LocalDate endDate) {
+            Map.Entry<LocalDate, Hold> before = holdsByStart.floorEntry(startDate);
+            if (before != null && before.getValue().endDate().isAfter(startDate)) {
+                return true;
+            }
+            Map.Entry<LocalDate, Hold> after = holdsByStart.higherEntry(startDate);
+            return after != null && after.getKey().isBefore(endDate);
+        }
+    }
+}
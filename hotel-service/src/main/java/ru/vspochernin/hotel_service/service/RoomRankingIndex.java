@@ -0,0 +1,144 @@
+package ru.vspochernin.hotel_service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.vspochernin.hotel_service.dto.RoomDto;
+import ru.vspochernin.hotel_service.entity.Room;
+import ru.vspochernin.hotel_service.repository.RoomRepository;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+// Рейтинг доступных номеров в памяти, упорядоченный по (timesBooked, id).
+// Чтение top-K и страниц идёт по skip-list без блокировок и без обращения к БД.
+// Перестройка собирает новые коллекции и публикует их одной volatile-записью: читатель видит
+// либо прежний рейтинг, либо новый целиком, но не очищенный или заполненный наполовину
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoomRankingIndex {
+
+    private static final Comparator<RoomDto> RANKING = Comparator
+            .comparing(RoomDto::getTimesBooked)
+            .thenComparing(RoomDto::getId);
+
+    private final RoomRepository roomRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(new ConcurrentSkipListSet<>(RANKING), new ConcurrentHashMap<>());
+    // Перестановка номера в рейтинге - это удаление и вставка, писатели сериализуются
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile boolean loaded;
+
+    // Загружаем после CommandLineRunner-ов, чтобы учесть номера из начального наполнения.
+    // Периодическая перезагрузка подтягивает изменения, сделанные другими экземплярами
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${hotel.recommendation.refresh-interval-ms:60000}",
+            fixedDelayString = "${hotel.recommendation.refresh-interval-ms:60000}")
+    public void rebuild() {
+        // Читаем под блокировкой: инкремент, зафиксированный после чтения, ждёт перестройки и применяется
+        // к новому снимку, а не теряется вместе с прежним. Инкремент, зафиксированный до чтения, чей
+        // обработчик после фиксации ещё ждёт блокировку, уже есть в снимке и будет учтён второй раз -
+        // такое расхождение на единицу держится до следующей перестройки.
+        // Элементы индекса - объекты проекции, сущности номеров и отелей не загружаются
+        List<RoomDto> rooms;
+        writeLock.lock();
+        try {
+            rooms = roomRepository.findAvailableRoomsOrderedByTimesBooked();
+            Snapshot rebuilt = new Snapshot(new ConcurrentSkipListSet<>(RANKING), new ConcurrentHashMap<>());
+            for (RoomDto room : rooms) {
+                rebuilt.put(room);
+            }
+            snapshot = rebuilt;
+            loaded = true;
+        } finally {
+            writeLock.unlock();
+        }
+        log.info("Room ranking index rebuilt from {} available rooms", rooms.size());
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public List<RoomDto> getRecommended(int offset, int limit) {
+        return snapshot.ranking().stream()
+                .skip(offset)
+                .limit(limit)
+                .map(this::copy)
+                .toList();
+    }
+
+    // Первые limit номеров рейтинга, прошедших фильтр; обход останавливается, как только они набраны
+    public List<RoomDto> getRecommended(Predicate<Long> filter, int limit) {
+        return snapshot.ranking().stream()
+                .filter(entry -> filter.test(entry.getId()))
+                .limit(limit)
+                .map(this::copy)
+                .toList();
+    }
+
+    public void upsert(Room room) {
+        writeLock.lock();
+        try {
+            Snapshot current = snapshot;
+            current.remove(room.getId());
+            if (Boolean.TRUE.equals(room.getAvailable())) {
+                current.put(toEntry(room));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void incrementTimesBooked(Long roomId) {
+        writeLock.lock();
+        try {
+            Snapshot target = snapshot;
+            RoomDto current = target.remove(roomId);
+            if (current != null) {
+                target.put(new RoomDto(current.getId(), current.getHotelId(), current.getNumber(),
+                        current.getAvailable(), current.getTimesBooked() + 1));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Рейтинг и индекс по id публикуются вместе; писатели изменяют текущий снимок под writeLock
+    private record Snapshot(NavigableSet<RoomDto> ranking, Map<Long, RoomDto> roomsById) {
+
+        void put(RoomDto entry) {
+            roomsById.put(entry.getId(), entry);
+            ranking.add(entry);
+        }
+
+        RoomDto remove(Long roomId) {
+            RoomDto current = roomsById.remove(roomId);
+            if (current != null) {
+                ranking.remove(current);
+            }
+            return current;
+        }
+    }
+
+    // Элементы индекса не должны изменяться снаружи, иначе нарушится порядок skip-list
+    private RoomDto copy(RoomDto entry) {
+        return new RoomDto(entry.getId(), entry.getHotelId(), entry.getNumber(),
+                entry.getAvailable(), entry.getTimesBooked());
+    }
+
+    private RoomDto toEntry(Room room) {
+        return new RoomDto(room.getId(), room.getHotel().getId(), room.getNumber(),
+                room.getAvailable(), room.getTimesBooked());
+    }
+}
@@ -1,17 +1,46 @@
 package ru.vspochernin.hotel_service.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.vspochernin.hotel_service.config.LogContext;
+import ru.vspochernin.hotel_service.dto.AvailabilityRequest;
 import ru.vspochernin.hotel_service.dto.CreateRoomRequest;
 import ru.vspochernin.hotel_service.dto.RoomDto;
+import ru.vspochernin.hotel_service.dto.RoomOperationRequest;
+import ru.vspochernin.hotel_service.dto.RoomOperationResult;
 import ru.vspochernin.hotel_service.entity.Hotel;
 import ru.vspochernin.hotel_service.entity.Room;
+import ru.vspochernin.hotel_service.entity.RoomHold;
 import ru.vspochernin.hotel_service.repository.HotelRepository;
+import ru.vspochernin.hotel_service.repository.RoomHoldRepository;
 import ru.vspochernin.hotel_service.repository.RoomRepository;
+import ru.vspochernin.hotel_service.service.RoomAvailabilityIndex.HoldResult;
 
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,7 +50,19 @@ public class RoomService {
 
     private final RoomRepository roomRepository;
     private final HotelRepository hotelRepository;
+    private final RoomHoldRepository roomHoldRepository;
     private final IdempotencyService idempotencyService;
+    private final RoomAvailabilityIndex availabilityIndex;
+    private final RoomRankingIndex rankingIndex;
+    private final JsonStreamWriter jsonStreamWriter;
+    private final MeterRegistry meterRegistry;
+    private final TransactionOperations transactionTemplate;
+
+    // Удержания, транзакция которых ещё не завершилась: повтор того же requestId ждёт их исхода
+    private final Map<String, CompletableFuture<Void>> pendingHolds = new ConcurrentHashMap<>();
+
+    @Value("${hotel.hold.duplicate-wait-ms:5000}")
+    private long duplicateWaitMs;
 
     @Transactional
     public RoomDto createRoom(CreateRoomRequest request) {
@@ -37,79 +78,348 @@ public class RoomService {
         room.setTimesBooked(0);
 
         Room savedRoom = roomRepository.save(room);
+        runAfterCommit(() -> rankingIndex.upsert(savedRoom));
         log.info("Room created with ID: {}", savedRoom.getId());
 
         return convertToDto(savedRoom);
     }
 
+    // Списки читаются проекциями в RoomDto в транзакции только для чтения (без flush):
+    // контекст персистентности остаётся пустым
+    @Transactional(readOnly = true)
     public List<RoomDto> getAllAvailableRooms() {
-        log.info("Retrieving all available rooms");
-        return roomRepository.findByAvailableTrue().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        log.debug("Retrieving all available rooms");
+        return roomRepository.findByAvailableTrue();
+    }
+
+    @Transactional(readOnly = true)
+    public List<RoomDto> getAvailableRooms(long afterId, int limit) {
+        log.debug("Retrieving available rooms page after ID: {}, limit {}", afterId, limit);
+        return roomRepository.findByAvailableTrueAndIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
+    public void streamAvailableRooms(OutputStream out) {
+        log.debug("Streaming all available rooms");
+        jsonStreamWriter.write(out, roomRepository::streamByAvailableTrueOrderByIdAsc, Function.identity());
+    }
+
+    @Transactional(readOnly = true)
+    public List<RoomDto> getRecommendedRooms(int offset, int limit) {
+        log.debug("Retrieving recommended rooms (sorted by times_booked), offset {}, limit {}", offset, limit);
+        if (offset < 0 || limit < 1) {
+            throw new IllegalArgumentException("Offset must be non-negative and limit must be positive");
+        }
+        // До первой загрузки индекса отвечаем из БД
+        if (!rankingIndex.isLoaded()) {
+            return roomRepository.findAvailableRoomsOrderedByTimesBooked().stream()
+                    .skip(offset)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+        return rankingIndex.getRecommended(offset, limit);
+    }
+
+    // Кандидаты для автовыбора номера: порядок рекомендаций, но только номера, свободные на даты.
+    // Занятость проверяется по индексу удержаний, без чтения room_holds
+    @Transactional(readOnly = true)
+    public List<RoomDto> getBookingCandidates(AvailabilityRequest dates, int limit) {
+        log.debug("Retrieving booking candidates for {} - {}, limit {}", dates.getStartDate(), dates.getEndDate(), limit);
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        if (!dates.getEndDate().isAfter(dates.getStartDate())) {
+            throw new IllegalArgumentException("End date must be after start date");
+        }
+        Predicate<Long> free = roomId -> availabilityIndex.isFree(roomId, dates.getStartDate(), dates.getEndDate());
+        if (!rankingIndex.isLoaded()) {
+            return roomRepository.findAvailableRoomsOrderedByTimesBooked().stream()
+                    .filter(room -> free.test(room.getId()))
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+        return rankingIndex.getRecommended(free, limit);
+    }
+
+    public boolean confirmAvailability(Long roomId, String requestId, AvailabilityRequest dates) {
+        log.debug("Confirming availability for room ID: {} with requestId: {}", roomId, requestId);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            // Проверка идемпотентности: повтор получает исходный результат
+            Optional<Boolean> previousResult = idempotencyService.findResult(requestId);
+            if (previousResult.isPresent()) {
+                log.debug("Request {} already processed - returning cached result ({})", requestId, previousResult.get());
+                stopOperation(sample, "confirm", "single", "duplicate");
+                return previousResult.get();
+            }
+
+            boolean held = holdInTransaction(roomId, requestId, dates, () -> findRoom(roomId));
+            stopOperation(sample, "confirm", "single", held ? "success" : "rejected");
+            return held;
+        } catch (RuntimeException e) {
+            stopOperation(sample, "confirm", "single", "error");
+            throw e;
+        }
     }
 
-    public List<RoomDto> getRecommendedRooms() {
-        log.info("Retrieving recommended rooms (sorted by times_booked)");
-        return roomRepository.findAvailableRoomsOrderedByTimesBooked().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    @Transactional
+    public void releaseSlot(Long roomId, String requestId) {
+        log.debug("Releasing slot for room ID: {} with requestId: {}", roomId, requestId);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            releaseRoom(findRoom(roomId), requestId);
+            stopOperation(sample, "release", "single", "success");
+        } catch (RuntimeException e) {
+            stopOperation(sample, "release", "single", "error");
+            throw e;
+        }
     }
 
     @Transactional
-    public boolean confirmAvailability(Long roomId, String requestId) {
-        log.info("Confirming availability for room ID: {} with requestId: {}", roomId, requestId);
+    public void incrementTimesBooked(Long roomId, String requestId) {
+        log.debug("Incrementing times booked for room ID: {} with requestId: {}", roomId, requestId);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            // Проверка идемпотентности
+            String incrementKey = requestId + "-increment";
+            if (idempotencyService.isProcessed(incrementKey)) {
+                log.debug("Request {} already processed - skipping increment", incrementKey);
+                stopOperation(sample, "increment", "single", "duplicate");
+                return;
+            }
 
-        // Проверка идемпотентности
-        if (idempotencyService.isProcessed(requestId)) {
-            log.info("Request {} already processed - returning cached result (true)", requestId);
-            return true; // Возвращаем успешный результат для уже обработанного запроса
+            incrementRoom(roomId, incrementKey);
+            stopOperation(sample, "increment", "single", "success");
+        } catch (RuntimeException e) {
+            stopOperation(sample, "increment", "single", "error");
+            throw e;
         }
+    }
+
+    // Номера загружаются одним запросом, каждая операция пакета - в своей транзакции: ошибка БД
+    // в одной операции откатывает только её, а отметка идемпотентности после фиксации видна следующим
+    // операциям того же пакета (повторный INCREMENT с тем же requestId не применяется дважды)
+    public List<RoomOperationResult> executeBatch(List<RoomOperationRequest> operations) {
+        log.debug("Executing batch of {} room operations", operations.size());
+        meterRegistry.summary("room.operations.batch.size").record(operations.size());
+
+        Set<Long> roomIds = operations.stream()
+                .map(RoomOperationRequest::getRoomId)
+                .collect(Collectors.toSet());
+        Map<Long, Room> rooms = roomRepository.findAllById(roomIds).stream()
+                .collect(Collectors.toMap(Room::getId, Function.identity()));
+
+        List<RoomOperationResult> results = new ArrayList<>(operations.size());
+        for (RoomOperationRequest operation : operations) {
+            results.add(executeOperation(operation, rooms.get(operation.getRoomId())));
+        }
+        return results;
+    }
+
+    private RoomOperationResult executeOperation(RoomOperationRequest operation, Room room) {
+        Long roomId = operation.getRoomId();
+        String requestId = operation.getRequestId();
+        String operationName = operation.getType().name().toLowerCase();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        // В пакете у каждой операции свой requestId; после операции возвращается requestId запроса
+        String batchRequestId = LogContext.replace(requestId);
+        try {
+            if (room == null) {
+                throw new RuntimeException("Room not found with ID: " + roomId);
+            }
+            boolean success = switch (operation.getType()) {
+                case CONFIRM -> {
+                    Optional<Boolean> previousResult = idempotencyService.findResult(requestId);
+                    AvailabilityRequest dates = operation.getStartDate() == null && operation.getEndDate() == null
+                            ? null
+                            : new AvailabilityRequest(operation.getStartDate(), operation.getEndDate());
+                    yield previousResult.orElseGet(() -> holdInTransaction(roomId, requestId, dates, () -> room));
+                }
+                case INCREMENT -> {
+                    String incrementKey = requestId + "-increment";
+                    if (!idempotencyService.isProcessed(incrementKey)) {
+                        transactionTemplate.executeWithoutResult(status -> incrementRoom(roomId, incrementKey));
+                    }
+                    yield true;
+                }
+                case RELEASE -> {
+                    transactionTemplate.executeWithoutResult(status -> releaseRoom(room, requestId));
+                    yield true;
+                }
+            };
+            stopOperation(sample, operationName, "batch", success ? "success" : "rejected");
+            return new RoomOperationResult(operation.getType(), roomId, requestId, success, null);
+        } catch (RuntimeException e) {
+            stopOperation(sample, operationName, "batch", "error");
+            log.warn("Batch operation {} for room {} with requestId {} failed: {}",
+                    operation.getType(), roomId, requestId, e.getMessage());
+            return new RoomOperationResult(operation.getType(), roomId, requestId, false, e.getMessage());
+        } finally {
+            LogContext.restore(batchRequestId);
+        }
+    }
+
+    // Время внутренней операции без фиксации транзакции; mode - отдельный вызов или в составе пакета
+    private void stopOperation(Timer.Sample sample, String operation, String mode, String outcome) {
+        sample.stop(meterRegistry.timer("room.operations", "operation", operation, "mode", mode, "outcome", outcome));
+    }
 
-        Room room = roomRepository.findById(roomId)
+    private Room findRoom(Long roomId) {
+        return roomRepository.findById(roomId)
                 .orElseThrow(() -> new RuntimeException("Room not found with ID: " + roomId));
+    }
 
+    // Проигранная вставка в room_holds по уникальному requestId - повтор, ответ - результат победителя
+    private boolean holdInTransaction(Long roomId, String requestId, AvailabilityRequest dates, Supplier<Room> room) {
+        try {
+            return transactionTemplate.execute(status -> holdRoom(room.get(), requestId, dates));
+        } catch (DataIntegrityViolationException e) {
+            return committedHoldResult(roomId, requestId, dates, e);
+        }
+    }
+
+    private boolean holdRoom(Room room, String requestId, AvailabilityRequest dates) {
+        Long roomId = room.getId();
         if (!room.getAvailable()) {
             log.warn("Room {} is not available", roomId);
+            idempotencyService.markAsProcessed(requestId, false);
             return false;
         }
 
-        // Временная блокировка слота (в реальной системе здесь была бы логика блокировки)
-        idempotencyService.markAsProcessed(requestId);
-        log.info("Room {} availability confirmed for requestId: {}", roomId, requestId);
+        // Без дат проверяется только флаг доступности (старые клиенты)
+        if (dates != null && !holdDates(roomId, requestId, dates)) {
+            log.warn("Room {} is already held for dates overlapping {} - {}", roomId, dates.getStartDate(), dates.getEndDate());
+            idempotencyService.markAsProcessed(requestId, false);
+            return false;
+        }
+
+        // Успешный результат запоминаем только после фиксации удержания в БД
+        runAfterCommit(() -> idempotencyService.markAsProcessed(requestId, true));
+        log.debug("Room {} availability confirmed for requestId: {}", roomId, requestId);
         return true;
     }
 
-    @Transactional
-    public void releaseSlot(Long roomId, String requestId) {
-        log.info("Releasing slot for room ID: {} with requestId: {}", roomId, requestId);
+    private void releaseRoom(Room room, String requestId) {
+        Long roomId = room.getId();
+        // Освобождение с чужим roomId не трогает удержание другого номера ни в БД, ни в индексе
+        if (roomHoldRepository.deleteByRoomIdAndRequestId(roomId, requestId) == 0) {
+            log.debug("No hold of room {} found for requestId: {}", roomId, requestId);
+        }
+        // Из индекса удаляем только после фиксации транзакции, чтобы не разойтись с БД
+        runAfterCommit(() -> availabilityIndex.release(roomId, requestId));
+        log.debug("Slot released for room {} with requestId: {}", roomId, requestId);
+    }
 
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new RuntimeException("Room not found with ID: " + roomId));
+    private void incrementRoom(Long roomId, String incrementKey) {
+        // Один UPDATE вместо SELECT + UPDATE всей сущности; счётчик не теряет обновления под нагрузкой
+        if (roomRepository.incrementTimesBooked(roomId) == 0) {
+            throw new RuntimeException("Room not found with ID: " + roomId);
+        }
 
-        // Снятие временной блокировки (в реальной системе здесь была бы логика разблокировки)
-        log.info("Slot released for room {} with requestId: {}", roomId, requestId);
+        runAfterCommit(() -> {
+            idempotencyService.markAsProcessed(incrementKey);
+            rankingIndex.incrementTimesBooked(roomId);
+        });
+        log.debug("Times booked incremented for room {}", roomId);
     }
 
-    @Transactional
-    public void incrementTimesBooked(Long roomId, String requestId) {
-        log.info("Incrementing times booked for room ID: {} with requestId: {}", roomId, requestId);
+    // Занимает даты в индексе и в room_holds. Одновременные вызовы с одним requestId (повтор после
+    // таймаута, хеджированный запрос, повторная отправка outbox) выполняются по одному: следующий ждёт
+    // завершения транзакции первого и видит его удержание как EXISTING. Снимает удержание при откате
+    // только вызов, который его создал
+    private boolean holdDates(Long roomId, String requestId, AvailabilityRequest dates) {
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        CompletableFuture<Void> inFlight;
+        while ((inFlight = pendingHolds.putIfAbsent(requestId, pending)) != null) {
+            awaitHold(requestId, inFlight);
+        }
+
+        HoldResult result;
+        try {
+            result = availabilityIndex.tryHold(roomId, requestId, dates.getStartDate(), dates.getEndDate());
+        } catch (RuntimeException e) {
+            completeHold(requestId, pending);
+            throw e;
+        }
+        if (result != HoldResult.CREATED) {
+            completeHold(requestId, pending);
+            return result == HoldResult.EXISTING;
+        }
+
+        registerHoldCompletion(roomId, requestId, pending);
+        if (roomHoldRepository.findByRequestId(requestId).isEmpty()) {
+            roomHoldRepository.save(new RoomHold(null, roomId, requestId,
+                    dates.getStartDate(), dates.getEndDate(), LocalDateTime.now()));
+        }
+        return true;
+    }
+
+    private void awaitHold(String requestId, CompletableFuture<Void> inFlight) {
+        try {
+            inFlight.get(duplicateWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Hold for request " + requestId + " is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for hold of request " + requestId);
+        } catch (ExecutionException e) {
+            // Удержания завершаются только успешно
+            throw new IllegalStateException(e);
+        }
+    }
 
-        // Проверка идемпотентности
-        String incrementKey = requestId + "-increment";
-        if (idempotencyService.isProcessed(incrementKey)) {
-            log.info("Request {} already processed - skipping increment", incrementKey);
+    // При откате даты освобождаются в индексе до того, как ожидающие повторы продолжат
+    private void registerHoldCompletion(Long roomId, String requestId, CompletableFuture<Void> pending) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            completeHold(requestId, pending);
             return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    availabilityIndex.release(roomId, requestId);
+                }
+                completeHold(requestId, pending);
+            }
+        });
+    }
 
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new RuntimeException("Room not found with ID: " + roomId));
+    private void completeHold(String requestId, CompletableFuture<Void> pending) {
+        pendingHolds.remove(requestId, pending);
+        pending.complete(null);
+    }
 
-        room.setTimesBooked(room.getTimesBooked() + 1);
-        roomRepository.save(room);
+    // Вставка в room_holds проиграла уникальному requestId: удержание зафиксировал другой экземпляр.
+    // Ответ - его результат; зафиксированное удержание отражаем в индексе. Без удержания победителя
+    // это другая ошибка БД, она пробрасывается
+    private boolean committedHoldResult(Long roomId, String requestId, AvailabilityRequest dates,
+                                        DataIntegrityViolationException failure) {
+        // Без дат удержание не создаётся, как и в holdRoom: ответ определяет только флаг доступности
+        if (dates == null) {
+            return findRoom(roomId).getAvailable();
+        }
+        RoomHold committed = roomHoldRepository.findByRequestId(requestId).orElseThrow(() -> failure);
+        boolean held = committed.getRoomId().equals(roomId)
+                && committed.getStartDate().equals(dates.getStartDate())
+                && committed.getEndDate().equals(dates.getEndDate());
+        if (held) {
+            availabilityIndex.tryHold(roomId, requestId, dates.getStartDate(), dates.getEndDate());
+        }
+        log.debug("Request {} lost the hold insert to a concurrent duplicate - returning its result ({})", requestId, held);
+        return held;
+    }
 
-        idempotencyService.markAsProcessed(incrementKey);
-        log.info("Times booked incremented for room {}: {}", roomId, room.getTimesBooked());
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     private RoomDto convertToDto(Room room) {
@@ -0,0 +1,49 @@
+package ru.vspochernin.hotel_service.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestIdFilterTest {
+
+    private final RequestIdFilter filter = new RequestIdFilter();
+
+    @AfterEach
+    void clearContext() {
+        MDC.clear();
+    }
+
+    @Test
+    void testRequestIdIsPutIntoMdcAndReturnedInResponse() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/rooms/1/confirm-availability");
+        request.addHeader("X-Request-Id", "saga-42");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> seen = new AtomicReference<>();
+
+        filter.doFilter(request, response, (req, res) -> seen.set(MDC.get(LogContext.REQUEST_ID)));
+
+        assertEquals("saga-42", seen.get());
+        assertEquals("saga-42", response.getHeader("X-Request-Id"));
+        // Контекст не переходит к следующему запросу на том же потоке
+        assertNull(MDC.get(LogContext.REQUEST_ID));
+    }
+
+    @Test
+    void testUnsafeRequestIdIsNotLogged() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/rooms/1/confirm-availability");
+        request.addHeader("X-Request-Id", "forged\nINFO line");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> seen = new AtomicReference<>("unset");
+
+        filter.doFilter(request, response, (req, res) -> seen.set(MDC.get(LogContext.REQUEST_ID)));
+
+        assertNull(seen.get());
+        assertNull(response.getHeader("X-Request-Id"));
+    }
+}
@@ -1,23 +1,56 @@
 package ru.vspochernin.hotel_service.integration;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.*;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.vspochernin.hotel_service.config.LogContext;
+import ru.vspochernin.hotel_service.dto.AvailabilityRequest;
 import ru.vspochernin.hotel_service.dto.CreateHotelRequest;
 import ru.vspochernin.hotel_service.dto.CreateRoomRequest;
+import ru.vspochernin.hotel_service.dto.RoomDto;
+import ru.vspochernin.hotel_service.dto.RoomOperationRequest;
+import ru.vspochernin.hotel_service.dto.RoomOperationResult;
 import ru.vspochernin.hotel_service.entity.Hotel;
+import ru.vspochernin.hotel_service.entity.IdempotencyRecord;
 import ru.vspochernin.hotel_service.entity.Room;
 import ru.vspochernin.hotel_service.repository.HotelRepository;
+import ru.vspochernin.hotel_service.repository.IdempotencyRecordRepository;
+import ru.vspochernin.hotel_service.repository.RoomHoldRepository;
 import ru.vspochernin.hotel_service.repository.RoomRepository;
+import ru.vspochernin.hotel_service.service.IdempotencyService;
+import ru.vspochernin.hotel_service.service.RoomRankingIndex;
+import ru.vspochernin.hotel_service.service.RoomService;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
 @ActiveProfiles("test")
 class HotelIntegrationTest {
 
@@ -33,8 +66,36 @@ class HotelIntegrationTest {
     @Autowired
     private RoomRepository roomRepository;
 
+    @Autowired
+    private RoomHoldRepository roomHoldRepository;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private RoomService roomService;
+
+    @Autowired
+    private RoomRankingIndex rankingIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${security.trusted-claims.secret}")
+    private String trustedClaimsSecret;
+
     private String baseUrl;
     private String adminToken;
+    private Long freshRoomId;
 
     @BeforeEach
     void setUp() {
@@ -60,6 +121,8 @@ class HotelIntegrationTest {
         room2.setAvailable(true);
         room2.setTimesBooked(2);
         roomRepository.save(room2);
+
+        freshRoomId = room1.getId();
     }
 
     @Test
@@ -324,4 +387,387 @@ class HotelIntegrationTest {
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
     }
+
+    @Test
+    void testConfirmAvailabilityRejectsOverlappingDates() {
+        LocalDate start = LocalDate.now().plusDays(10);
+
+        // Первое бронирование занимает [start, start + 4)
+        assertTrue(confirmDates(freshRoomId, "overlap-first", start, start.plusDays(4)));
+
+        // Пересекающийся интервал отклоняется
+        assertFalse(confirmDates(freshRoomId, "overlap-second", start.plusDays(2), start.plusDays(6)));
+
+        // Смежный интервал (выезд в день заезда) допускается
+        assertTrue(confirmDates(freshRoomId, "overlap-adjacent", start.plusDays(4), start.plusDays(6)));
+    }
+
+    @Test
+    void testReleaseFreesDates() {
+        LocalDate start = LocalDate.now().plusDays(20);
+
+        assertTrue(confirmDates(freshRoomId, "release-first", start, start.plusDays(3)));
+        assertFalse(confirmDates(freshRoomId, "release-second", start, start.plusDays(3)));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Request-Id", "release-first");
+        ResponseEntity<Void> release = restTemplate.postForEntity(
+            baseUrl + "/api/rooms/" + freshRoomId + "/release", new HttpEntity<>(headers), Void.class);
+        assertTrue(release.getStatusCode().is2xxSuccessful());
+
+        // После освобождения те же даты снова доступны
+        assertTrue(confirmDates(freshRoomId, "release-third", start, start.plusDays(3)));
+    }
+
+    @Test
+    void testReleaseWithOtherRoomKeepsTheHold() {
+        LocalDate start = LocalDate.now().plusDays(22);
+        Long otherRoomId = roomRepository.findAll().stream()
+            .map(Room::getId)
+            .filter(id -> !id.equals(freshRoomId))
+            .findFirst()
+            .orElseThrow();
+        assertTrue(confirmDates(freshRoomId, "release-wrong-room", start, start.plusDays(3)));
+
+        // Освобождение с чужим roomId не удаляет удержание ни в БД, ни в индексе
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Request-Id", "release-wrong-room");
+        assertTrue(restTemplate.postForEntity(baseUrl + "/api/rooms/" + otherRoomId + "/release",
+            new HttpEntity<>(headers), Void.class).getStatusCode().is2xxSuccessful());
+        assertTrue(roomHoldRepository.findByRequestId("release-wrong-room").isPresent());
+        assertFalse(confirmDates(freshRoomId, "release-wrong-room-overlap", start, start.plusDays(3)));
+
+        // Освобождение своего номера снимает удержание в обоих местах
+        assertTrue(restTemplate.postForEntity(baseUrl + "/api/rooms/" + freshRoomId + "/release",
+            new HttpEntity<>(headers), Void.class).getStatusCode().is2xxSuccessful());
+        assertTrue(roomHoldRepository.findByRequestId("release-wrong-room").isEmpty());
+        assertTrue(confirmDates(freshRoomId, "release-wrong-room-after", start, start.plusDays(3)));
+    }
+
+    @Test
+    void testIdempotentReplayReturnsOriginalResult() {
+        LocalDate start = LocalDate.now().plusDays(30);
+
+        assertTrue(confirmDates(freshRoomId, "replay-holder", start, start.plusDays(2)));
+        assertFalse(confirmDates(freshRoomId, "replay-denied", start, start.plusDays(2)));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Request-Id", "replay-holder");
+        restTemplate.postForEntity(
+            baseUrl + "/api/rooms/" + freshRoomId + "/release", new HttpEntity<>(headers), Void.class);
+
+        // Повтор отклонённого запроса возвращает исходный отказ, а не true
+        assertFalse(confirmDates(freshRoomId, "replay-denied", start, start.plusDays(2)));
+    }
+
+    @Test
+    void testConcurrentDuplicateConfirmsKeepTheHold() throws Exception {
+        LocalDate start = LocalDate.now().plusDays(35);
+        AvailabilityRequest dates = new AvailabilityRequest(start, start.plusDays(2));
+        int duplicates = 16;
+
+        // Один requestId одновременно: повтор после таймаута, хеджированный запрос, повторная отправка outbox
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(duplicates);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < duplicates; i++) {
+                futures.add(executor.submit(() -> {
+                    go.await();
+                    return roomService.confirmAvailability(freshRoomId, "duplicate-confirm", dates);
+                }));
+            }
+            go.countDown();
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(roomHoldRepository.findByRequestId("duplicate-confirm").isPresent());
+        // Повторы не сняли удержание из индекса: пересекающееся бронирование отклоняется
+        assertFalse(confirmDates(freshRoomId, "duplicate-overlap", start.plusDays(1), start.plusDays(3)));
+    }
+
+    @Test
+    void testIdempotencyRecordsAreWrittenBehind() {
+        LocalDate start = LocalDate.now().plusDays(40);
+        assertTrue(confirmDates(freshRoomId, "write-behind-1", start, start.plusDays(1)));
+
+        idempotencyService.flushPendingWrites();
+
+        IdempotencyRecord record = idempotencyRecordRepository.findById("write-behind-1").orElseThrow();
+        assertTrue(record.getResult());
+        assertFalse(record.isNew());
+    }
+
+    @Test
+    void testBatchOperations() {
+        LocalDate start = LocalDate.now().plusDays(50);
+        List<RoomOperationRequest> operations = List.of(
+            new RoomOperationRequest(RoomOperationRequest.Type.CONFIRM, freshRoomId, "batch-1", start, start.plusDays(2)),
+            new RoomOperationRequest(RoomOperationRequest.Type.CONFIRM, freshRoomId, "batch-2", start.plusDays(1), start.plusDays(3)),
+            new RoomOperationRequest(RoomOperationRequest.Type.INCREMENT, freshRoomId, "batch-1", null, null),
+            new RoomOperationRequest(RoomOperationRequest.Type.RELEASE, -1L, "batch-missing", null, null));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<RoomOperationResult[]> response = restTemplate.postForEntity(
+            baseUrl + "/api/rooms/batch", new HttpEntity<>(operations, headers), RoomOperationResult[].class);
+
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        RoomOperationResult[] results = response.getBody();
+        assertEquals(4, results.length);
+        assertTrue(results[0].isSuccess());
+        // Пересекающийся интервал в том же пакете отклоняется
+        assertFalse(results[1].isSuccess());
+        assertNull(results[1].getError());
+        assertTrue(results[2].isSuccess());
+        // Ошибка одной операции не влияет на остальные
+        assertFalse(results[3].isSuccess());
+        assertNotNull(results[3].getError());
+
+        assertEquals(1, roomRepository.findById(freshRoomId).orElseThrow().getTimesBooked());
+    }
+
+    @Test
+    void testBatchOperationFailingInDatabaseDoesNotAbortTheRest() {
+        LocalDate start = LocalDate.now().plusDays(55);
+        // requestId длиннее столбца room_holds.request_id: вставка удержания падает в БД
+        String tooLongRequestId = "x".repeat(300);
+        List<RoomOperationRequest> operations = List.of(
+            new RoomOperationRequest(RoomOperationRequest.Type.CONFIRM, freshRoomId, "batch-db-1", start, start.plusDays(2)),
+            new RoomOperationRequest(RoomOperationRequest.Type.CONFIRM, freshRoomId, tooLongRequestId, start.plusDays(2), start.plusDays(4)),
+            new RoomOperationRequest(RoomOperationRequest.Type.INCREMENT, freshRoomId, "batch-db-1", null, null),
+            new RoomOperationRequest(RoomOperationRequest.Type.INCREMENT, freshRoomId, "batch-db-1", null, null));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<RoomOperationResult[]> response = restTemplate.postForEntity(
+            baseUrl + "/api/rooms/batch", new HttpEntity<>(operations, headers), RoomOperationResult[].class);
+
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        RoomOperationResult[] results = response.getBody();
+        assertTrue(results[0].isSuccess());
+        assertFalse(results[1].isSuccess());
+        assertNotNull(results[1].getError());
+        assertTrue(results[2].isSuccess());
+        assertTrue(results[3].isSuccess());
+
+        // Удержание первой операции зафиксировано, даты упавшей освобождены, повторный INCREMENT не применён
+        assertTrue(roomHoldRepository.findByRequestId("batch-db-1").isPresent());
+        assertFalse(confirmDates(freshRoomId, "batch-db-overlap", start.plusDays(1), start.plusDays(2)));
+        assertTrue(confirmDates(freshRoomId, "batch-db-after", start.plusDays(2), start.plusDays(4)));
+        assertEquals(1, roomRepository.findById(freshRoomId).orElseThrow().getTimesBooked());
+    }
+
+    @Test
+    void testBatchRestoresRequestLogContext() {
+        LogContext.put("batch-request");
+        try {
+            roomService.executeBatch(List.of(
+                new RoomOperationRequest(RoomOperationRequest.Type.INCREMENT, freshRoomId, "batch-log-1", null, null)));
+
+            // Операции пакета подменяют requestId только на своё время
+            assertEquals("batch-request", MDC.get(LogContext.REQUEST_ID));
+        } finally {
+            LogContext.clear();
+        }
+    }
+
+    @Test
+    void testRecommendedRoomsServedFromRankingIndex() {
+        rankingIndex.rebuild();
+
+        List<RoomDto> ranked = roomService.getRecommendedRooms(0, Integer.MAX_VALUE);
+        for (int i = 1; i < ranked.size(); i++) {
+            RoomDto previous = ranked.get(i - 1);
+            RoomDto current = ranked.get(i);
+            assertTrue(previous.getTimesBooked() < current.getTimesBooked()
+                || previous.getTimesBooked().equals(current.getTimesBooked()) && previous.getId() < current.getId());
+        }
+
+        // Инкремент переставляет номер в рейтинге без обращения к БД
+        RoomDto top = roomService.getRecommendedRooms(0, 1).get(0);
+        roomService.incrementTimesBooked(top.getId(), "ranking-" + top.getId());
+        RoomDto moved = roomService.getRecommendedRooms(0, Integer.MAX_VALUE).stream()
+            .filter(room -> room.getId().equals(top.getId()))
+            .findFirst()
+            .orElseThrow();
+        assertEquals(top.getTimesBooked() + 1, moved.getTimesBooked());
+
+        // Страницы не пересекаются и идут подряд
+        List<RoomDto> firstPage = roomService.getRecommendedRooms(0, 2);
+        List<RoomDto> secondPage = roomService.getRecommendedRooms(2, 2);
+        assertEquals(2, firstPage.size());
+        List<RoomDto> all = roomService.getRecommendedRooms(0, 4);
+        assertEquals(all.subList(0, 2), firstPage);
+        assertEquals(all.subList(2, Math.min(4, all.size())), secondPage);
+    }
+
+    @Test
+    void testBookingCandidatesSkipRoomsHeldForDates() {
+        rankingIndex.rebuild();
+        LocalDate start = LocalDate.now().plusDays(60);
+        String url = baseUrl + "/api/rooms/candidates?startDate=" + start + "&endDate=" + start.plusDays(2) + "&limit=1000";
+
+        // Внутренний эндпоинт booking-service: без токена, порядок - как у рекомендаций
+        ResponseEntity<RoomDto[]> response = restTemplate.getForEntity(url, RoomDto[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<Long> candidates = List.of(response.getBody()).stream().map(RoomDto::getId).toList();
+        List<Long> recommended = roomService.getRecommendedRooms(0, Integer.MAX_VALUE).stream().map(RoomDto::getId).toList();
+        assertEquals(recommended, candidates);
+
+        // Номер, занятый на пересекающиеся даты, выпадает из кандидатов
+        Long held = candidates.get(0);
+        assertTrue(confirmDates(held, "candidates-holder", start.plusDays(1), start.plusDays(3)));
+        List<Long> afterHold = List.of(restTemplate.getForEntity(url, RoomDto[].class).getBody()).stream()
+            .map(RoomDto::getId)
+            .toList();
+        assertFalse(afterHold.contains(held));
+        assertEquals(candidates.size() - 1, afterHold.size());
+
+        ResponseEntity<RoomDto[]> limited = restTemplate.getForEntity(
+            baseUrl + "/api/rooms/candidates?startDate=" + start + "&endDate=" + start.plusDays(2) + "&limit=1", RoomDto[].class);
+        assertEquals(1, limited.getBody().length);
+    }
+
+    @Test
+    void testRoomListReadsKeepPersistenceContextEmpty() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<RoomDto> all = roomService.getAllAvailableRooms();
+            List<RoomDto> page = roomService.getAvailableRooms(0, 100);
+            assertFalse(all.isEmpty());
+            assertFalse(page.isEmpty());
+            assertNotNull(page.get(0).getHotelId());
+
+            // Списки читаются проекциями: в контексте персистентности нет ни номеров, ни отелей
+            assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+        });
+    }
+
+    @Test
+    void testConcurrentIncrementsAreNotLost() throws Exception {
+        int increments = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < increments; i++) {
+                String requestId = "concurrent-" + freshRoomId + "-" + i;
+                futures.add(executor.submit(() -> roomService.incrementTimesBooked(freshRoomId, requestId)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(increments, roomRepository.findById(freshRoomId).orElseThrow().getTimesBooked());
+    }
+
+    @Test
+    void testKeysetPaginationAndStreamingOfRooms() throws Exception {
+        List<Long> pagedIds = new ArrayList<>();
+        long after = 0;
+        List<RoomDto> page;
+        do {
+            page = roomService.getAvailableRooms(after, 3);
+            assertTrue(page.size() <= 3);
+            page.forEach(room -> pagedIds.add(room.getId()));
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 3);
+
+        assertEquals(roomService.getAllAvailableRooms().size(), pagedIds.size());
+        assertEquals(pagedIds.stream().sorted().toList(), pagedIds);
+
+        // Потоковая выдача пишет тот же набор номеров в виде JSON-массива
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        roomService.streamAvailableRooms(out);
+        List<Long> streamedIds = new ArrayList<>();
+        for (JsonNode room : objectMapper.readTree(out.toByteArray())) {
+            streamedIds.add(room.get("id").asLong());
+        }
+        assertEquals(pagedIds, streamedIds);
+    }
+
+    private boolean confirmDates(Long roomId, String requestId, LocalDate startDate, LocalDate endDate) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Request-Id", requestId);
+
+        HttpEntity<AvailabilityRequest> entity = new HttpEntity<>(new AvailabilityRequest(startDate, endDate), headers);
+        ResponseEntity<Boolean> response = restTemplate.postForEntity(
+            baseUrl + "/api/rooms/" + roomId + "/confirm-availability", entity, Boolean.class);
+
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        return response.getBody();
+    }
+
+    @Test
+    void testRoomOperationMetricsExposedForPrometheus() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Request-Id", "metrics-request-1");
+        restTemplate.postForEntity(baseUrl + "/api/rooms/1/confirm-availability",
+            new HttpEntity<>(headers), Boolean.class);
+        restTemplate.postForEntity(baseUrl + "/api/rooms/1/confirm-availability",
+            new HttpEntity<>(headers), Boolean.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity(baseUrl + "/actuator/prometheus", String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String metrics = response.getBody();
+
+        assertTrue(metrics.contains("room_operations_seconds_bucket{"));
+        assertTrue(metrics.contains("operation=\"confirm\""));
+        assertTrue(metrics.contains("outcome=\"duplicate\""));
+    }
+
+    @Test
+    void testGatewayClaimHeadersAuthenticateWithoutToken() throws Exception {
+        long expires = System.currentTimeMillis() / 1000 + 3600;
+
+        // Каталог доступен по подписанным шлюзом заголовкам без повторной проверки JWT
+        ResponseEntity<String> hotels = restTemplate.exchange(baseUrl + "/api/hotels", HttpMethod.GET,
+            new HttpEntity<>(trustedClaims("user", "USER", 2L, expires, trustedClaimsSecret)), String.class);
+        assertEquals(HttpStatus.OK, hotels.getStatusCode());
+
+        // Роль из заголовков участвует в проверке прав
+        CreateHotelRequest request = new CreateHotelRequest();
+        request.setName("Gateway Hotel");
+        request.setAddress("Gateway Address");
+        HttpHeaders admin = trustedClaims("admin", "ADMIN", 1L, expires, trustedClaimsSecret);
+        admin.setContentType(MediaType.APPLICATION_JSON);
+        assertTrue(restTemplate.exchange(baseUrl + "/api/hotels", HttpMethod.POST,
+            new HttpEntity<>(request, admin), String.class).getStatusCode().is2xxSuccessful());
+        HttpHeaders user = trustedClaims("user", "USER", 2L, expires, trustedClaimsSecret);
+        user.setContentType(MediaType.APPLICATION_JSON);
+        assertEquals(HttpStatus.FORBIDDEN, restTemplate.exchange(baseUrl + "/api/hotels", HttpMethod.POST,
+            new HttpEntity<>(request, user), String.class).getStatusCode());
+
+        // Чужая подпись и истёкшие заголовки не принимаются
+        assertEquals(HttpStatus.UNAUTHORIZED, restTemplate.exchange(baseUrl + "/api/hotels", HttpMethod.GET,
+            new HttpEntity<>(trustedClaims("user", "USER", 2L, expires, "forgedSecretKey12345678901234567890123456")),
+            String.class).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, restTemplate.exchange(baseUrl + "/api/hotels", HttpMethod.GET,
+            new HttpEntity<>(trustedClaims("user", "USER", 2L, expires - 7200, trustedClaimsSecret)), String.class).getStatusCode());
+    }
+
+    private HttpHeaders trustedClaims(String subject, String role, Long userId, long expires, String secret) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String encodedSubject = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(subject.getBytes(StandardCharsets.UTF_8));
+        String payload = encodedSubject + "\n" + role + "\n" + userId + "\n" + expires;
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Auth-Subject", encodedSubject);
+        headers.set("X-Auth-Role", role);
+        headers.set("X-Auth-User-Id", userId.toString());
+        headers.set("X-Auth-Expires", Long.toString(expires));
+        headers.set("X-Auth-Signature", Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8))));
+        return headers;
+    }
 }
@@ -0,0 +1,68 @@
+package ru.vspochernin.hotel_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.vspochernin.hotel_service.entity.IdempotencyRecord;
+import ru.vspochernin.hotel_service.repository.IdempotencyRecordRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceTest {
+
+    @Test
+    void testFailedFlushIsRetried() {
+        List<IdempotencyRecord> saved = new ArrayList<>();
+        AtomicInteger failures = new AtomicInteger(1);
+        IdempotencyService service = new IdempotencyService(recordRepository(saved, failures),
+                new SimpleMeterRegistry(), Duration.ofHours(24), 100, true);
+        service.markAsProcessed("retry-1", true);
+        service.markAsProcessed("retry-2", false);
+
+        service.flushPendingWrites();
+        assertTrue(saved.isEmpty());
+
+        service.flushPendingWrites();
+        assertEquals(List.of("retry-1", "retry-2"), saved.stream().map(IdempotencyRecord::getRequestId).toList());
+    }
+
+    @Test
+    void testRepeatedMarkIsFlushedOnce() {
+        List<IdempotencyRecord> saved = new ArrayList<>();
+        IdempotencyService service = new IdempotencyService(recordRepository(saved, new AtomicInteger()),
+                new SimpleMeterRegistry(), Duration.ofHours(24), 100, true);
+        service.markAsProcessed("repeat", false);
+        service.markAsProcessed("repeat", true);
+
+        service.flushPendingWrites();
+
+        assertEquals(1, saved.size());
+        assertTrue(saved.get(0).getResult());
+        // Новая запись вставляется через persist, без SELECT из merge
+        assertTrue(saved.get(0).isNew());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IdempotencyRecordRepository recordRepository(List<IdempotencyRecord> saved, AtomicInteger failures) {
+        return (IdempotencyRecordRepository) Proxy.newProxyInstance(
+                IdempotencyRecordRepository.class.getClassLoader(),
+                new Class<?>[]{IdempotencyRecordRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("saveAll")) {
+                        if (failures.getAndDecrement() > 0) {
+                            throw new IllegalStateException("database unavailable");
+                        }
+                        List<IdempotencyRecord> batch = new ArrayList<>();
+                        ((Iterable<IdempotencyRecord>) args[0]).forEach(batch::add);
+                        saved.addAll(batch);
+                        return batch;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
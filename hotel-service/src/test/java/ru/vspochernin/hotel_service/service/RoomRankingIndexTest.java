@@ -0,0 +1,92 @@
+package ru.vspochernin.hotel_service.service;
+
+import org.junit.jupiter.api.Test;
+import ru.vspochernin.hotel_service.dto.RoomDto;
+import ru.vspochernin.hotel_service.repository.RoomRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomRankingIndexTest {
+
+    @Test
+    void testIncrementDuringRebuildIsNotOverwrittenBySnapshot() throws Exception {
+        AtomicReference<Supplier<List<RoomDto>>> snapshot = new AtomicReference<>(() -> List.of(room(0)));
+        RoomRankingIndex index = new RoomRankingIndex(roomRepository(() -> snapshot.get().get()));
+        index.rebuild();
+
+        // Инкремент фиксируется в БД после чтения снимка, его обработчик после фиксации
+        // срабатывает, пока перестройка ещё не закончилась
+        AtomicReference<CompletableFuture<Void>> increment = new AtomicReference<>();
+        snapshot.set(() -> {
+            increment.set(CompletableFuture.runAsync(() -> index.incrementTimesBooked(1L)));
+            sleep(100);
+            return List.of(room(0));
+        });
+        index.rebuild();
+        increment.get().get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, index.getRecommended(0, 1).get(0).getTimesBooked());
+    }
+
+    @Test
+    void testReadsDuringRebuildSeeCompleteRanking() {
+        List<RoomDto> rooms = List.of(room(1L, 0), room(2L, 1), room(3L, 2));
+        AtomicReference<Supplier<List<RoomDto>>> snapshot = new AtomicReference<>(() -> rooms);
+        RoomRankingIndex index = new RoomRankingIndex(roomRepository(() -> snapshot.get().get()));
+        index.rebuild();
+
+        // Пока перестройка перебирает результат запроса, рейтинг читают запросы /recommend
+        List<Integer> seen = new ArrayList<>();
+        snapshot.set(() -> new AbstractList<>() {
+            @Override
+            public RoomDto get(int i) {
+                seen.add(index.getRecommended(0, 10).size());
+                return rooms.get(i);
+            }
+
+            @Override
+            public int size() {
+                return rooms.size();
+            }
+        });
+        index.rebuild();
+
+        assertEquals(List.of(3, 3, 3), seen);
+        assertEquals(3, index.getRecommended(0, 10).size());
+    }
+
+    private static RoomDto room(int timesBooked) {
+        return room(1L, timesBooked);
+    }
+
+    private static RoomDto room(Long id, int timesBooked) {
+        return new RoomDto(id, 1L, "10" + id, true, timesBooked);
+    }
+
+    private static RoomRepository roomRepository(Supplier<List<RoomDto>> availableRooms) {
+        return (RoomRepository) Proxy.newProxyInstance(RoomRepository.class.getClassLoader(),
+            new Class<?>[]{RoomRepository.class}, (proxy, method, args) -> {
+                if (method.getName().equals("findAvailableRoomsOrderedByTimesBooked")) {
+                    return availableRooms.get();
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}